@@ -2,15 +2,20 @@ package dev.terna.janelle;
 
 import dev.terna.janelle.protocol.Request;
 import dev.terna.janelle.protocol.RequestType;
-import dev.terna.janelle.protocol.ResponseCode;
+import dev.terna.janelle.protocol.ResponseException;
+import dev.terna.janelle.protocol.ResponseInputStream;
+import dev.terna.janelle.protocol.ResultReader;
 
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.net.Socket;
-import java.nio.ByteBuffer;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
 
 public class Client {
+    private static Socket client;
+    private static final ResultPrinter resultPrinter = new ResultPrinter(System.out);
     private static final String janelleAsciiText = """
    ___                      _  _      \s
   |_  |                    | || |     \s
@@ -59,7 +64,7 @@ public class Client {
 
                     case PING -> sendRequest(RequestType.PING, null);
 
-                    case TABLES -> sendRequest(RequestType.QUERY, "select value from jn_configs where key = \"tables\";");
+                    case TABLES -> sendRequest(RequestType.QUERY_BINARY, "select value from jn_configs where key = \"tables\";");
 
                     case COLUMNS -> {
                         if (input.getCommand().length != 2) {
@@ -67,7 +72,7 @@ public class Client {
                             continue;
                         }
                         final var tableName = input.getCommand()[1];
-                        sendRequest(RequestType.QUERY, String.format("describe %s;", tableName));
+                        sendRequest(RequestType.QUERY_BINARY, String.format("describe %s;", tableName));
                     }
                 }
 
@@ -75,7 +80,7 @@ public class Client {
                     break;
                 }
             } else if (input.getType() == InputType.QUERY) {
-                sendRequest(RequestType.QUERY, input.getQuery());
+                sendRequest(RequestType.QUERY_BINARY, input.getQuery());
             } else {
                 System.out.println("Failed to parse input. :(");
             }
@@ -83,41 +88,97 @@ public class Client {
             input = new Input();
         }
 
+        if (client != null) {
+            client.close();
+        }
         System.out.println("Bye bye! :)");
     }
 
+    /**
+     * The connection to the server is kept open between requests, and reopened when the server has closed it.
+     */
     private static Socket getClient() throws IOException {
-        return new Socket("127.0.0.1", 6969);
+        if (client != null && !client.isClosed() && isClosedByServer(client)) {
+            client.close();
+        }
+        if (client == null || client.isClosed()) {
+            client = new Socket("127.0.0.1", 6969);
+            client.setTcpNoDelay(true);
+        }
+        return client;
     }
 
-    private static ResponseCode getResponseCode(Socket client) throws IOException {
-        final var idBytes = client.getInputStream().readNBytes(2);
-        final var id = ByteBuffer.wrap(idBytes).getShort();
-        return ResponseCode.fromId(id);
+    /**
+     * Whether the server has closed the connection, e.g. because it was idle for a while. The server sends nothing
+     * between responses, so the connection has been closed if there's anything to read.
+     */
+    private static boolean isClosedByServer(Socket socket) throws IOException {
+        socket.setSoTimeout(1);
+        try {
+            socket.getInputStream().read();
+            return true;
+        } catch (SocketTimeoutException e) {
+            return false;
+        } catch (IOException e) {
+            return true; // Reset by the server.
+        } finally {
+            socket.setSoTimeout(0);
+        }
     }
 
-    private static String getContent(Socket client) throws IOException {
-        final var contentLengthBytes = client.getInputStream().readNBytes(2);
-        final var contentLength = ByteBuffer.wrap(contentLengthBytes).getShort();
-        if (contentLength == 0) {
-            return null;
+    private static void printResults(ResponseInputStream response) throws IOException {
+        final var input = new DataInputStream(response);
+        final var numberOfResults = input.readUnsignedShort();
+        for (var i = 0; i < numberOfResults; i++) {
+            resultPrinter.print(new ResultReader(input));
         }
+        response.skipRemaining();
+    }
 
-        final var contentBytes = client.getInputStream().readNBytes(contentLength);
-        return new String(contentBytes, StandardCharsets.UTF_8);
+    /**
+     * Send the request and wait for the first frame of its response. The rest of the response is read from the
+     * returned stream as it arrives.
+     * The request is only sent again if writing it failed, since the server doesn't run a request it hasn't read in
+     * full. Once it has been written, the server may have run it, and running a query like an insert twice isn't
+     * safe, so a connection that fails after that is reported instead.
+     */
+    private static ResponseInputStream exchange(byte[] request) throws IOException {
+        try {
+            getClient().getOutputStream().write(request);
+        } catch (IOException e) {
+            if (client != null) {
+                client.close();
+            }
+            getClient().getOutputStream().write(request);
+        }
+        return new ResponseInputStream(client.getInputStream());
     }
 
     private static void sendRequest(RequestType type, String requestContent) throws IOException {
-        final var client = getClient();
-        final var request = new Request(type, requestContent).toByteArray();
-        client.getOutputStream().write(request);
-
-        final var responseCode = getResponseCode(client);
-        final var responseContent = getContent(client);
-        if (responseCode == ResponseCode.SUCCESS) {
-            System.out.println(responseContent);
-        } else {
-            System.out.println(responseCode.name() + " " + responseContent);
+        byte[] request;
+        try {
+            request = new Request(type, requestContent).toByteArray();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        try {
+            final var response = exchange(request);
+            if (type == RequestType.QUERY_BINARY) {
+                printResults(response);
+            } else {
+                final var content = response.readAllBytes();
+                System.out.println(content.length == 0 ? null : new String(content, StandardCharsets.UTF_8));
+            }
+        } catch (ResponseException e) {
+            System.out.println(e.getResponseCode().name() + " " + e.getMessage());
+        } catch (IOException e) {
+            // The request may have been run, so it's up to the user whether to send it again.
+            System.out.println("Lost the connection to the server: " + e.getMessage());
+            if (client != null) {
+                client.close();
+            }
         }
     }
 }
@@ -0,0 +1,67 @@
+package dev.terna.janelle;
+
+import dev.terna.janelle.protocol.ResultReader;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Renders query results as text tables, which the server leaves to the client. Rows are printed a batch at a time as
+ * they're received, so the column widths are worked out from the first batch only.
+ */
+public class ResultPrinter {
+    private final PrintStream output;
+
+    public ResultPrinter(PrintStream output) {
+        this.output = output;
+    }
+
+    public void print(ResultReader reader) throws IOException {
+        final var columnNames = reader.getColumnNames();
+        if (columnNames.length == 0) {
+            reader.readBatch();
+            output.println("OK");
+            return;
+        }
+
+        var batch = reader.readBatch();
+        final var widths = new int[columnNames.length];
+        for (var i = 0; i < columnNames.length; i++) {
+            widths[i] = columnNames[i].length();
+        }
+        if (batch != null) {
+            for (var row : batch) {
+                for (var i = 0; i < row.length; i++) {
+                    widths[i] = Math.max(widths[i], String.valueOf(row[i]).length());
+                }
+            }
+        }
+
+        final var separator = new StringBuilder("+");
+        for (var width : widths) {
+            separator.append("-".repeat(width + 2)).append("+");
+        }
+        output.println(separator);
+        printRow(columnNames, widths);
+        output.println(separator);
+        var numberOfRows = 0;
+        while (batch != null) {
+            for (var row : batch) {
+                printRow(row, widths);
+            }
+            numberOfRows += batch.length;
+            batch = reader.readBatch();
+        }
+        output.println(separator);
+        output.println(numberOfRows + (numberOfRows == 1 ? " row" : " rows"));
+    }
+
+    private void printRow(Object[] row, int[] widths) {
+        final var line = new StringBuilder("|");
+        for (var i = 0; i < row.length; i++) {
+            final var value = String.valueOf(row[i]);
+            line.append(" ").append(value).append(" ".repeat(Math.max(0, widths[i] - value.length()))).append(" |");
+        }
+        output.println(line);
+    }
+}
@@ -0,0 +1,27 @@
+package dev.terna.janelle.protocol;
+
+import java.util.Arrays;
+
+/**
+ * Type of the values of a column in a binary query result.
+ */
+public enum ColumnType {
+    INT((byte) 1),
+    FLOAT((byte) 2),
+    STRING((byte) 3),
+    BOOL((byte) 4);
+
+    private final byte code;
+
+    ColumnType(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static ColumnType fromCode(byte code) {
+        return Arrays.stream(ColumnType.values()).filter(ct -> ct.getCode() == code).findFirst().orElse(null);
+    }
+}
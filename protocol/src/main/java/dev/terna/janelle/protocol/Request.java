@@ -13,6 +13,14 @@ public class Request {
         this.content = content;
     }
 
+    public RequestType getType() {
+        return type;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
     /**
      * Request format:
      * Request type (2 bytes) + Content length (2 bytes) + Content in UTF-8
@@ -22,6 +30,9 @@ public class Request {
         short contentLength = 0;
         if (!(content == null || "".equals(content))) {
             contentBytes = content.getBytes(StandardCharsets.UTF_8);
+            if (contentBytes.length > MAX_CONTENT_LENGTH) {
+                throw new IllegalArgumentException("Request too large!");
+            }
             contentLength = (short) contentBytes.length;
         }
         final var buffer = ByteBuffer.allocate(2 + 2 + contentLength);
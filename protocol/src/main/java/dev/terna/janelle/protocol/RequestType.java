@@ -4,7 +4,9 @@ import java.util.Arrays;
 
 public enum RequestType {
     PING((short) 1),
-    QUERY((short) 2);
+    QUERY((short) 2),
+    // Like QUERY, but the results are sent in binary (see ResultWriter) instead of rendered as text.
+    QUERY_BINARY((short) 3);
 
     private final short code;
 
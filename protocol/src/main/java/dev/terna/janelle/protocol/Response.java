@@ -1,34 +1,87 @@
 package dev.terna.janelle.protocol;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 public class Response {
+    // The content length is sent as a short, so longer content is split into frames of at most this many bytes.
+    public static final int MAX_FRAME_CONTENT_LENGTH = Short.MAX_VALUE;
+    static final int FRAME_HEADER_LENGTH = 4;
     private final ResponseCode responseCode;
-    private final String content;
+    private final byte[] content;
+    private final boolean isBinary;
 
     public Response(ResponseCode responseCode, String content) {
+        this(responseCode, content == null ? new byte[]{} : content.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    private Response(ResponseCode responseCode, byte[] content, boolean isBinary) {
         this.responseCode = responseCode;
         this.content = content;
+        this.isBinary = isBinary;
+    }
+
+    /**
+     * Response whose content is bytes rather than text, e.g. a binary query result.
+     */
+    public static Response binary(ResponseCode responseCode, byte[] content) {
+        return new Response(responseCode, content == null ? new byte[]{} : content, true);
+    }
+
+    public ResponseCode getResponseCode() {
+        return responseCode;
+    }
+
+    /**
+     * Content as text, or null if there's no content.
+     */
+    public String getContent() {
+        return content.length == 0 ? null : new String(content, StandardCharsets.UTF_8);
+    }
+
+    public byte[] getContentBytes() {
+        return content;
+    }
+
+    /**
+     * Whether the content was given as bytes rather than text.
+     */
+    public boolean isBinary() {
+        return isBinary;
     }
 
     /**
      * Response format:
-     * Response code (2 bytes) + Content length (2 bytes) + Content in UTF-8
+     * Frames, each with at most MAX_FRAME_CONTENT_LENGTH bytes of the content. Every frame but the last has the CHUNK
+     * code, and the last one has the response code.
+     * Frame format:
+     * Response code (2 bytes) + Content length (2 bytes) + Content in UTF-8 (or binary, see isBinary)
      */
     public byte[] toByteArray() {
-        byte[] contentBytes = new byte[]{};
-        short contentLength = 0;
-        if (!(content == null || "".equals(content))) {
-            contentBytes = content.getBytes(StandardCharsets.UTF_8);
-            contentLength = (short) contentBytes.length;
-        }
-        final var buffer = ByteBuffer.allocate(2 + 2 + contentLength);
-        buffer.putShort(responseCode.getId());
-        buffer.putShort(contentLength);
-        if (contentLength > 0) {
-            buffer.put(contentBytes);
+        final var numberOfFrames = Math.max(1, (content.length + MAX_FRAME_CONTENT_LENGTH - 1) / MAX_FRAME_CONTENT_LENGTH);
+        final var buffer = ByteBuffer.allocate(numberOfFrames * FRAME_HEADER_LENGTH + content.length);
+        for (var frame = 0; frame < numberOfFrames; frame++) {
+            final var offset = frame * MAX_FRAME_CONTENT_LENGTH;
+            final var length = Math.min(MAX_FRAME_CONTENT_LENGTH, content.length - offset);
+            final var code = frame == numberOfFrames - 1 ? responseCode : ResponseCode.CHUNK;
+            buffer.putShort(code.getId());
+            buffer.putShort((short) length);
+            buffer.put(content, offset, length);
         }
         return buffer.array();
     }
+
+    /**
+     * Read a whole response, however many frames it was split into.
+     */
+    public static Response read(InputStream input) throws IOException {
+        try {
+            final var responseInput = new ResponseInputStream(input);
+            return binary(ResponseCode.SUCCESS, responseInput.readAllBytes());
+        } catch (ResponseException e) {
+            return new Response(e.getResponseCode(), e.getMessage());
+        }
+    }
 }
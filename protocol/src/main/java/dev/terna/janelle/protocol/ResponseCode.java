@@ -8,7 +8,8 @@ public enum ResponseCode {
     SERVER_ERROR((short)3),
     TOO_MANY_REQUESTS((short)4),
     QUERY_ERROR((short)5),
-    INTERNAL_ERROR((short)6)
+    INTERNAL_ERROR((short)6),
+    CHUNK((short)7), // Part of the content. More frames follow, up to one with the actual response code.
     ;
 
     private final short id;
@@ -0,0 +1,23 @@
+package dev.terna.janelle.protocol;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * Thrown while reading a response that ended with an error code instead of SUCCESS. The content of the last frame is
+ * the message.
+ */
+public class ResponseException extends IOException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final ResponseCode responseCode;
+
+    public ResponseException(ResponseCode responseCode, String message) {
+        super(message);
+        this.responseCode = responseCode;
+    }
+
+    public ResponseCode getResponseCode() {
+        return responseCode;
+    }
+}
@@ -0,0 +1,100 @@
+package dev.terna.janelle.protocol;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the content of one response as its frames arrive, so it can be consumed before the whole response has been
+ * received. The stream ends after the last frame. If the response ends with an error code, reading throws a
+ * ResponseException instead, and any content read before it should be discarded.
+ */
+public class ResponseInputStream extends InputStream {
+    private final DataInputStream input;
+    private ResponseCode frameCode;
+    private int frameRemaining;
+
+    /**
+     * Constructor. Blocks until the first frame of the response arrives.
+     * @param input: stream the response is read from, which is left at the start of the next response
+     */
+    public ResponseInputStream(InputStream input) throws IOException {
+        this.input = new DataInputStream(input);
+        readFrameHeader();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextFrame()) {
+            return -1;
+        }
+        frameRemaining--;
+        return input.readUnsignedByte();
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int count) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        if (!nextFrame()) {
+            return -1;
+        }
+        final var n = input.read(bytes, offset, Math.min(count, frameRemaining));
+        if (n < 0) {
+            throw new EOFException("Connection closed in the middle of a response.");
+        }
+        frameRemaining -= n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return Math.min(frameRemaining, input.available());
+    }
+
+    /**
+     * Read the rest of the response without using it, so the next response can be read.
+     */
+    public void skipRemaining() throws IOException {
+        final var buffer = new byte[4096];
+        while (read(buffer, 0, buffer.length) >= 0) {
+            // Keep reading.
+        }
+    }
+
+    /**
+     * Move on to the next frame if the current one has been read. Returns false at the end of the response.
+     */
+    private boolean nextFrame() throws IOException {
+        while (frameRemaining == 0) {
+            if (frameCode != ResponseCode.CHUNK) {
+                return false;
+            }
+            readFrameHeader();
+        }
+        return true;
+    }
+
+    private void readFrameHeader() throws IOException {
+        final var code = ResponseCode.fromId(input.readShort());
+        if (code == null) {
+            throw new IOException("Invalid response code.");
+        }
+        frameCode = code;
+        frameRemaining = input.readUnsignedShort();
+
+        if (code != ResponseCode.CHUNK && code != ResponseCode.SUCCESS) {
+            String message = null;
+            if (frameRemaining > 0) {
+                final var messageBytes = new byte[frameRemaining];
+                input.readFully(messageBytes);
+                message = new String(messageBytes, StandardCharsets.UTF_8);
+            }
+            frameRemaining = 0;
+            throw new ResponseException(code, message);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package dev.terna.janelle.protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the content of a response as it's produced, instead of building all of it first. Content is sent in CHUNK
+ * frames as soon as a frame's worth has been written, so the client can start reading it before the rest is ready,
+ * and the response is ended with finish or fail. See Response for the format.
+ */
+public class ResponseOutputStream extends OutputStream {
+    private final OutputStream output;
+    private final byte[] buffer = new byte[Response.FRAME_HEADER_LENGTH + Response.MAX_FRAME_CONTENT_LENGTH];
+    private int length = 0;
+    private long contentLength = 0;
+    private ResponseCode responseCode = null;
+
+    public ResponseOutputStream(OutputStream output) {
+        this.output = output;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureNotFinished();
+        if (length == Response.MAX_FRAME_CONTENT_LENGTH) {
+            writeFrame(ResponseCode.CHUNK);
+        }
+        buffer[Response.FRAME_HEADER_LENGTH + length++] = (byte) b;
+        contentLength++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int count) throws IOException {
+        ensureNotFinished();
+        while (count > 0) {
+            if (length == Response.MAX_FRAME_CONTENT_LENGTH) {
+                writeFrame(ResponseCode.CHUNK);
+            }
+            final var n = Math.min(count, Response.MAX_FRAME_CONTENT_LENGTH - length);
+            System.arraycopy(bytes, offset, buffer, Response.FRAME_HEADER_LENGTH + length, n);
+            length += n;
+            contentLength += n;
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Send what has been written so far, even if it doesn't fill a frame.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureNotFinished();
+        if (length > 0) {
+            writeFrame(ResponseCode.CHUNK);
+        }
+    }
+
+    /**
+     * End the response with the rest of the content.
+     */
+    public void finish(ResponseCode responseCode) throws IOException {
+        ensureNotFinished();
+        writeFrame(responseCode);
+        this.responseCode = responseCode;
+    }
+
+    /**
+     * End the response with an error. Content that hasn't been sent yet is dropped, and the client discards what it
+     * has already been sent.
+     */
+    public void fail(ResponseCode responseCode, String message) throws IOException {
+        ensureNotFinished();
+        final var messageBytes = message == null ? new byte[]{} : message.getBytes(StandardCharsets.UTF_8);
+        length = Math.min(messageBytes.length, Response.MAX_FRAME_CONTENT_LENGTH);
+        System.arraycopy(messageBytes, 0, buffer, Response.FRAME_HEADER_LENGTH, length);
+        writeFrame(responseCode);
+        this.responseCode = responseCode;
+    }
+
+    /**
+     * Code the response was ended with, or null if it hasn't been ended.
+     */
+    public ResponseCode getResponseCode() {
+        return responseCode;
+    }
+
+    /**
+     * Number of bytes of content written so far.
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    private void writeFrame(ResponseCode responseCode) throws IOException {
+        ByteBuffer.wrap(buffer, 0, Response.FRAME_HEADER_LENGTH).putShort(responseCode.getId()).putShort((short) length);
+        output.write(buffer, 0, Response.FRAME_HEADER_LENGTH + length);
+        output.flush();
+        length = 0;
+    }
+
+    private void ensureNotFinished() {
+        if (responseCode != null) {
+            throw new IllegalStateException("Response has already been sent.");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dev.terna.janelle.protocol;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a query result written by ResultWriter, one batch of rows at a time.
+ */
+public class ResultReader {
+    private final DataInput input;
+    private final String[] columnNames;
+    private final ColumnType[] columnTypes;
+    private boolean isFinished = false;
+
+    public ResultReader(DataInput input) throws IOException {
+        this.input = input;
+
+        final var numberOfColumns = input.readUnsignedShort();
+        columnNames = new String[numberOfColumns];
+        columnTypes = new ColumnType[numberOfColumns];
+        for (var i = 0; i < numberOfColumns; i++) {
+            columnNames[i] = readString();
+            columnTypes[i] = ColumnType.fromCode(input.readByte());
+            if (columnTypes[i] == null) {
+                throw new IOException("Invalid column type.");
+            }
+        }
+    }
+
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    public ColumnType[] getColumnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * Read the next batch of rows, or return null if all of them have been read.
+     */
+    public Object[][] readBatch() throws IOException {
+        if (isFinished) {
+            return null;
+        }
+        final var numberOfRows = input.readInt();
+        if (numberOfRows == 0) {
+            isFinished = true;
+            return null;
+        }
+
+        final var rows = new Object[numberOfRows][columnTypes.length];
+        final var nullFlags = new byte[(numberOfRows + 7) / 8];
+        for (var columnIndex = 0; columnIndex < columnTypes.length; columnIndex++) {
+            input.readFully(nullFlags);
+            final var columnType = columnTypes[columnIndex];
+            for (var i = 0; i < numberOfRows; i++) {
+                if ((nullFlags[i >> 3] & (1 << (i & 7))) != 0) {
+                    continue;
+                }
+                rows[i][columnIndex] = switch (columnType) {
+                    case INT -> input.readInt();
+                    case FLOAT -> input.readFloat();
+                    case BOOL -> input.readBoolean();
+                    case STRING -> readString();
+                };
+            }
+        }
+        return rows;
+    }
+
+    private String readString() throws IOException {
+        final var bytes = new byte[input.readUnsignedShort()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
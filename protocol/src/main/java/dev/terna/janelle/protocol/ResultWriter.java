@@ -0,0 +1,96 @@
+package dev.terna.janelle.protocol;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a query result in binary, leaving it to the client to render. Rows are written in batches, and each batch
+ * holds all the values of one column before the next, so values of the same type are written together and are read
+ * back without any parsing.
+ *
+ * Result format:
+ * Column count (2 bytes) + Columns + Batches + End of result (4 bytes, always 0)
+ * Column format:
+ * Name length (2 bytes) + Name in UTF-8 + Column type (1 byte)
+ * Batch format:
+ * Row count (4 bytes) + Values of each column
+ * Column values format:
+ * Null flags (1 bit per row) + Values of the rows that aren't null (INT and FLOAT: 4 bytes, BOOL: 1 byte,
+ * STRING: length (2 bytes) + UTF-8)
+ */
+public class ResultWriter {
+    public static final int BATCH_SIZE = 1024;
+    private final DataOutput output;
+    private final ColumnType[] columnTypes;
+
+    public ResultWriter(DataOutput output, String[] columnNames, ColumnType[] columnTypes) throws IOException {
+        if (columnNames.length != columnTypes.length) {
+            throw new IllegalArgumentException("Every column must have a type.");
+        }
+        this.output = output;
+        this.columnTypes = columnTypes;
+
+        output.writeShort(columnNames.length);
+        for (var i = 0; i < columnNames.length; i++) {
+            writeString(columnNames[i]);
+            output.writeByte(columnTypes[i].getCode());
+        }
+    }
+
+    /**
+     * Write the rows in batches of at most BATCH_SIZE rows.
+     */
+    public void writeRows(Object[][] rows) throws IOException {
+        for (var from = 0; from < rows.length; from += BATCH_SIZE) {
+            writeBatch(rows, from, Math.min(rows.length, from + BATCH_SIZE));
+        }
+    }
+
+    /**
+     * Write rows[from] to rows[to - 1] as one batch.
+     */
+    public void writeBatch(Object[][] rows, int from, int to) throws IOException {
+        final var numberOfRows = to - from;
+        if (numberOfRows == 0) {
+            return;
+        }
+        output.writeInt(numberOfRows);
+        for (var columnIndex = 0; columnIndex < columnTypes.length; columnIndex++) {
+            final var nullFlags = new byte[(numberOfRows + 7) / 8];
+            for (var i = 0; i < numberOfRows; i++) {
+                if (rows[from + i][columnIndex] == null) {
+                    nullFlags[i >> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            output.write(nullFlags);
+
+            final var columnType = columnTypes[columnIndex];
+            for (var i = from; i < to; i++) {
+                final var value = rows[i][columnIndex];
+                if (value == null) {
+                    continue;
+                }
+                switch (columnType) {
+                    case INT -> output.writeInt(((Number) value).intValue());
+                    case FLOAT -> output.writeFloat(((Number) value).floatValue());
+                    case BOOL -> output.writeBoolean((Boolean) value);
+                    case STRING -> writeString(value.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark the end of the result. Nothing can be written afterwards.
+     */
+    public void finish() throws IOException {
+        output.writeInt(0);
+    }
+
+    private void writeString(String value) throws IOException {
+        final var bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+}
@@ -28,78 +28,83 @@ public class BPlusTree implements Serializable {
         this.m = m;
     }
 
+    BPlusTree(int m, InternalNode root, LeafNode firstLeaf) {
+        this.m = m;
+        this.root = root;
+        this.firstLeaf = firstLeaf;
+    }
+
     /**
-     * Algorithm: https://www.youtube.com/watch?v=DqcZLulVJ0M
+     * Take over the nodes of another tree, which mustn't be used afterwards.
      */
+    BPlusTree(BPlusTree tree) {
+        this(tree.m, tree.root, tree.firstLeaf);
+    }
+
+    /**
+	 * Algorithm: https://www.youtube.com/watch?v=DqcZLulVJ0M
+	 */
     public void insert(long key, long value) {
-        if (isEmpty()) {
+		if (isEmpty()) {
 			// Flow of execution goes here only when first insert takes place
 			// Create leaf node as first node in B plus tree (root is null)
-			LeafNode ln = new LeafNode(this.m, new Entry(key, value));
 			// Set as first leaf node (can be used later for in-order leaf traversal)
-			this.firstLeaf = ln;
-		} else {
-			// Find leaf node to insert into
-			LeafNode ln = (this.root == null) ? this.firstLeaf : findLeafNode(key);
-
-			// Insert into leaf node fails if node becomes overfull
-			if (!ln.insert(new Entry(key, value))) {
-				// Sort all the entries with the included pair to be inserted
-				ln.entries[ln.numPairs] = new Entry(key, value);
-				ln.numPairs++;
-				Utils.sortEntries(ln.entries);
-
-				// Split the sorted pairs into two halves
-				int midpoint = getMidpoint();
-				Entry[] halfEntries = splitEntries(ln, midpoint);
-
-				if (ln.parent == null) {
-					// Flow of execution goes here when there is 1 node in tree
-					// Create internal node to serve as parent, use entries midpoint key
-					Long[] parentKeys = new Long[this.m];
-					parentKeys[0] = halfEntries[0].key;
-					InternalNode parent = new InternalNode(this.m, parentKeys);
-					ln.parent = parent;
-					parent.appendChildPointer(ln);
-				} else {
-					// Flow of execution goes here when parent exists
-					// Add new key to parent for proper indexing
-					long newParentKey = halfEntries[0].key;
-					ln.parent.keys[ln.parent.degree - 1] = newParentKey;
-					Arrays.sort(ln.parent.keys, 0, ln.parent.degree);
-				}
+			this.firstLeaf = new LeafNode(this.m, key, value);
+			return;
+		}
 
-				// Create new LeafNode that holds the other half
-				LeafNode newLeafNode = new LeafNode(this.m, halfEntries, ln.parent);
+		// Find leaf node to insert into
+		LeafNode ln = (this.root == null) ? this.firstLeaf : findLeafNode(key, false);
+		ln.insert(key, value);
+		if (!ln.isOverfull()) {
+			return;
+		}
 
-				// Update child pointers of parent node
-				int pointerIndex = ln.parent.findIndexOfPointer(ln) + 1;
-				ln.parent.insertChildPointer(newLeafNode, pointerIndex);
+		// Split the sorted pairs into two halves, the new LeafNode holds the upper half
+		int midpoint = getMidpoint();
+		LeafNode newLeafNode = new LeafNode(this.m, ln.parent);
+		newLeafNode.appendPairs(ln, midpoint);
 
-				// Make leaf nodes siblings of one another
-				newLeafNode.rightSibling = ln.rightSibling;
-				if (newLeafNode.rightSibling != null) {
-					newLeafNode.rightSibling.leftSibling = newLeafNode;
-				}
-				ln.rightSibling = newLeafNode;
-				newLeafNode.leftSibling = ln;
-
-				if (this.root == null) {
-					// Set the root of B+ tree to be the parent
-					this.root = ln.parent;
-				} else {
-					// If parent is overfull, repeat the process up the tree, until no deficiencies are found
-					InternalNode in = ln.parent;
-					while (in != null) {
-						if (in.isOverfull()) {
-							splitInternalNode(in);
-						} else {
-							break;
-						}
-						in = in.parent;
-					}
-				}
-			}
+		// Make leaf nodes siblings of one another
+		newLeafNode.rightSibling = ln.rightSibling;
+		if (newLeafNode.rightSibling != null) {
+			newLeafNode.rightSibling.leftSibling = newLeafNode;
+		}
+		ln.rightSibling = newLeafNode;
+		newLeafNode.leftSibling = ln;
+
+		insertIntoParent(ln, newLeafNode.keys[0], newLeafNode);
+    }
+
+    /**
+	 * This method adds the key and the new right-hand node of a split to the
+	 * parent of the left-hand node, creating a new root if the left-hand node
+	 * was the root. If the parent is overfull, the process is repeated up the
+	 * tree until no deficiencies are found.
+	 * @param left: the node that was split
+	 * @param key: the first key of the right-hand node
+	 * @param right: the node holding the upper half of the split node
+	 */
+    private void insertIntoParent(Node left, long key, Node right) {
+		InternalNode parent = left.parent;
+		if (parent == null) {
+			// Create internal node to serve as the new root
+			parent = new InternalNode(this.m);
+			parent.appendChildPointer(left);
+			parent.insertChildPointer(0, key, right);
+			left.parent = parent;
+			right.parent = parent;
+			this.root = parent;
+			return;
+		}
+
+		// Add new key and child pointer to parent for proper indexing
+		int pointerIndex = parent.findIndexOfPointer(left);
+		parent.insertChildPointer(pointerIndex, key, right);
+		right.parent = parent;
+
+		if (parent.isOverfull()) {
+			splitInternalNode(parent);
 		}
     }
 
@@ -107,57 +112,38 @@ public class BPlusTree implements Serializable {
 	 * This is a simple method that determines if the B+ tree is empty or not.
 	 * @return a boolean indicating if the B+ tree is empty or not
 	 */
-	private boolean isEmpty() {
+    private boolean isEmpty() {
 		return firstLeaf == null;
-	}
+    }
+
+    InternalNode getRoot() {
+		return root;
+    }
+
+    LeafNode getFirstLeaf() {
+		return firstLeaf;
+    }
 
     /**
 	 * This method starts at the root of the B+ tree and traverses down the
-	 * tree via key comparisons to the corresponding leaf node that holds 'key' within its entries.
-	 * @param key: the unique key that lies within the entries of a LeafNode object
-	 * @return the LeafNode object that contains the key within its entries
+	 * tree via key comparisons to the corresponding leaf node where 'key' belongs.
+	 * Since duplicates of a key may be spread over several leaves, either the
+	 * leftmost or the rightmost of them can be found.
+	 * @param key: the key that lies within the entries of a LeafNode object
+	 * @param isLowerBound: find the leftmost leaf that may hold the key rather than the rightmost one
+	 * @return the LeafNode object where the key belongs
 	 */
-	private LeafNode findLeafNode(long key) {
-		// Initialize keys and index variable
-		Long[] keys = root.keys;
-		int i;
-
-		// Find next node on path to appropriate leaf node
-		for (i = 0; i < root.degree - 1; i++) {
-			if (key < keys[i]) {
-                break;
-            }
-		}
-
-		// Return node if it is a LeafNode object, otherwise repeat the search function a level down
-		Node child = root.childPointers[i];
-		if (child instanceof LeafNode) {
-			return (LeafNode) child;
-		} else {
-			return findLeafNode((InternalNode) child, key);
-		}
-	}
-
-    private LeafNode findLeafNode(InternalNode node, long key) {
-		// Initialize keys and index variable
-		Long[] keys = node.keys;
-		int i;
-
-		// Find next node on path to appropriate leaf node
-		for (i = 0; i < node.degree - 1; i++) {
-			if (key < keys[i]) {
-                break;
-            }
-		}
-
-		// Return node if it is a LeafNode object, otherwise repeat the search function a level down
-		Node childNode = node.childPointers[i];
-		if (childNode instanceof LeafNode) {
-			return (LeafNode) childNode;
-		} else {
-			return findLeafNode((InternalNode)node.childPointers[i], key);
+    private LeafNode findLeafNode(long key, boolean isLowerBound) {
+		Node node = this.root;
+		while (node instanceof InternalNode in) {
+			// Find next node on path to appropriate leaf node
+			int i = isLowerBound
+				? Utils.lowerBound(in.keys, in.degree - 1, key)
+				: Utils.upperBound(in.keys, in.degree - 1, key);
+			node = in.childPointers[i];
 		}
-	}
+		return (LeafNode) node;
+    }
 
     /**
 	 * This is a simple method that returns the midpoint (or lower bound
@@ -165,129 +151,27 @@ public class BPlusTree implements Serializable {
 	 * the B+ tree.
 	 * @return (int) midpoint / lower bound
 	 */
-	private int getMidpoint() {
+    private int getMidpoint() {
 		return (int) Math.ceil((m + 1) / 2.0) - 1;
-	}
-
-    /**
-	 * This method splits entries into two entries where all
-	 * entries are of equal length, but each of the resulting entries
-	 * holds half of the original entries' non-null values. This method is
-	 * primarily used when splitting a node within the B+ tree. The entries of
-	 * the specified LeafNode is modified in place. The method returns the
-	 * remainder of the entries that are no longer within ln's entries.
-	 * @param ln: list of entries to be split
-	 * @param split: the index at which the split occurs
-	 * @return Entry[] of the two split entries
-	 */
-	private Entry[] splitEntries(LeafNode ln, int split) {
-		// Initialize two entries that each hold half of the original entries values
-		Entry[] halfEntries = new Entry[this.m];
-
-		// Copy half of the values into halfEntries
-		for (int i = split; i < ln.entries.length; i++) {
-			halfEntries[i - split] = ln.entries[i];
-			ln.delete(i);
-		}
-
-		return halfEntries;
-	}
+    }
 
     private void splitInternalNode(InternalNode in) {
-		// Acquire parent
-		InternalNode parent = in.parent;
-
-		// Split keys and pointers in half
+		// Split keys and pointers in half, the midpoint key moves up to the parent
 		int midpoint = getMidpoint();
 		long newParentKey = in.keys[midpoint];
-		Long[] halfKeys = splitKeys(in.keys, midpoint);
-		Node[] halfPointers = splitChildPointers(in, midpoint);
-
-		// Change degree of original InternalNode in
-		in.degree = Utils.linearNullSearch(in.childPointers);
-
-		// Create new sibling internal node and add half of keys and pointers
-		InternalNode sibling = new InternalNode(this.m, halfKeys, halfPointers);
-		for (Node pointer : halfPointers) {
-			if (pointer != null) { pointer.parent = sibling; }
-		}
-
-		// Make internal nodes siblings of one another
-		sibling.rightSibling = in.rightSibling;
-		if (sibling.rightSibling != null) {
-			sibling.rightSibling.leftSibling = sibling;
-		}
-		in.rightSibling = sibling;
-		sibling.leftSibling = in;
-
-		if (parent == null) {
-			// Create new root node and add midpoint key and pointers
-			Long[] keys = new Long[this.m];
-			keys[0] = newParentKey;
-			InternalNode newRoot = new InternalNode(this.m, keys);
-			newRoot.appendChildPointer(in);
-			newRoot.appendChildPointer(sibling);
-			this.root = newRoot;
-
-			// Add pointers from children to parent
-			in.parent = newRoot;
-			sibling.parent = newRoot;
-		} else {
-			// Add key to parent
-			parent.keys[parent.degree - 1] = newParentKey;
-			Arrays.sort(parent.keys, 0, parent.degree);
-
-			// Set up pointer to new sibling
-			int pointerIndex = parent.findIndexOfPointer(in) + 1;
-			parent.insertChildPointer(sibling, pointerIndex);
-			sibling.parent = parent;
-		}
-	}
-
-    /**
-	 * This method modifies a list of Long-typed objects that represent keys
-	 * by removing half of the keys and returning them in a separate Long[].
-	 * This method is used when splitting an InternalNode object.
-	 * @param keys: a list of Long objects
-	 * @param split: the index where the split is to occur
-	 * @return Long[] of removed keys
-	 */
-	private Long[] splitKeys(Long[] keys, int split) {
-		Long[] halfKeys = new Long[this.m];
-
-		// Remove split-indexed value from keys
-		keys[split] = null;
-
-		// Copy half of the values into halfKeys while updating original keys
-		for (int i = split + 1; i < keys.length; i++) {
-			halfKeys[i - split - 1] = keys[i];
-			keys[i] = null;
-		}
-
-		return halfKeys;
-	}
-
-    /**
-	 * This method modifies the InternalNode 'in' by removing all pointers within
-	 * the childPointers after the specified split. The method returns the removed
-	 * pointers in a list of their own to be used when constructing a new
-	 * InternalNode sibling.
-	 * @param in: an InternalNode whose childPointers will be split
-	 * @param split: the index at which the split in the childPointers begins
-	 * @return a Node[] of the removed pointers
-	 */
-	private Node[] splitChildPointers(InternalNode in, int split) {
-		Node[] pointers = in.childPointers;
-		Node[] halfPointers = new Node[this.m + 1];
 
-		// Copy half of the values into halfPointers while updating original keys
-		for (int i = split + 1; i < pointers.length; i++) {
-			halfPointers[i - split - 1] = pointers[i];
-			in.removePointer(i);
+		// Create new sibling internal node and move the keys and pointers after the midpoint to it
+		InternalNode sibling = new InternalNode(this.m);
+		for (int i = midpoint + 1; i < in.degree; i++) {
+			sibling.appendChildPointer(in.childPointers[i]);
+			in.childPointers[i].parent = sibling;
+			in.childPointers[i] = null;
 		}
+		System.arraycopy(in.keys, midpoint + 1, sibling.keys, 0, sibling.degree - 1);
+		in.degree = midpoint + 1;
 
-		return halfPointers;
-	}
+		insertIntoParent(in, newParentKey, sibling);
+    }
 
     /**
 	 * Given a key, this method returns the value associated with the key
@@ -295,262 +179,414 @@ public class BPlusTree implements Serializable {
 	 * @param key: the key to be searched within the B+ tree
 	 * @return the value associated with the key within the B+ tree
 	 */
-	public Long search(long key) {
+    public Long search(long key) {
 		// If B+ tree is completely empty, simply return null
 		if (isEmpty()) {
-            return null;
-        }
-
-		// Find leaf node that holds the key
-		LeafNode ln = (this.root == null) ? this.firstLeaf : findLeafNode(key);
-
-		// Perform binary search to find index of key within entries
-		int index = Utils.binarySearch(ln.entries, ln.numPairs, key);
-
-		// If index negative, the key doesn't exist in B+ tree
-		if (index < 0) {
 			return null;
-		} else {
-			return ln.entries[index].value;
 		}
-	}
 
-	/**
-	 * This method traverses the doubly linked list of the B+ tree and records
+		// Find leaf node that holds the key, moving right if the key would come after all of its entries
+		LeafNode ln = (this.root == null) ? this.firstLeaf : findLeafNode(key, true);
+		while (ln != null) {
+			int index = Utils.lowerBound(ln.keys, ln.numPairs, key);
+			if (index < ln.numPairs) {
+				// If the key found isn't the one being searched for, the key doesn't exist in B+ tree
+				return ln.keys[index] == key ? ln.values[index] : null;
+			}
+			ln = ln.rightSibling;
+		}
+		return null;
+    }
+
+    /**
+	 * This method descends to the leaf where lowerBound belongs and records
 	 * all values whose associated keys are within the range specified by
-	 * lowerBound and upperBound.
+	 * lowerBound and upperBound, walking the doubly linked list of leaves to
+	 * the right until a key exceeds upperBound. Only the leaves overlapping the
+	 * range are visited.
 	 * @param lowerBound: (long) the lower bound of the range
 	 * @param upperBound: (long) the upper bound of the range
 	 * @return an list that holds all values of entries
-	 * whose keys are within the specified range
+	 * whose keys are within the specified range, in ascending key order
 	 */
 	public ArrayList<Long> search(long lowerBound, long upperBound) {
 		// Instantiate list to hold values
 		ArrayList<Long> values = new ArrayList<>();
+		if (isEmpty() || lowerBound > upperBound) {
+			return values;
+		}
 
-		// Iterate through the doubly linked list of leaves
-		LeafNode currNode = this.firstLeaf;
+		// Find leftmost leaf node that may hold the lower bound and the first entry in range within it
+		LeafNode currNode = (this.root == null) ? this.firstLeaf : findLeafNode(lowerBound, true);
+		int i = Utils.lowerBound(currNode.keys, currNode.numPairs, lowerBound);
 		while (currNode != null) {
-			// Iterate through the entries of each node
-			for (var entry : currNode.entries) {
-				// Stop searching entries once a null value is encountered as this the indicates the end of non-null values
-				if (entry == null) {
-                    break;
-                }
-
-				// Include value if its key fits within the provided range
-				if (lowerBound <= entry.key && entry.key <= upperBound) {
-					values.add(entry.value);
+			for (; i < currNode.numPairs; i++) {
+				// Stop as soon as a key is past the upper bound since the keys are sorted
+				if (currNode.keys[i] > upperBound) {
+					return values;
 				}
+				values.add(currNode.values[i]);
 			}
 
 			// Update the current node to be the right sibling, leaf traversal is from left to right
 			currNode = currNode.rightSibling;
+			i = 0;
 		}
 
 		return values;
 	}
 
     /**
-	 * Given a key, this method will remove the entry with the
-	 * corresponding key from the B+ tree.
-	 * @param key: an integer key that corresponds with an existing entry
+	 * This method is the reverse of search(lowerBound, upperBound): it descends
+	 * to the leaf where upperBound belongs and walks the doubly linked list of
+	 * leaves to the left until a key is below lowerBound.
+	 * @param lowerBound: (long) the lower bound of the range
+	 * @param upperBound: (long) the upper bound of the range
+	 * @return an list that holds all values of entries
+	 * whose keys are within the specified range, in descending key order
 	 */
-	public void delete(long key) {
-		if (!isEmpty()) {
-			// Get leaf node and attempt to find index of key to delete
-			LeafNode ln = (this.root == null) ? this.firstLeaf : findLeafNode(key);
-			int entryIndex = Utils.binarySearch(ln.entries, ln.numPairs, key);
-
-			if (entryIndex > -1) {
-				// Successfully delete the entry
-				ln.delete(entryIndex);
-
-				// Check for deficiencies
-				if (ln.isDeficient()) {
-					LeafNode sibling;
-					InternalNode parent = ln.parent;
-
-					// Borrow: First, check the left sibling, then the right sibling
-					if (ln.leftSibling != null &&
-						ln.leftSibling.parent == ln.parent &&
-						ln.leftSibling.isLendable()) {
-
-						sibling = ln.leftSibling;
-						Entry borrowedEntry = sibling.entries[sibling.numPairs - 1];
-
-						// Insert borrowed entry, sort entries, and delete entry from sibling
-						ln.insert(borrowedEntry);
-						Utils.sortEntries(ln.entries);
-						sibling.delete(sibling.numPairs - 1);
-
-						// Update key in parent if necessary
-						int pointerIndex = Utils.findIndexOfPointer(parent.childPointers, ln);
-						if (!(borrowedEntry.key >= parent.keys[pointerIndex - 1])) {
-							parent.keys[pointerIndex - 1] = ln.entries[0].key;
-						}
-					} else if (ln.rightSibling != null &&
-							   ln.rightSibling.parent == ln.parent &&
-							   ln.rightSibling.isLendable()) {
-						sibling = ln.rightSibling;
-						Entry borrowedEntry = sibling.entries[0];
-
-						// Insert borrowed entry, sort entries, and delete entry from sibling
-						ln.insert(borrowedEntry);
-						sibling.delete(0);
-						Utils.sortEntries(sibling.entries);
-
-						// Update key in parent if necessary
-						int pointerIndex = Utils.findIndexOfPointer(parent.childPointers, ln);
-						if (!(borrowedEntry.key < parent.keys[pointerIndex])) {
-							parent.keys[pointerIndex] = sibling.entries[0].key;
-						}
-
-                    // Merge: First, check the left sibling, then the right sibling
-					} else if (ln.leftSibling != null &&
-							 ln.leftSibling.parent == ln.parent &&
-							 ln.leftSibling.isMergeable()) {
-						sibling = ln.leftSibling;
-						int pointerIndex = Utils.findIndexOfPointer(parent.childPointers, ln);
-
-						// Remove key and child pointer from parent
-						parent.removeKey(pointerIndex - 1);
-						parent.removePointer(ln);
-
-						// Update sibling pointer
-						sibling.rightSibling = ln.rightSibling;
-
-						// Check for deficiencies in parent
-						if (parent.isDeficient()) {
-							handleDeficiency(parent);
-						}
-					} else if (ln.rightSibling != null &&
-							   ln.rightSibling.parent == ln.parent &&
-							   ln.rightSibling.isMergeable()) {
-
-						sibling = ln.rightSibling;
-						int pointerIndex = Utils.findIndexOfPointer(parent.childPointers, ln);
-
-						// Remove key and child pointer from parent
-						parent.removeKey(pointerIndex);
-						parent.removePointer(pointerIndex);
-
-						// Update sibling pointer
-						sibling.leftSibling = ln.leftSibling;
-						if (sibling.leftSibling == null) {
-							firstLeaf = sibling;
-						}
-
-						if (parent.isDeficient()) {
-							handleDeficiency(parent);
-						}
-					}
-				} else if (this.root == null && this.firstLeaf.numPairs == 0) {
-					// Flow of execution goes here when the deleted entry was the only pair within the tree
-					// Set first leaf as null to indicate B+ tree is empty
-					this.firstLeaf = null;
-				} else {
-					// The entries of the LeafNode object may need to be sorted after a successful delete
-					Utils.sortEntries(ln.entries);
+	public ArrayList<Long> searchReverse(long lowerBound, long upperBound) {
+		ArrayList<Long> values = new ArrayList<>();
+		if (isEmpty() || lowerBound > upperBound) {
+			return values;
+		}
+
+		// Find rightmost leaf node that may hold the upper bound and the last entry in range within it
+		LeafNode currNode = (this.root == null) ? this.firstLeaf : findLeafNode(upperBound, false);
+		int i = Utils.upperBound(currNode.keys, currNode.numPairs, upperBound) - 1;
+		while (currNode != null) {
+			for (; i >= 0; i--) {
+				if (currNode.keys[i] < lowerBound) {
+					return values;
 				}
+				values.add(currNode.values[i]);
+			}
+
+			// Leaf traversal is from right to left
+			currNode = currNode.leftSibling;
+			if (currNode != null) {
+				i = currNode.numPairs - 1;
 			}
 		}
+
+		return values;
 	}
 
+    @FunctionalInterface
+    public interface EntryConsumer {
+		void accept(long key, long value);
+    }
+
     /**
-	 * Given a deficient InternalNode in, this method remedies the deficiency
-	 * through borrowing and merging.
-	 * @param in: a deficient InternalNode
+	 * This method traverses the doubly linked list of the B+ tree and passes
+	 * every entry to the consumer in key order.
+	 * @param consumer: called with the key and value of each entry
 	 */
-	private void handleDeficiency(InternalNode in) {
-		InternalNode sibling;
-		InternalNode parent = in.parent;
+    public void forEachEntry(EntryConsumer consumer) {
+		LeafNode currNode = this.firstLeaf;
+		while (currNode != null) {
+			for (int i = 0; i < currNode.numPairs; i++) {
+				consumer.accept(currNode.keys[i], currNode.values[i]);
+			}
+			currNode = currNode.rightSibling;
+		}
+    }
 
-		// Remedy deficient root node
-		if (this.root == in) {
-			for (int i = 0; i < in.childPointers.length; i++) {
-				if (in.childPointers[i] != null) {
-					if (in.childPointers[i] instanceof InternalNode) {
-						this.root = (InternalNode)in.childPointers[i];
-						this.root.parent = null;
-					} else if (in.childPointers[i] instanceof LeafNode) {
-						this.root = null;
-					}
-				}
+    /**
+	 * This method opens a cursor over the entries of the B+ tree. The cursor
+	 * walks the doubly linked list of leaves one entry at a time, so nothing is
+	 * allocated per entry. The B+ tree mustn't be modified while the cursor is open.
+	 * @return a cursor that isn't positioned on any entry yet
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+    /**
+	 * Position within the doubly linked list of leaves. A cursor is either
+	 * positioned on an entry (isValid() returns true) or has run off either end
+	 * of the B+ tree.
+	 */
+	public class Cursor implements AutoCloseable {
+		private LeafNode leaf;
+		private int index;
+
+		protected Cursor() {
+		}
+
+		/**
+		 * Position the cursor on the first entry whose key is greater than or equal to key.
+		 * @return whether there is such an entry
+		 */
+		public boolean seek(long key) {
+			if (isEmpty()) {
+				leaf = null;
+				return false;
+			}
+			leaf = (root == null) ? firstLeaf : findLeafNode(key, true);
+			index = Utils.lowerBound(leaf.keys, leaf.numPairs, key);
+			skipForward();
+			return isValid();
+		}
+
+		/**
+		 * Position the cursor on the last entry whose key is less than or equal to key.
+		 * @return whether there is such an entry
+		 */
+		public boolean seekForPrev(long key) {
+			if (isEmpty()) {
+				leaf = null;
+				return false;
+			}
+			leaf = (root == null) ? firstLeaf : findLeafNode(key, false);
+			index = Utils.upperBound(leaf.keys, leaf.numPairs, key) - 1;
+			skipBackward();
+			return isValid();
+		}
+
+		public boolean seekToFirst() {
+			leaf = firstLeaf;
+			index = 0;
+			skipForward();
+			return isValid();
+		}
+
+		public boolean seekToLast() {
+			Node node = (root == null) ? firstLeaf : root;
+			while (node instanceof InternalNode in) {
+				node = in.childPointers[in.degree - 1];
+			}
+			leaf = (LeafNode) node;
+			index = (leaf == null) ? -1 : leaf.numPairs - 1;
+			skipBackward();
+			return isValid();
+		}
+
+		/**
+		 * Move the cursor to the next entry in key order.
+		 * @return whether the cursor is still positioned on an entry
+		 */
+		public boolean next() {
+			if (!isValid()) {
+				return false;
 			}
+			index++;
+			skipForward();
+			return isValid();
+		}
+
+		/**
+		 * Move the cursor to the previous entry in key order.
+		 * @return whether the cursor is still positioned on an entry
+		 */
+		public boolean prev() {
+			if (!isValid()) {
+				return false;
+			}
+			index--;
+			skipBackward();
+			return isValid();
+		}
+
+		public boolean isValid() {
+			return leaf != null;
+		}
+
+		public long getKey() {
+			checkValid();
+			return leaf.keys[index];
+		}
+
+		public long getValue() {
+			checkValid();
+			return leaf.values[index];
+		}
+
+		@Override
+		public void close() {
+			leaf = null;
+		}
 
-        // Borrow:
-		} else if (in.leftSibling != null && in.leftSibling.isLendable()) {
-			sibling = in.leftSibling;
-		} else if (in.rightSibling != null && in.rightSibling.isLendable()) {
-			sibling = in.rightSibling;
-
-			// Copy 1 key and pointer from sibling (atm just 1 key)
-			long borrowedKey = sibling.keys[0];
-			Node pointer = sibling.childPointers[0];
-
-			// Copy root key and pointer into parent
-			in.keys[in.degree - 1] = parent.keys[0];
-			in.childPointers[in.degree] = pointer;
-
-			// Copy borrowedKey into root
-			parent.keys[0] = borrowedKey;
-
-			// Delete key and pointer from sibling
-			sibling.removePointer(0);
-			Arrays.sort(sibling.keys);
-			sibling.removePointer(0);
-			shiftDown(in.childPointers, 1);
-		}
-
-		// Merge:
-		else if (in.leftSibling != null && in.leftSibling.isMergeable()) {
-            // Do nothing
-		} else if (in.rightSibling != null && in.rightSibling.isMergeable()) {
-			sibling = in.rightSibling;
-
-			// Copy rightmost key in parent to beginning of sibling's keys &
-			// delete key from parent
-			sibling.keys[sibling.degree - 1] = parent.keys[parent.degree - 2];
-			Arrays.sort(sibling.keys, 0, sibling.degree);
-			parent.keys[parent.degree - 2] = null;
-
-			// Copy in's child pointer over to sibling's list of child pointers
-			for (int i = 0; i < in.childPointers.length; i++) {
-				if (in.childPointers[i] != null) {
-					sibling.prependChildPointer(in.childPointers[i]);
-					in.childPointers[i].parent = sibling;
-					in.removePointer(i);
+		// Leaves may be empty when the order of the tree is small, so keep going until an entry is found.
+		private void skipForward() {
+			while (leaf != null && index >= leaf.numPairs) {
+				leaf = leaf.rightSibling;
+				index = 0;
+			}
+		}
+
+		private void skipBackward() {
+			while (leaf != null && index < 0) {
+				leaf = leaf.leftSibling;
+				if (leaf != null) {
+					index = leaf.numPairs - 1;
 				}
 			}
+		}
+
+		private void checkValid() {
+			if (!isValid()) {
+				throw new IllegalStateException("Cursor is not positioned on an entry.");
+			}
+		}
+	}
+
+    /**
+	 * Given a key, this method will remove the entry with the
+	 * corresponding key from the B+ tree.
+	 * @param key: an integer key that corresponds with an existing entry
+	 */
+    public void delete(long key) {
+		if (isEmpty()) {
+			return;
+		}
+
+		// Get leaf node and attempt to find index of key to delete
+		LeafNode ln = (this.root == null) ? this.firstLeaf : findLeafNode(key, true);
+		int entryIndex = Utils.lowerBound(ln.keys, ln.numPairs, key);
+		while (entryIndex == ln.numPairs && ln.rightSibling != null) {
+			ln = ln.rightSibling;
+			entryIndex = Utils.lowerBound(ln.keys, ln.numPairs, key);
+		}
+		if (entryIndex == ln.numPairs || ln.keys[entryIndex] != key) {
+			return;
+		}
+
+		// Successfully delete the entry
+		ln.delete(entryIndex);
+
+		if (ln.parent == null) {
+			if (ln.numPairs == 0) {
+				// Flow of execution goes here when the deleted entry was the only pair within the tree
+				// Set first leaf as null to indicate B+ tree is empty
+				this.firstLeaf = null;
+			}
+		} else if (ln.isDeficient()) {
+			handleDeficiency(ln);
+		}
+    }
 
-			// Delete child pointer from grandparent to deficient node
-			parent.removePointer(in);
+    /**
+	 * Given a deficient LeafNode ln, this method remedies the deficiency
+	 * through borrowing from or merging with a sibling that has the same parent.
+	 * @param ln: a deficient LeafNode
+	 */
+    private void handleDeficiency(LeafNode ln) {
+		InternalNode parent = ln.parent;
+		int pointerIndex = parent.findIndexOfPointer(ln);
+		LeafNode leftSibling = pointerIndex > 0 ? (LeafNode) parent.childPointers[pointerIndex - 1] : null;
+		LeafNode rightSibling = pointerIndex < parent.degree - 1 ? (LeafNode) parent.childPointers[pointerIndex + 1] : null;
+
+		// Borrow: First, check the left sibling, then the right sibling
+		if (leftSibling != null && leftSibling.isLendable()) {
+			int last = leftSibling.numPairs - 1;
+			ln.insert(0, leftSibling.keys[last], leftSibling.values[last]);
+			leftSibling.delete(last);
+
+			// Update key in parent
+			parent.keys[pointerIndex - 1] = ln.keys[0];
+		} else if (rightSibling != null && rightSibling.isLendable()) {
+			ln.insert(ln.numPairs, rightSibling.keys[0], rightSibling.values[0]);
+			rightSibling.delete(0);
+
+			// Update key in parent
+			parent.keys[pointerIndex] = rightSibling.keys[0];
+
+		// Merge: First, check the left sibling, then the right sibling
+		} else if (leftSibling != null) {
+			mergeLeafNodes(leftSibling, ln);
+			parent.removeChildPointer(pointerIndex - 1);
+			handleDeficiency(parent);
+		} else if (rightSibling != null) {
+			mergeLeafNodes(ln, rightSibling);
+			parent.removeChildPointer(pointerIndex);
+			handleDeficiency(parent);
+		}
+    }
+
+    /**
+	 * This method moves every entry of a LeafNode into its left sibling and
+	 * unlinks it from the doubly linked list of leaves.
+	 * @param left: the LeafNode that remains
+	 * @param right: the LeafNode that is merged into left
+	 */
+    private void mergeLeafNodes(LeafNode left, LeafNode right) {
+		left.appendPairs(right, 0);
+		left.rightSibling = right.rightSibling;
+		if (left.rightSibling != null) {
+			left.rightSibling.leftSibling = left;
+		}
+    }
+
+    /**
+	 * Given an InternalNode in that may have lost a child, this method
+	 * remedies any deficiency through borrowing and merging.
+	 * @param in: a possibly deficient InternalNode
+	 */
+    private void handleDeficiency(InternalNode in) {
+		InternalNode parent = in.parent;
 
-			// Remove left sibling
-			sibling.leftSibling = in.leftSibling;
+		// Remedy root node with a single child, the child becomes the root
+		if (parent == null) {
+			if (in.degree == 1) {
+				Node child = in.childPointers[0];
+				child.parent = null;
+				this.root = (child instanceof InternalNode) ? (InternalNode) child : null;
+			}
+			return;
+		}
+		if (!in.isDeficient()) {
+			return;
 		}
 
-		// Handle deficiency a level up if it exists
-		if (parent != null && parent.isDeficient()) {
+		int pointerIndex = parent.findIndexOfPointer(in);
+		InternalNode leftSibling = pointerIndex > 0 ? (InternalNode) parent.childPointers[pointerIndex - 1] : null;
+		InternalNode rightSibling = pointerIndex < parent.degree - 1 ? (InternalNode) parent.childPointers[pointerIndex + 1] : null;
+
+		// Borrow: rotate a child of a sibling through the parent
+		if (leftSibling != null && leftSibling.isLendable()) {
+			Node pointer = leftSibling.childPointers[leftSibling.degree - 1];
+			in.prependChildPointer(parent.keys[pointerIndex - 1], pointer);
+			pointer.parent = in;
+			parent.keys[pointerIndex - 1] = leftSibling.keys[leftSibling.degree - 2];
+			leftSibling.childPointers[leftSibling.degree - 1] = null;
+			leftSibling.degree--;
+		} else if (rightSibling != null && rightSibling.isLendable()) {
+			Node pointer = rightSibling.childPointers[0];
+			in.insertChildPointer(in.degree - 1, parent.keys[pointerIndex], pointer);
+			pointer.parent = in;
+			parent.keys[pointerIndex] = rightSibling.keys[0];
+			rightSibling.removeFirstChildPointer();
+
+		// Merge: pull the separating key down from the parent
+		} else if (leftSibling != null) {
+			mergeInternalNodes(leftSibling, parent.keys[pointerIndex - 1], in);
+			parent.removeChildPointer(pointerIndex - 1);
+			handleDeficiency(parent);
+		} else if (rightSibling != null) {
+			mergeInternalNodes(in, parent.keys[pointerIndex], rightSibling);
+			parent.removeChildPointer(pointerIndex);
 			handleDeficiency(parent);
 		}
-	}
+    }
 
     /**
-	 * This method is used to shift down a set of pointers that are prepended
-	 * by null values.
-	 * @param pointers: the list of pointers that are to be shifted
-	 * @param amount: the amount by which the pointers are to be shifted
+	 * This method moves the separating key and every key and child pointer of
+	 * an InternalNode into its left sibling.
+	 * @param left: the InternalNode that remains
+	 * @param separatorKey: the key in the parent between left and right
+	 * @param right: the InternalNode that is merged into left
 	 */
-	private void shiftDown(Node[] pointers, int amount) {
-		Node[] newPointers = new Node[this.m + 1];
-		for (int i = amount; i < pointers.length; i++) {
-			newPointers[i - amount] = pointers[i];
+    private void mergeInternalNodes(InternalNode left, long separatorKey, InternalNode right) {
+		left.keys[left.degree - 1] = separatorKey;
+		System.arraycopy(right.keys, 0, left.keys, left.degree, right.degree - 1);
+		for (int i = 0; i < right.degree; i++) {
+			left.childPointers[left.degree + i] = right.childPointers[i];
+			right.childPointers[i].parent = left;
 		}
-		pointers = newPointers;
-	}
-    
+		left.degree += right.degree;
+    }
+
     /**
      * Generate image of tree and write it to file.
      */
@@ -0,0 +1,164 @@
+package dev.terna.janelle.bplustree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a B+ tree bottom-up from entries added in key order, instead of inserting them one at a time.
+ * Leaves are filled left to right as entries are added and the internal levels are built on top of them in one pass
+ * when the tree is built, so there's no searching or splitting. The fill factor is the fraction of each node that's
+ * filled: 1 packs the nodes, which suits keys that only ever grow (like row IDs), while a lower fill factor leaves
+ * room for later inserts before nodes have to split.
+ */
+public class BulkLoader {
+    private final int m;
+    private final int leafCapacity;
+    private final int internalNodeCapacity;
+    private final List<LeafNode> leaves = new ArrayList<>();
+    private LeafNode currentLeaf;
+    private boolean isBuilt = false;
+
+    /**
+     * Constructor
+     * @param m: order of the B+ tree to build
+     * @param fillFactor: fraction of each node to fill, greater than 0 and at most 1
+     */
+    public BulkLoader(int m, double fillFactor) {
+        if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new IllegalArgumentException("Fill factor must be greater than 0 and at most 1.");
+        }
+        this.m = m;
+        // Same limits as LeafNode and InternalNode.
+        final var minNumPairs = (int) (Math.ceil(m / 2) - 1);
+        final var minDegree = (int) Math.ceil(m / 2.0);
+        leafCapacity = Math.max(Math.max(1, minNumPairs), Math.min(m - 1, (int) Math.round((m - 1) * fillFactor)));
+        internalNodeCapacity = Math.max(Math.max(2, minDegree), Math.min(m, (int) Math.round(m * fillFactor)));
+    }
+
+    /**
+     * Whether an entry with the given key can be added, i.e. it isn't less than the key of the last entry added.
+     */
+    public boolean canAdd(long key) {
+        return !isBuilt && (currentLeaf == null || currentLeaf.keys[currentLeaf.numPairs - 1] <= key);
+    }
+
+    public void add(long key, long value) {
+        if (isBuilt) {
+            throw new IllegalStateException("B+ tree has already been built.");
+        }
+        if (!canAdd(key)) {
+            throw new IllegalArgumentException("Entries must be added in key order.");
+        }
+
+        if (currentLeaf == null || currentLeaf.numPairs == leafCapacity) {
+            final var leaf = new LeafNode(m, null);
+            if (currentLeaf != null) {
+                currentLeaf.rightSibling = leaf;
+                leaf.leftSibling = currentLeaf;
+            }
+            leaves.add(leaf);
+            currentLeaf = leaf;
+        }
+        currentLeaf.keys[currentLeaf.numPairs] = key;
+        currentLeaf.values[currentLeaf.numPairs] = value;
+        currentLeaf.numPairs++;
+    }
+
+    /**
+     * Build the B+ tree from the entries added so far. The loader can't be used afterwards.
+     */
+    public BPlusTree build() {
+        if (isBuilt) {
+            throw new IllegalStateException("B+ tree has already been built.");
+        }
+        isBuilt = true;
+        if (leaves.isEmpty()) {
+            return new BPlusTree(m);
+        }
+        balanceLastLeaves();
+
+        // Build each level of internal nodes from the one below it until a single node is left, which is the root.
+        List<? extends Node> level = leaves;
+        List<Long> levelMinKeys = new ArrayList<>(leaves.size());
+        for (var leaf : leaves) {
+            levelMinKeys.add(leaf.keys[0]);
+        }
+        while (level.size() > 1) {
+            final var parents = new ArrayList<InternalNode>();
+            final var parentMinKeys = new ArrayList<Long>();
+            var childIndex = 0;
+            for (var groupSize : getGroupSizes(level.size())) {
+                final var parent = new InternalNode(m);
+                for (var i = 0; i < groupSize; i++, childIndex++) {
+                    final var child = level.get(childIndex);
+                    if (i > 0) {
+                        parent.keys[i - 1] = levelMinKeys.get(childIndex);
+                    }
+                    parent.appendChildPointer(child);
+                    child.parent = parent;
+                }
+                parents.add(parent);
+                parentMinKeys.add(levelMinKeys.get(childIndex - groupSize));
+            }
+            level = parents;
+            levelMinKeys = parentMinKeys;
+        }
+
+        final var root = level.get(0);
+        return new BPlusTree(m, root instanceof InternalNode ? (InternalNode) root : null, leaves.get(0));
+    }
+
+    /**
+     * The last leaf may have been left with fewer entries than a leaf must hold. Take entries from the leaf before it,
+     * or merge the two if they fit in one leaf.
+     */
+    private void balanceLastLeaves() {
+        if (leaves.size() < 2 || !currentLeaf.isDeficient()) {
+            return;
+        }
+
+        final var previousLeaf = currentLeaf.leftSibling;
+        final var numPairs = previousLeaf.numPairs + currentLeaf.numPairs;
+        if (numPairs <= previousLeaf.maxNumPairs) {
+            previousLeaf.appendPairs(currentLeaf, 0);
+            previousLeaf.rightSibling = null;
+            leaves.remove(leaves.size() - 1);
+            currentLeaf = previousLeaf;
+            return;
+        }
+        while (currentLeaf.numPairs < numPairs / 2) {
+            final var last = previousLeaf.numPairs - 1;
+            currentLeaf.insert(0, previousLeaf.keys[last], previousLeaf.values[last]);
+            previousLeaf.delete(last);
+        }
+    }
+
+    /**
+     * Split the given number of child nodes into groups that become the children of one internal node each. Every
+     * group is filled to capacity except the last two, which share what's left so neither has fewer children than an
+     * internal node must have.
+     */
+    private List<Integer> getGroupSizes(int numberOfChildren) {
+        final var minDegree = (int) Math.ceil(m / 2.0);
+        final var groupSizes = new ArrayList<Integer>();
+        var remaining = numberOfChildren;
+        while (remaining > 0) {
+            final var groupSize = Math.min(remaining, internalNodeCapacity);
+            groupSizes.add(groupSize);
+            remaining -= groupSize;
+        }
+
+        final var lastIndex = groupSizes.size() - 1;
+        if (lastIndex > 0 && groupSizes.get(lastIndex) < minDegree) {
+            final var lastTwo = groupSizes.get(lastIndex - 1) + groupSizes.get(lastIndex);
+            groupSizes.remove(lastIndex);
+            if (lastTwo <= m) {
+                groupSizes.set(lastIndex - 1, lastTwo);
+            } else {
+                groupSizes.set(lastIndex - 1, lastTwo - lastTwo / 2);
+                groupSizes.add(lastTwo / 2);
+            }
+        }
+        return groupSizes;
+    }
+}
@@ -0,0 +1,438 @@
+package dev.terna.janelle.bplustree;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * B+ tree that can be shared by many threads. Inserts and deletes take a single write lock, so writers run one at a
+ * time (Table only ever has one writing to its index anyway). Readers don't hold a lock while they run:
+ * Point searches and cursors read the tree optimistically, validating everything they read from a node against the
+ * lock's stamp before it's used, and only take the read lock if a writer changed the tree under them. A cursor copies
+ * the entries of one leaf at a time and holds no lock between calls, so a long scan doesn't keep writers waiting.
+ * It sees each leaf as it was when the cursor got to it, not the whole tree as it was when the scan started.
+ */
+public class ConcurrentBPlusTree extends BPlusTree {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final StampedLock lock = new StampedLock();
+
+    public ConcurrentBPlusTree(int m) {
+        super(m);
+    }
+
+    /**
+     * Take over the nodes of a tree that was built by a single thread (e.g. by {@link BulkLoader}).
+     */
+    public ConcurrentBPlusTree(BPlusTree tree) {
+        super(tree);
+    }
+
+    @Override
+    public void insert(long key, long value) {
+        final var stamp = lock.writeLock();
+        try {
+            super.insert(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void delete(long key) {
+        final var stamp = lock.writeLock();
+        try {
+            super.delete(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Long search(long key) {
+        final var optimisticStamp = lock.tryOptimisticRead();
+        if (optimisticStamp != 0) {
+            final var result = new Long[1];
+            if (searchOptimistically(key, optimisticStamp, result)) {
+                return result[0];
+            }
+        }
+
+        final var stamp = lock.readLock();
+        try {
+            return super.search(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Search without a lock, putting the value, or null if the key doesn't exist, in result. Every count, array and
+     * pointer read from a node is validated against the stamp before it's indexed with or followed, so what the search
+     * sees is always the tree as it was when the stamp was taken: it stays within the arrays' bounds and descends at
+     * most the height of that tree before reaching a leaf. Returns false as soon as a writer has changed the tree.
+     */
+    private boolean searchOptimistically(long key, long stamp, Long[] result) {
+        Node node = getRoot();
+        if (node == null) {
+            node = getFirstLeaf();
+        }
+        if (!lock.validate(stamp)) {
+            return false;
+        }
+        while (node instanceof InternalNode in) {
+            final var degree = in.degree;
+            final var keys = in.keys;
+            final var childPointers = in.childPointers;
+            if (!lock.validate(stamp)) {
+                return false;
+            }
+            final var child = childPointers[Utils.lowerBound(keys, degree - 1, key)];
+            if (!lock.validate(stamp)) {
+                return false;
+            }
+            node = child;
+        }
+
+        // Move right if the key would come after all of the leaf's entries.
+        var leaf = (LeafNode) node;
+        while (leaf != null) {
+            final var numPairs = leaf.numPairs;
+            final var keys = leaf.keys;
+            final var values = leaf.values;
+            final var rightSibling = leaf.rightSibling;
+            if (!lock.validate(stamp)) {
+                return false;
+            }
+            final var index = Utils.lowerBound(keys, numPairs, key);
+            if (index < numPairs) {
+                final var foundKey = keys[index];
+                final var value = values[index];
+                if (!lock.validate(stamp)) {
+                    return false;
+                }
+                result[0] = foundKey == key ? value : null;
+                return true;
+            }
+            leaf = rightSibling;
+        }
+        result[0] = null;
+        return lock.validate(stamp);
+    }
+
+    @Override
+    public ArrayList<Long> search(long lowerBound, long upperBound) {
+        final var values = new ArrayList<Long>();
+        try (var cursor = cursor()) {
+            for (var isValid = cursor.seek(lowerBound); isValid && cursor.getKey() <= upperBound; isValid = cursor.next()) {
+                values.add(cursor.getValue());
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public ArrayList<Long> searchReverse(long lowerBound, long upperBound) {
+        final var values = new ArrayList<Long>();
+        try (var cursor = cursor()) {
+            for (var isValid = cursor.seekForPrev(upperBound); isValid && cursor.getKey() >= lowerBound; isValid = cursor.prev()) {
+                values.add(cursor.getValue());
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void forEachEntry(EntryConsumer consumer) {
+        try (var cursor = cursor()) {
+            for (var isValid = cursor.seekToFirst(); isValid; isValid = cursor.next()) {
+                consumer.accept(cursor.getKey(), cursor.getValue());
+            }
+        }
+    }
+
+    /**
+     * Open a cursor that reads the tree a leaf at a time without holding a lock, see {@link LeafCursor}.
+     */
+    @Override
+    public Cursor cursor() {
+        return new LeafCursor();
+    }
+
+    @Override
+    public void visualize() {
+        final var stamp = lock.readLock();
+        try {
+            super.visualize();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Copy of the entries of one leaf, with the position of a cursor within them. firstRank is the number of entries
+     * with the same key as the first one that come before it, in the leaves to the left.
+     */
+    private record LeafCopy(long[] keys, long[] values, int index, long firstRank) {
+        private static final LeafCopy EMPTY = new LeafCopy(new long[0], new long[0], 0, 0);
+    }
+
+    /**
+     * Find an entry and copy the leaf it's in: the first entry whose key is greater than or equal to startKey (or
+     * greater than it, if isUpperBound is set), then up to skip entries further on as long as their key is startKey,
+     * then one entry back if isBack is set. The copy is EMPTY if that runs off either end of the tree.
+     * Runs optimistically first and under the read lock if a writer gets in the way, see
+     * {@link #locateOptimistically}.
+     */
+    private LeafCopy locate(long startKey, boolean isUpperBound, long skip, boolean isBack) {
+        final var optimisticStamp = lock.tryOptimisticRead();
+        if (optimisticStamp != 0) {
+            final var copy = locateOptimistically(startKey, isUpperBound, skip, isBack, optimisticStamp);
+            if (copy != null) {
+                return copy;
+            }
+        }
+
+        // A read stamp keeps validating for as long as it's held, so the same code runs under the lock.
+        final var stamp = lock.readLock();
+        try {
+            return locateOptimistically(startKey, isUpperBound, skip, isBack, stamp);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Locate an entry without a lock, validating what's read against the stamp like {@link #searchOptimistically}.
+     * Returns null as soon as a writer has changed the tree.
+     */
+    private LeafCopy locateOptimistically(long startKey, boolean isUpperBound, long skip, boolean isBack, long stamp) {
+        Node node = getRoot();
+        if (node == null) {
+            node = getFirstLeaf();
+        }
+        if (!lock.validate(stamp)) {
+            return null;
+        }
+        while (node instanceof InternalNode in) {
+            final var degree = in.degree;
+            final var keys = in.keys;
+            final var childPointers = in.childPointers;
+            if (!lock.validate(stamp)) {
+                return null;
+            }
+            final var child = childPointers[isUpperBound
+                    ? Utils.upperBound(keys, degree - 1, startKey)
+                    : Utils.lowerBound(keys, degree - 1, startKey)];
+            if (!lock.validate(stamp)) {
+                return null;
+            }
+            node = child;
+        }
+        if (node == null) {
+            return LeafCopy.EMPTY;
+        }
+
+        var leaf = (LeafNode) node;
+        var numPairs = leaf.numPairs;
+        var keys = leaf.keys;
+        if (!lock.validate(stamp)) {
+            return null;
+        }
+        var index = isUpperBound ? Utils.upperBound(keys, numPairs, startKey) : Utils.lowerBound(keys, numPairs, startKey);
+        // The index is past the last entry of the last leaf once the position runs off the end of the tree.
+        while (true) {
+            // Leaves may be empty when the order of the tree is small, so keep going until an entry is found.
+            while (index >= numPairs) {
+                final var rightSibling = leaf.rightSibling;
+                if (!lock.validate(stamp)) {
+                    return null;
+                }
+                if (rightSibling == null) {
+                    break;
+                }
+                leaf = rightSibling;
+                index = 0;
+                numPairs = leaf.numPairs;
+                keys = leaf.keys;
+                if (!lock.validate(stamp)) {
+                    return null;
+                }
+            }
+            if (skip == 0 || index >= numPairs) {
+                break;
+            }
+            final var key = keys[index];
+            if (!lock.validate(stamp)) {
+                return null;
+            }
+            if (key != startKey) {
+                break;
+            }
+            index++;
+            skip--;
+        }
+
+        if (isBack) {
+            index--;
+            while (index < 0) {
+                final var leftSibling = leaf.leftSibling;
+                if (!lock.validate(stamp)) {
+                    return null;
+                }
+                if (leftSibling == null) {
+                    return LeafCopy.EMPTY;
+                }
+                leaf = leftSibling;
+                numPairs = leaf.numPairs;
+                index = numPairs - 1;
+                if (!lock.validate(stamp)) {
+                    return null;
+                }
+            }
+        }
+        if (index >= numPairs) {
+            return LeafCopy.EMPTY;
+        }
+        return copyLeaf(leaf, index, stamp);
+    }
+
+    private LeafCopy copyLeaf(LeafNode leaf, int index, long stamp) {
+        final var numPairs = leaf.numPairs;
+        final var keys = leaf.keys;
+        final var values = leaf.values;
+        if (!lock.validate(stamp)) {
+            return null;
+        }
+        final var keysCopy = Arrays.copyOf(keys, numPairs);
+        final var valuesCopy = Arrays.copyOf(values, numPairs);
+        if (!lock.validate(stamp)) {
+            return null;
+        }
+
+        // Count the entries with the first key that come before it, so the cursor can find its way back to it.
+        var firstRank = 0L;
+        var isRunOfFirstKey = true;
+        for (var left = leaf.leftSibling; left != null && isRunOfFirstKey; left = left.leftSibling) {
+            final var leftNumPairs = left.numPairs;
+            final var leftKeys = left.keys;
+            if (!lock.validate(stamp)) {
+                return null;
+            }
+            var i = leftNumPairs - 1;
+            while (i >= 0 && leftKeys[i] == keysCopy[0]) {
+                i--;
+            }
+            firstRank += leftNumPairs - 1 - i;
+            isRunOfFirstKey = i < 0;
+            if (!lock.validate(stamp)) {
+                return null;
+            }
+        }
+        return new LeafCopy(keysCopy, valuesCopy, index, firstRank);
+    }
+
+    /**
+     * Cursor over a copy of the leaf it's on. Moving within the copy needs nothing from the tree. Moving off it finds
+     * the entry next to the one the cursor was on by its key and its rank among the entries with that key, since the
+     * leaves may have been split, merged or rebalanced in the meantime.
+     */
+    private class LeafCursor extends Cursor {
+        private LeafCopy copy = LeafCopy.EMPTY;
+        private int index;
+
+        private LeafCursor() {
+        }
+
+        private boolean moveTo(LeafCopy copy) {
+            this.copy = copy;
+            index = copy.index();
+            return isValid();
+        }
+
+        @Override
+        public boolean seek(long key) {
+            return moveTo(locate(key, false, 0, false));
+        }
+
+        @Override
+        public boolean seekForPrev(long key) {
+            return moveTo(locate(key, true, 0, true));
+        }
+
+        @Override
+        public boolean seekToFirst() {
+            return moveTo(locate(Long.MIN_VALUE, false, 0, false));
+        }
+
+        @Override
+        public boolean seekToLast() {
+            return moveTo(locate(Long.MAX_VALUE, true, 0, true));
+        }
+
+        @Override
+        public boolean next() {
+            if (!isValid()) {
+                return false;
+            }
+            if (index + 1 < copy.keys().length) {
+                index++;
+                return true;
+            }
+            return moveTo(locate(copy.keys()[index], false, getRank() + 1, false));
+        }
+
+        @Override
+        public boolean prev() {
+            if (!isValid()) {
+                return false;
+            }
+            if (index > 0) {
+                index--;
+                return true;
+            }
+            return moveTo(locate(copy.keys()[0], false, copy.firstRank(), true));
+        }
+
+        @Override
+        public boolean isValid() {
+            return index >= 0 && index < copy.keys().length;
+        }
+
+        @Override
+        public long getKey() {
+            checkValid();
+            return copy.keys()[index];
+        }
+
+        @Override
+        public long getValue() {
+            checkValid();
+            return copy.values()[index];
+        }
+
+        @Override
+        public void close() {
+            copy = LeafCopy.EMPTY;
+        }
+
+        /**
+         * Number of entries with the same key that come before the one the cursor is on.
+         */
+        private long getRank() {
+            final var keys = copy.keys();
+            var i = index;
+            while (i > 0 && keys[i - 1] == keys[index]) {
+                i--;
+            }
+            return index - i + (i == 0 ? copy.firstRank() : 0);
+        }
+
+        private void checkValid() {
+            if (!isValid()) {
+                throw new IllegalStateException("Cursor is not positioned on an entry.");
+            }
+        }
+    }
+}
@@ -1,30 +1,15 @@
 package dev.terna.janelle.bplustree;
 
+import java.io.Serial;
 import java.io.Serializable;
 
-public class Entry implements Comparable<Entry>, Serializable {
+/**
+ * Key-value pair that leaves used to hold before they kept their keys and values in parallel arrays. It's only kept
+ * so tables stored with Java serialization can still be read, see LeafNode#readObject.
+ */
+class Entry implements Serializable {
+    @Serial
     private static final long serialVersionUID = 1L;
     long key;
     long value;
-
-    public Entry(long key, long value) {
-        this.key = key;
-        this.value = value;
-    }
-
-    @Override
-    public int compareTo(Entry otherEntry) {
-        if (key == otherEntry.key) {
-            return 0;
-        } else if (key > otherEntry.key) {
-            return 1;
-        } else {
-            return -1;
-        }
-    }
-
-    @Override
-    public String toString() {
-        return key + " => " + value;
-    }
 }
@@ -1,14 +1,32 @@
 package dev.terna.janelle.bplustree;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamField;
+import java.io.Serial;
 import java.util.Arrays;
 
 public class InternalNode extends Node {
+    // Like leaves, internal nodes are only read with Java serialization from tables stored before the binary metadata
+    // format, so the serialized form is still the one those tables were written with, see readObject.
+    @Serial
+    private static final long serialVersionUID = -5335239046926878157L;
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("maxDegree", int.class),
+            new ObjectStreamField("minDegree", int.class),
+            new ObjectStreamField("degree", int.class),
+            new ObjectStreamField("leftSibling", InternalNode.class),
+            new ObjectStreamField("rightSibling", InternalNode.class),
+            new ObjectStreamField("keys", Long[].class),
+            new ObjectStreamField("childPointers", Node[].class),
+    };
     int maxDegree;
     int minDegree;
     int degree;
-    InternalNode leftSibling;
-    InternalNode rightSibling;
-    Long[] keys;
+    // The first degree - 1 keys are in use. Like childPointers, there's room for one more than the maximum so an
+    // overfull node can be split.
+    long[] keys;
     Node[] childPointers;
 
     /**
@@ -31,7 +49,7 @@ public class InternalNode extends Node {
      * @return the index of 'pointer' within childPointers, or -1 if 'pointer' can't be found
      */
     public int findIndexOfPointer(Node pointer) {
-        for (int i = 0; i < childPointers.length; i++) {
+        for (int i = 0; i < degree; i++) {
             if (childPointers[i] == pointer) {
                 return i;
             }
@@ -40,21 +58,60 @@ public class InternalNode extends Node {
     }
 
     /**
-     * Given a pointer to a Node object and an integer index, this method
-     * inserts the pointer at the specified index within the childPointers
-     * instance variable. As a result of the insert, some pointers may be
-     * shifted to the right of the index.
+     * Given a key and a pointer to a Node object, this method inserts the key
+     * at the specified index within keys and the pointer right after it
+     * within childPointers. As a result of the insert, some keys and pointers
+     * may be shifted to the right.
+     * @param index: the index at which the key is to be inserted
+     * @param key: the key separating the pointer from the one before it
      * @param pointer: the Node pointer to be inserted
-     * @param index: the index at which the insert is to take place
      */
-    public void insertChildPointer(Node pointer, int index) {
-        for (int i = degree - 1; i >= index; i--) {
-            childPointers[i + 1] = childPointers[i];
-        }
-        this.childPointers[index] = pointer;
+    public void insertChildPointer(int index, long key, Node pointer) {
+        System.arraycopy(keys, index, keys, index + 1, degree - 1 - index);
+        System.arraycopy(childPointers, index + 1, childPointers, index + 2, degree - 1 - index);
+        this.keys[index] = key;
+        this.childPointers[index + 1] = pointer;
+        this.degree++;
+    }
+
+    /**
+     * Given a key and a pointer to a Node object, this method inserts them at
+     * the beginning of keys and childPointers respectively.
+     * @param key: the key separating the pointer from the one after it
+     * @param pointer: the Node object to be prepended within childPointers
+     */
+    public void prependChildPointer(long key, Node pointer) {
+        System.arraycopy(keys, 0, keys, 1, degree - 1);
+        System.arraycopy(childPointers, 0, childPointers, 1, degree);
+        this.keys[0] = key;
+        this.childPointers[0] = pointer;
         this.degree++;
     }
 
+    /**
+     * This method removes keys[index] and the pointer right after it, shifting
+     * the keys and pointers after them to the left. This method is used within
+     * the parent of a merging, deficient node.
+     * @param index: the location within keys to be removed
+     */
+    public void removeChildPointer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, degree - 2 - index);
+        System.arraycopy(childPointers, index + 2, childPointers, index + 1, degree - 2 - index);
+        this.childPointers[degree - 1] = null;
+        this.degree--;
+    }
+
+    /**
+     * This method removes the first key and pointer, shifting the keys and
+     * pointers after them to the left.
+     */
+    public void removeFirstChildPointer() {
+        System.arraycopy(keys, 1, keys, 0, degree - 2);
+        System.arraycopy(childPointers, 1, childPointers, 0, degree - 1);
+        this.childPointers[degree - 1] = null;
+        this.degree--;
+    }
+
     /**
      * This simple method determines if the InternalNode is deficient or not.
      * An InternalNode is deficient when its current degree of children falls
@@ -98,82 +155,39 @@ public class InternalNode extends Node {
         return this.degree == maxDegree + 1;
     }
 
-    /**
-     * Given a pointer to a Node object, this method inserts the pointer to
-     * the beginning of the childPointers instance variable.
-     * @param pointer: the Node object to be prepended within childPointers
-     */
-    public void prependChildPointer(Node pointer) {
-        for (int i = degree - 1; i >= 0 ;i--) {
-            childPointers[i + 1] = childPointers[i];
-        }
-        this.childPointers[0] = pointer;
-        this.degree++;
-    }
-
-    /**
-     * This method sets keys[index] to null. This method is used within the
-     * parent of a merging, deficient LeafNode.
-     * @param index: the location within keys to be set to null
-     */
-    public void removeKey(int index) {
-        this.keys[index] = null;
-    }
-
-    /**
-     * This method sets childPointers[index] to null and additionally
-     * decrements the current degree of the InternalNode.
-     * @param index: the location within childPointers to be set to null
-     */
-    public void removePointer(int index) {
-        this.childPointers[index] = null;
-        this.degree--;
-    }
-
-    /**
-     * This method removes 'pointer' from the childPointers instance
-     * variable and decrements the current degree of the InternalNode. The
-     * index where the pointer node was assigned is set to null.
-     * @param pointer: the Node pointer to be removed from childPointers
-     */
-    public void removePointer(Node pointer) {
-        for (int i = 0; i < childPointers.length; i++) {
-            if (childPointers[i] == pointer) { this.childPointers[i] = null; }
-        }
-        this.degree--;
-    }
-
     /**
      * Constructor
      * @param m: the max degree of the InternalNode
-     * @param keys: the list of keys that InternalNode is initialized with
      */
-    public InternalNode(int m, Long[] keys) {
+    public InternalNode(int m) {
         super();
         this.maxDegree = m;
         this.minDegree = (int)Math.ceil(m / 2.0);
         this.degree = 0;
-        this.keys = keys;
+        this.keys = new long[this.maxDegree];
         this.childPointers = new Node[this.maxDegree + 1];
     }
 
     /**
-     * Constructor
-     * @param m: the max degree of the InternalNode
-     * @param keys: the list of keys that InternalNode is initialized with
-     * @param pointers: the list of pointers that InternalNode is initialized with
+     * This method reads an InternalNode stored when its keys were boxed, with null for the unused slots. Internal
+     * nodes don't link to their siblings anymore, so those are dropped.
      */
-    public InternalNode(int m, Long[] keys, Node[] pointers) {
-        super();
-        this.maxDegree = m;
-        this.minDegree = (int)Math.ceil(m / 2.0);
-        this.degree = Utils.linearNullSearch(pointers);
-        this.keys = keys;
-        this.childPointers = pointers;
+    @Serial
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        final var fields = input.readFields();
+        maxDegree = fields.get("maxDegree", 0);
+        minDegree = fields.get("minDegree", 0);
+        degree = fields.get("degree", 0);
+        final var storedKeys = (Long[]) fields.get("keys", null);
+        keys = new long[storedKeys.length];
+        for (var i = 0; i < storedKeys.length; i++) {
+            keys[i] = storedKeys[i] == null ? 0 : storedKeys[i];
+        }
+        childPointers = (Node[]) fields.get("childPointers", null);
     }
 
     @Override
     public String toString() {
-        return Arrays.toString(keys);
+        return Arrays.toString(Arrays.copyOf(keys, Math.max(0, degree - 1)));
     }
 }
@@ -1,45 +1,79 @@
 package dev.terna.janelle.bplustree;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamField;
+import java.io.Serial;
 
 public class LeafNode extends Node {
+    // Leaves are only read with Java serialization from tables stored before the binary metadata format, so the
+    // serialized form is still the one those tables were written with, see readObject.
+    @Serial
+    private static final long serialVersionUID = -857012958508647695L;
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("maxNumPairs", int.class),
+            new ObjectStreamField("minNumPairs", int.class),
+            new ObjectStreamField("numPairs", int.class),
+            new ObjectStreamField("leftSibling", LeafNode.class),
+            new ObjectStreamField("rightSibling", LeafNode.class),
+            new ObjectStreamField("entries", Entry[].class),
+    };
     int maxNumPairs;
     int minNumPairs;
     int numPairs;
     LeafNode leftSibling;
     LeafNode rightSibling;
-    Entry[] entries;
+    // Parallel arrays sorted by key, with room for one pair more than the maximum so a full node can take the pair
+    // that makes it split.
+    long[] keys;
+    long[] values;
 
     /**
-     * Given an index, this method sets the entry at that index within entries to null.
-     * @param index: the location within entry to be set to null
+     * Given an index, this method removes the pair at that index, shifting the pairs after it to the left.
+     * @param index: the location of the pair to be removed
      */
     public void delete(int index) {
-        // Delete entry from leaf
-        this.entries[index] = null;
-        // Decrement numPairs
+        System.arraycopy(keys, index + 1, keys, index, numPairs - index - 1);
+        System.arraycopy(values, index + 1, values, index, numPairs - index - 1);
         numPairs--;
     }
 
     /**
-     * This method attempts to insert an entry within entries
-     * of the LeafNode object. If it succeeds, numPairs increments,
-     * entries is sorted, and the boolean true is returned. If the method
-     * fails, the boolean false is returned.
-     * @param entry: the entry to be inserted
-     * @return a boolean indicating whether or not the insert was successful
+     * This method inserts a pair after any pairs with the same key, keeping the keys sorted. The
+     * node may become overfull, in which case it has to be split.
+     * @param key: the key of the pair to be inserted
+     * @param value: the value of the pair to be inserted
      */
-    public boolean insert(Entry entry) {
-        if (this.isFull()) {
-            // Flow of execution goes here when numPairs == maxNumPairs
-            return false;
-        } else {
-            // Insert entry, increment numPairs, sort entries
-            this.entries[numPairs] = entry;
-            numPairs++;
-            Arrays.sort(this.entries, 0, numPairs);
-            return true;
-        }
+    public void insert(long key, long value) {
+        insert(Utils.upperBound(keys, numPairs, key), key, value);
+    }
+
+    /**
+     * This method inserts a pair at the given index, shifting the pairs from that index onwards to the right.
+     * @param index: the location at which the pair is to be inserted
+     * @param key: the key of the pair to be inserted
+     * @param value: the value of the pair to be inserted
+     */
+    public void insert(int index, long key, long value) {
+        System.arraycopy(keys, index, keys, index + 1, numPairs - index);
+        System.arraycopy(values, index, values, index + 1, numPairs - index);
+        keys[index] = key;
+        values[index] = value;
+        numPairs++;
+    }
+
+    /**
+     * This method moves the pairs of another LeafNode to the end of this one.
+     * @param ln: the LeafNode whose pairs are to be moved
+     * @param index: the location of the first pair to be moved
+     */
+    public void appendPairs(LeafNode ln, int index) {
+        final var length = ln.numPairs - index;
+        System.arraycopy(ln.keys, index, keys, numPairs, length);
+        System.arraycopy(ln.values, index, values, numPairs, length);
+        numPairs += length;
+        ln.numPairs = index;
     }
 
     /**
@@ -60,6 +94,15 @@ public class LeafNode extends Node {
         return numPairs == maxNumPairs;
     }
 
+    /**
+     * This simple method determines if the LeafNode is overfull, i.e. it
+     * holds one more pair than the maximum number of pairs and has to be split.
+     * @return a boolean indicating whether or not the LeafNode is overfull
+     */
+    public boolean isOverfull() {
+        return numPairs > maxNumPairs;
+    }
+
     /**
      * This simple method determines if the LeafNode object is capable of
      * lending an entry to a deficient leaf node. The LeafNode
@@ -86,34 +129,62 @@ public class LeafNode extends Node {
     /**
      * Constructor
      * @param m: order of B+ tree that is used to calculate maxNumPairs and minNumPairs
-     * @param entry: first entry inserted into new node
+     * @param parent: parent of newly created LeafNode
      */
-    public LeafNode(int m, Entry entry) {
+    public LeafNode(int m, InternalNode parent) {
         super();
         this.maxNumPairs = m - 1;
         this.minNumPairs = (int) (Math.ceil(m / 2) - 1);
-        this.entries = new Entry[m];
+        this.keys = new long[m];
+        this.values = new long[m];
         this.numPairs = 0;
-        this.insert(entry);
+        this.parent = parent;
     }
 
     /**
      * Constructor
-     * @param entries: list of Entry objects to be immediately inserted into new LeafNode object
      * @param m: order of B+ tree that is used to calculate maxNumPairs and minNumPairs
-     * @param parent: parent of newly created child LeafNode
+     * @param key: key of the first pair inserted into new node
+     * @param value: value of the first pair inserted into new node
      */
-    public LeafNode(int m, Entry[] entries, InternalNode parent) {
-        super();
-        this.maxNumPairs = m - 1;
-        this.minNumPairs = (int) (Math.ceil(m / 2) - 1);
-        this.entries = entries;
-        this.numPairs = Utils.linearNullSearch(entries);
-        this.parent = parent;
+    public LeafNode(int m, long key, long value) {
+        this(m, null);
+        this.insert(0, key, value);
+    }
+
+    /**
+     * This method reads a LeafNode stored when its pairs were kept as an array of entries, sorted by key with the
+     * unused slots at the end, and moves the pairs into the parallel arrays.
+     */
+    @Serial
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        final var fields = input.readFields();
+        maxNumPairs = fields.get("maxNumPairs", 0);
+        minNumPairs = fields.get("minNumPairs", 0);
+        leftSibling = (LeafNode) fields.get("leftSibling", null);
+        rightSibling = (LeafNode) fields.get("rightSibling", null);
+        final var entries = (Entry[]) fields.get("entries", null);
+        keys = new long[entries.length];
+        values = new long[entries.length];
+        numPairs = 0;
+        for (var entry : entries) {
+            if (entry != null) {
+                keys[numPairs] = entry.key;
+                values[numPairs] = entry.value;
+                numPairs++;
+            }
+        }
     }
 
     @Override
     public String toString() {
-        return Arrays.toString(entries);
+        final var builder = new StringBuilder("[");
+        for (int i = 0; i < numPairs; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(keys[i]).append(" => ").append(values[i]);
+        }
+        return builder.append("]").toString();
     }
 }
@@ -0,0 +1,858 @@
+package dev.terna.janelle.bplustree;
+
+import dev.terna.janelle.database.storage.BufferPool;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * B+ tree whose nodes live in fixed-size pages of an index file instead of on the heap, so it can grow larger than
+ * memory. Pages are only read when a search passes through them, through a buffer pool that caches the hot ones
+ * (usually the root and the upper levels).
+ * A table's row index stays an in-memory {@link BPlusTree} restored from its metadata changes; this tree is for indexes
+ * that are too large for that, or that shouldn't be rebuilt every time their table is loaded. Its file is a
+ * {@link dev.terna.janelle.database.storage.PageFile} with no table metadata.
+ * Keys and values are byte strings of a fixed size set when the tree is created. Keys are ordered by their unsigned
+ * bytes, so a key made of order-preserving encodings of several values orders like the values do, one after the other.
+ * Trees created with only an order have long keys and values, see {@link #insert(long, long)}.
+ * Page 0 holds the tree header; every other page is a leaf node, an internal node or a free page waiting to be reused.
+ * Splits, borrows and merges follow {@link BPlusTree}. Nodes don't keep parent pointers, which would have to be
+ * rewritten for every child of a split node; the path from the root is remembered during each descent instead.
+ * Header layout: Magic (4 bytes) + Order (4 bytes) + Root page (8 bytes) + First leaf page (8 bytes) +
+ * Number of pages (8 bytes) + First free page (8 bytes) + Key size (4 bytes) + Value size (4 bytes) + Version (8 bytes)
+ * Node layout: Type (1 byte) + Number of keys (4 bytes) + Left sibling (8 bytes) + Right sibling (8 bytes) +
+ * Keys (m * key size) + Values or child pages (m * value size for leaves, (m + 1) * 8 bytes for internal nodes)
+ */
+public class PagedBPlusTree {
+    /**
+     * Entry found by a {@link #scan}. Its key and value are the bytes of the page at the given offsets, which are only
+     * valid until the visitor returns.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(byte[] page, int keyOffset, int valueOffset);
+    }
+
+    public static final long NO_VERSION = -1;
+    private static final int MAGIC = 0x4A4E4958;
+    private static final long NO_PAGE = 0; // Page 0 is the header, so it's never a node.
+    private static final byte LEAF_NODE = 1;
+    private static final byte INTERNAL_NODE = 2;
+    private static final byte FREE_PAGE = 3;
+    private static final int ORDER_POSITION = 4;
+    private static final int ROOT_POSITION = 8;
+    private static final int FIRST_LEAF_POSITION = 16;
+    private static final int NUMBER_OF_PAGES_POSITION = 24;
+    private static final int FIRST_FREE_PAGE_POSITION = 32;
+    private static final int KEY_SIZE_POSITION = 40;
+    private static final int VALUE_SIZE_POSITION = 44;
+    private static final int VERSION_POSITION = 48;
+    private static final int TYPE_POSITION = 0;
+    private static final int COUNT_POSITION = 1;
+    private static final int LEFT_SIBLING_POSITION = 5;
+    private static final int RIGHT_SIBLING_POSITION = 13;
+    private static final int NEXT_FREE_PAGE_POSITION = 5;
+    private static final int KEYS_POSITION = 21;
+    private final BufferPool bufferPool;
+    private final int pageSizeInBytes;
+    private final int m;
+    private final int keySize;
+    private final int valueSize;
+    private long root = NO_PAGE;
+    private long firstLeaf = NO_PAGE;
+    private long numberOfPages = 1;
+    private long firstFreePage = NO_PAGE;
+    private long version = NO_VERSION;
+
+    /**
+     * Largest order whose nodes fit in a page of the given size, leaving room for the extra entry a node holds just
+     * before it's split.
+     */
+    public static int getMaxOrder(int pageSizeInBytes) {
+        return getMaxOrder(pageSizeInBytes, Long.BYTES, Long.BYTES);
+    }
+
+    public static int getMaxOrder(int pageSizeInBytes, int keySize, int valueSize) {
+        final var leafOrder = (pageSizeInBytes - KEYS_POSITION) / (keySize + valueSize);
+        final var internalOrder = (pageSizeInBytes - KEYS_POSITION - Long.BYTES) / (keySize + Long.BYTES);
+        return Math.min(leafOrder, internalOrder);
+    }
+
+    /**
+     * Open the index of long keys and values stored in the buffer pool's file, or create it if the file is empty.
+     * @param m: order of a new tree; an existing tree keeps the order it was created with
+     */
+    public PagedBPlusTree(int m, BufferPool bufferPool) {
+        this(m, Long.BYTES, Long.BYTES, bufferPool);
+    }
+
+    /**
+     * Open the index stored in the buffer pool's file, or create it if the file is empty.
+     * @param m: order of a new tree; an existing tree keeps the order it was created with
+     * @param keySize: size of every key in bytes, which must match an existing tree's
+     * @param valueSize: size of every value in bytes, which must match an existing tree's
+     */
+    public PagedBPlusTree(int m, int keySize, int valueSize, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.pageSizeInBytes = bufferPool.getPageSize();
+        this.keySize = keySize;
+        this.valueSize = valueSize;
+
+        if (bufferPool.getEOFPointerForData() == 0) {
+            if (m < 3 || m > getMaxOrder(pageSizeInBytes, keySize, valueSize)) {
+                throw new IllegalArgumentException("Order " + m + " doesn't fit in a " + pageSizeInBytes + " byte page.");
+            }
+            this.m = m;
+            bufferPool.writeData(0, new byte[pageSizeInBytes]);
+            writeHeader();
+        } else {
+            final var header = bufferPool.pin(0);
+            try {
+                final var data = ByteBuffer.wrap(header.getData());
+                if (data.getInt(0) != MAGIC) {
+                    throw new IllegalStateException("Not a B+ tree index file.");
+                }
+                if (data.getInt(KEY_SIZE_POSITION) != keySize || data.getInt(VALUE_SIZE_POSITION) != valueSize) {
+                    throw new IllegalStateException(String.format("Index file has %d byte keys and %d byte values, not %d and %d.",
+                            data.getInt(KEY_SIZE_POSITION), data.getInt(VALUE_SIZE_POSITION), keySize, valueSize));
+                }
+                this.m = data.getInt(ORDER_POSITION);
+                root = data.getLong(ROOT_POSITION);
+                firstLeaf = data.getLong(FIRST_LEAF_POSITION);
+                numberOfPages = data.getLong(NUMBER_OF_PAGES_POSITION);
+                firstFreePage = data.getLong(FIRST_FREE_PAGE_POSITION);
+                version = data.getLong(VERSION_POSITION);
+            } finally {
+                bufferPool.unpin(header, false);
+            }
+        }
+    }
+
+    /**
+     * A node page pinned in the buffer pool. Must be released once it's no longer used.
+     */
+    private class Node {
+        private final long pageNumber;
+        private final BufferPool.Page page;
+        private final ByteBuffer data;
+        private boolean isDirty = false;
+
+        private Node(long pageNumber) {
+            this.pageNumber = pageNumber;
+            this.page = bufferPool.pin(pageNumber);
+            this.data = ByteBuffer.wrap(page.getData());
+        }
+
+        private void release() {
+            bufferPool.unpin(page, isDirty);
+        }
+
+        private boolean isLeaf() {
+            return data.get(TYPE_POSITION) == LEAF_NODE;
+        }
+
+        /**
+         * Number of entries in a leaf node, or number of keys in an internal node.
+         */
+        private int getCount() {
+            return data.getInt(COUNT_POSITION);
+        }
+
+        private void setCount(int count) {
+            data.putInt(COUNT_POSITION, count);
+            isDirty = true;
+        }
+
+        private int getKeyPosition(int index) {
+            return KEYS_POSITION + index * keySize;
+        }
+
+        /**
+         * Position of the value of an entry in a leaf node, or of a child page of an internal node.
+         */
+        private int getValuePosition(int index) {
+            return KEYS_POSITION + m * keySize + index * getValueSize();
+        }
+
+        private int getValueSize() {
+            return isLeaf() ? valueSize : Long.BYTES;
+        }
+
+        private byte[] getKey(int index) {
+            final var position = getKeyPosition(index);
+            return Arrays.copyOfRange(page.getData(), position, position + keySize);
+        }
+
+        private void setKey(int index, byte[] key) {
+            System.arraycopy(key, 0, page.getData(), getKeyPosition(index), keySize);
+            isDirty = true;
+        }
+
+        /**
+         * Compare the key at the given index with another key, like {@link Arrays#compareUnsigned}.
+         */
+        private int compareKey(int index, byte[] key) {
+            final var position = getKeyPosition(index);
+            return Arrays.compareUnsigned(page.getData(), position, position + keySize, key, 0, keySize);
+        }
+
+        private byte[] getValue(int index) {
+            final var position = getValuePosition(index);
+            return Arrays.copyOfRange(page.getData(), position, position + valueSize);
+        }
+
+        private void setValue(int index, byte[] value) {
+            System.arraycopy(value, 0, page.getData(), getValuePosition(index), valueSize);
+            isDirty = true;
+        }
+
+        private long getChild(int index) {
+            return data.getLong(getValuePosition(index));
+        }
+
+        private void setChild(int index, long childPage) {
+            data.putLong(getValuePosition(index), childPage);
+            isDirty = true;
+        }
+
+        private long getLeftSibling() {
+            return data.getLong(LEFT_SIBLING_POSITION);
+        }
+
+        private void setLeftSibling(long pageNumber) {
+            data.putLong(LEFT_SIBLING_POSITION, pageNumber);
+            isDirty = true;
+        }
+
+        private long getRightSibling() {
+            return data.getLong(RIGHT_SIBLING_POSITION);
+        }
+
+        private void setRightSibling(long pageNumber) {
+            data.putLong(RIGHT_SIBLING_POSITION, pageNumber);
+            isDirty = true;
+        }
+
+        /**
+         * Move the keys from index onwards (and the values from valueIndex onwards) by the given number of slots.
+         */
+        private void shift(int index, int valueIndex, int numberOfValues, int by) {
+            final var bytes = page.getData();
+            final var keysPosition = getKeyPosition(index);
+            final var numberOfKeys = getCount() - index;
+            if (numberOfKeys > 0) {
+                System.arraycopy(bytes, keysPosition, bytes, keysPosition + by * keySize, numberOfKeys * keySize);
+            }
+            final var valuesPosition = getValuePosition(valueIndex);
+            final var size = getValueSize();
+            if (numberOfValues - valueIndex > 0) {
+                System.arraycopy(bytes, valuesPosition, bytes, valuesPosition + by * size, (numberOfValues - valueIndex) * size);
+            }
+            isDirty = true;
+        }
+
+        private void insertEntry(int index, byte[] key, byte[] value) {
+            shift(index, index, getCount(), 1);
+            setKey(index, key);
+            setValue(index, value);
+            setCount(getCount() + 1);
+        }
+
+        private void removeEntry(int index) {
+            shift(index + 1, index + 1, getCount(), -1);
+            setCount(getCount() - 1);
+        }
+
+        /**
+         * Insert a key into an internal node along with the child page to its right.
+         */
+        private void insertChild(int keyIndex, byte[] key, long childPage) {
+            shift(keyIndex, keyIndex + 1, getCount() + 1, 1);
+            setKey(keyIndex, key);
+            setChild(keyIndex + 1, childPage);
+            setCount(getCount() + 1);
+        }
+
+        /**
+         * Remove a key from an internal node along with the child page to its right.
+         */
+        private void removeChild(int keyIndex) {
+            shift(keyIndex + 1, keyIndex + 2, getCount() + 1, -1);
+            setCount(getCount() - 1);
+        }
+
+        /**
+         * Copy entries from another leaf node to the end of this one.
+         */
+        private void appendEntries(Node source, int index, int numberOfEntries) {
+            final var count = getCount();
+            System.arraycopy(source.page.getData(), source.getKeyPosition(index),
+                    page.getData(), getKeyPosition(count), numberOfEntries * keySize);
+            System.arraycopy(source.page.getData(), source.getValuePosition(index),
+                    page.getData(), getValuePosition(count), numberOfEntries * valueSize);
+            setCount(count + numberOfEntries);
+        }
+    }
+
+    /**
+     * Step of a descent from the root: an internal node and the index of the child that was followed.
+     */
+    private static class PathStep {
+        private final long pageNumber;
+        private int childIndex;
+
+        private PathStep(long pageNumber, int childIndex) {
+            this.pageNumber = pageNumber;
+            this.childIndex = childIndex;
+        }
+    }
+
+    private void writeHeader() {
+        final var header = bufferPool.pin(0);
+        final var data = ByteBuffer.wrap(header.getData());
+        data.putInt(0, MAGIC);
+        data.putInt(ORDER_POSITION, m);
+        data.putLong(ROOT_POSITION, root);
+        data.putLong(FIRST_LEAF_POSITION, firstLeaf);
+        data.putLong(NUMBER_OF_PAGES_POSITION, numberOfPages);
+        data.putLong(FIRST_FREE_PAGE_POSITION, firstFreePage);
+        data.putInt(KEY_SIZE_POSITION, keySize);
+        data.putInt(VALUE_SIZE_POSITION, valueSize);
+        data.putLong(VERSION_POSITION, version);
+        bufferPool.unpin(header, true);
+    }
+
+    /**
+     * Clear the version before the first change after a flush, and make that durable before any changed page can be
+     * written to the index file, so a file that was only partly written is never taken for a flushed one.
+     */
+    private void markModified() {
+        if (version != NO_VERSION) {
+            version = NO_VERSION;
+            writeHeader();
+            bufferPool.flush();
+        }
+    }
+
+    private Node allocateNode(byte type) {
+        final Node node;
+        if (firstFreePage != NO_PAGE) {
+            node = new Node(firstFreePage);
+            firstFreePage = node.data.getLong(NEXT_FREE_PAGE_POSITION);
+        } else {
+            // Extend the file through the pool so the new page is written back when it's evicted.
+            bufferPool.writeData(numberOfPages * pageSizeInBytes, new byte[pageSizeInBytes]);
+            node = new Node(numberOfPages++);
+        }
+        node.data.put(TYPE_POSITION, type);
+        node.setCount(0);
+        node.setLeftSibling(NO_PAGE);
+        node.setRightSibling(NO_PAGE);
+        return node;
+    }
+
+    private void freeNode(Node node) {
+        node.data.put(TYPE_POSITION, FREE_PAGE);
+        node.data.putLong(NEXT_FREE_PAGE_POSITION, firstFreePage);
+        node.isDirty = true;
+        firstFreePage = node.pageNumber;
+    }
+
+    private int getMidpoint() {
+        return (int) Math.ceil((m + 1) / 2.0) - 1;
+    }
+
+    private int getMinNumPairs() {
+        return m / 2;
+    }
+
+    private int getMinDegree() {
+        return (int) Math.ceil(m / 2.0);
+    }
+
+    /**
+     * Index of the first key in the node that's greater than the given key (or greater than or equal to it if
+     * inclusive is set).
+     */
+    private static int findKeyIndex(Node node, byte[] key, boolean inclusive) {
+        var low = 0;
+        var high = node.getCount();
+        while (low < high) {
+            final var mid = (low + high) >>> 1;
+            final var comparison = node.compareKey(mid, key);
+            if (comparison < 0 || (!inclusive && comparison == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Descend from the root to the leaf where the given key belongs, recording the path taken.
+     * @param isLowerBound: go to the leftmost leaf that may hold the key instead of the rightmost one
+     * @return the leaf page
+     */
+    private long findLeafNode(byte[] key, boolean isLowerBound, ArrayList<PathStep> path) {
+        var pageNumber = root;
+        while (true) {
+            final var node = new Node(pageNumber);
+            try {
+                if (node.isLeaf()) {
+                    return pageNumber;
+                }
+                final var childIndex = findKeyIndex(node, key, isLowerBound);
+                path.add(new PathStep(pageNumber, childIndex));
+                pageNumber = node.getChild(childIndex);
+            } finally {
+                node.release();
+            }
+        }
+    }
+
+    /**
+     * Move the path to the next leaf on the right.
+     * @return the leaf page, or NO_PAGE if the path was at the last leaf
+     */
+    private long findNextLeafNode(ArrayList<PathStep> path) {
+        var level = path.size() - 1;
+        while (level >= 0) {
+            final var step = path.get(level);
+            final var node = new Node(step.pageNumber);
+            final var numberOfKeys = node.getCount();
+            node.release();
+            if (step.childIndex < numberOfKeys) {
+                break;
+            }
+            level--;
+        }
+        if (level < 0) {
+            return NO_PAGE;
+        }
+
+        path.subList(level + 1, path.size()).clear();
+        final var step = path.get(level);
+        step.childIndex++;
+        var node = new Node(step.pageNumber);
+        var pageNumber = node.getChild(step.childIndex);
+        node.release();
+        while (true) {
+            node = new Node(pageNumber);
+            try {
+                if (node.isLeaf()) {
+                    return pageNumber;
+                }
+                path.add(new PathStep(pageNumber, 0));
+                pageNumber = node.getChild(0);
+            } finally {
+                node.release();
+            }
+        }
+    }
+
+    public synchronized void insert(long key, long value) {
+        insert(toKey(key), toValue(value));
+    }
+
+    public synchronized void insert(byte[] key, byte[] value) {
+        if (key.length != keySize || value.length != valueSize) {
+            throw new IllegalArgumentException(String.format("Entries must have %d byte keys and %d byte values.", keySize, valueSize));
+        }
+        markModified();
+        if (root == NO_PAGE) {
+            final var leaf = allocateNode(LEAF_NODE);
+            leaf.insertEntry(0, key, value);
+            root = firstLeaf = leaf.pageNumber;
+            leaf.release();
+            writeHeader();
+            return;
+        }
+
+        final var path = new ArrayList<PathStep>();
+        final var leaf = new Node(findLeafNode(key, false, path));
+        try {
+            leaf.insertEntry(findKeyIndex(leaf, key, false), key, value);
+            if (leaf.getCount() <= m - 1) {
+                return;
+            }
+
+            // Split the leaf in two, the new leaf on the right takes the upper half of the entries.
+            final var midpoint = getMidpoint();
+            final var sibling = allocateNode(LEAF_NODE);
+            try {
+                sibling.appendEntries(leaf, midpoint, leaf.getCount() - midpoint);
+                leaf.setCount(midpoint);
+
+                sibling.setRightSibling(leaf.getRightSibling());
+                if (sibling.getRightSibling() != NO_PAGE) {
+                    final var rightSibling = new Node(sibling.getRightSibling());
+                    rightSibling.setLeftSibling(sibling.pageNumber);
+                    rightSibling.release();
+                }
+                leaf.setRightSibling(sibling.pageNumber);
+                sibling.setLeftSibling(leaf.pageNumber);
+
+                insertIntoParent(path, leaf.pageNumber, sibling.getKey(0), sibling.pageNumber);
+            } finally {
+                sibling.release();
+            }
+        } finally {
+            leaf.release();
+            writeHeader();
+        }
+    }
+
+    /**
+     * Add the key and right-hand page of a split to the parent at the end of the path, splitting the parent too (and
+     * so on up the tree) if it overflows.
+     */
+    private void insertIntoParent(ArrayList<PathStep> path, long leftPage, byte[] key, long rightPage) {
+        if (path.isEmpty()) {
+            final var newRoot = allocateNode(INTERNAL_NODE);
+            newRoot.setChild(0, leftPage);
+            newRoot.insertChild(0, key, rightPage);
+            root = newRoot.pageNumber;
+            newRoot.release();
+            return;
+        }
+
+        final var step = path.remove(path.size() - 1);
+        final var parent = new Node(step.pageNumber);
+        try {
+            parent.insertChild(step.childIndex, key, rightPage);
+            if (parent.getCount() + 1 <= m) {
+                return;
+            }
+
+            // The midpoint key moves up, the keys and children after it go to the new sibling.
+            final var midpoint = getMidpoint();
+            final var newParentKey = parent.getKey(midpoint);
+            final var sibling = allocateNode(INTERNAL_NODE);
+            try {
+                final var numberOfKeys = parent.getCount();
+                for (var i = midpoint + 1; i < numberOfKeys; i++) {
+                    sibling.setKey(i - midpoint - 1, parent.getKey(i));
+                }
+                for (var i = midpoint + 1; i <= numberOfKeys; i++) {
+                    sibling.setChild(i - midpoint - 1, parent.getChild(i));
+                }
+                sibling.setCount(numberOfKeys - midpoint - 1);
+                parent.setCount(midpoint);
+                insertIntoParent(path, parent.pageNumber, newParentKey, sibling.pageNumber);
+            } finally {
+                sibling.release();
+            }
+        } finally {
+            parent.release();
+        }
+    }
+
+    public synchronized Long search(long key) {
+        final var value = search(toKey(key));
+        return value == null ? null : ByteBuffer.wrap(value).getLong();
+    }
+
+    /**
+     * Value of an entry with the given key, or null if there's none.
+     */
+    public synchronized byte[] search(byte[] key) {
+        if (root == NO_PAGE) {
+            return null;
+        }
+
+        // Duplicates of a key may spill over into the leaves on the right.
+        var pageNumber = findLeafNode(key, true, new ArrayList<>());
+        while (pageNumber != NO_PAGE) {
+            final var leaf = new Node(pageNumber);
+            try {
+                final var index = findKeyIndex(leaf, key, true);
+                if (index < leaf.getCount()) {
+                    return leaf.compareKey(index, key) == 0 ? leaf.getValue(index) : null;
+                }
+                pageNumber = leaf.getRightSibling();
+            } finally {
+                leaf.release();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Values of all entries whose keys are within the given range, in key order. Only the leaves that overlap the
+     * range are read.
+     */
+    public synchronized ArrayList<Long> search(long lowerBound, long upperBound) {
+        final var values = new ArrayList<Long>();
+        scan(toKey(lowerBound), toKey(upperBound), Integer.MAX_VALUE,
+                (page, keyOffset, valueOffset) -> values.add(ByteBuffer.wrap(page).getLong(valueOffset)));
+        return values;
+    }
+
+    /**
+     * Pass the entries whose keys are within the given range (both inclusive) to the visitor in key order, at most
+     * maxEntries of them. Only the leaves that overlap the range are read.
+     * @return the key of the next entry in the range if maxEntries were passed before the end of it, otherwise null.
+     * With unique keys, a scan from that key picks up where this one stopped.
+     */
+    public synchronized byte[] scan(byte[] from, byte[] to, int maxEntries, EntryVisitor visitor) {
+        if (root == NO_PAGE) {
+            return null;
+        }
+
+        var pageNumber = findLeafNode(from, true, new ArrayList<>());
+        var index = -1;
+        var numberOfEntries = 0;
+        while (pageNumber != NO_PAGE) {
+            final var leaf = new Node(pageNumber);
+            try {
+                for (index = index < 0 ? findKeyIndex(leaf, from, true) : 0; index < leaf.getCount(); index++) {
+                    if (leaf.compareKey(index, to) > 0) {
+                        return null;
+                    }
+                    if (numberOfEntries == maxEntries) {
+                        return leaf.getKey(index);
+                    }
+                    visitor.visit(leaf.page.getData(), leaf.getKeyPosition(index), leaf.getValuePosition(index));
+                    numberOfEntries++;
+                }
+                pageNumber = leaf.getRightSibling();
+            } finally {
+                leaf.release();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pass every entry to the consumer in key order.
+     */
+    public synchronized void forEachEntry(BPlusTree.EntryConsumer consumer) {
+        var pageNumber = firstLeaf;
+        while (pageNumber != NO_PAGE) {
+            final var leaf = new Node(pageNumber);
+            try {
+                for (var i = 0; i < leaf.getCount(); i++) {
+                    final var data = ByteBuffer.wrap(leaf.page.getData());
+                    consumer.accept(data.getLong(leaf.getKeyPosition(i)) ^ Long.MIN_VALUE, data.getLong(leaf.getValuePosition(i)));
+                }
+                pageNumber = leaf.getRightSibling();
+            } finally {
+                leaf.release();
+            }
+        }
+    }
+
+    public synchronized void delete(long key) {
+        delete(toKey(key));
+    }
+
+    /**
+     * Remove an entry with the given key, borrowing from or merging with sibling nodes that underflow.
+     */
+    public synchronized void delete(byte[] key) {
+        if (root == NO_PAGE) {
+            return;
+        }
+
+        markModified();
+        final var path = new ArrayList<PathStep>();
+        var pageNumber = findLeafNode(key, true, path);
+        while (pageNumber != NO_PAGE) {
+            final var leaf = new Node(pageNumber);
+            try {
+                final var index = findKeyIndex(leaf, key, true);
+                if (index < leaf.getCount()) {
+                    if (leaf.compareKey(index, key) == 0) {
+                        leaf.removeEntry(index);
+                        rebalanceLeafNode(leaf, path);
+                        writeHeader();
+                    }
+                    return;
+                }
+            } finally {
+                leaf.release();
+            }
+            pageNumber = findNextLeafNode(path);
+        }
+    }
+
+    private void rebalanceLeafNode(Node leaf, ArrayList<PathStep> path) {
+        if (path.isEmpty()) {
+            if (leaf.getCount() == 0) {
+                freeNode(leaf);
+                root = firstLeaf = NO_PAGE;
+            }
+            return;
+        }
+        if (leaf.getCount() >= getMinNumPairs()) {
+            return;
+        }
+
+        final var step = path.remove(path.size() - 1);
+        final var parent = new Node(step.pageNumber);
+        final var childIndex = step.childIndex;
+        final var left = childIndex > 0 ? new Node(parent.getChild(childIndex - 1)) : null;
+        final var right = childIndex < parent.getCount() ? new Node(parent.getChild(childIndex + 1)) : null;
+        try {
+            if (left != null && left.getCount() > getMinNumPairs()) {
+                // Borrow the last entry of the left sibling.
+                final var last = left.getCount() - 1;
+                leaf.insertEntry(0, left.getKey(last), left.getValue(last));
+                left.removeEntry(last);
+                parent.setKey(childIndex - 1, leaf.getKey(0));
+            } else if (right != null && right.getCount() > getMinNumPairs()) {
+                // Borrow the first entry of the right sibling.
+                leaf.insertEntry(leaf.getCount(), right.getKey(0), right.getValue(0));
+                right.removeEntry(0);
+                parent.setKey(childIndex, right.getKey(0));
+            } else if (left != null) {
+                mergeLeafNodes(left, leaf);
+                parent.removeChild(childIndex - 1);
+                rebalanceInternalNode(parent, path);
+            } else if (right != null) {
+                mergeLeafNodes(leaf, right);
+                parent.removeChild(childIndex);
+                rebalanceInternalNode(parent, path);
+            }
+        } finally {
+            if (left != null) {
+                left.release();
+            }
+            if (right != null) {
+                right.release();
+            }
+            parent.release();
+        }
+    }
+
+    /**
+     * Move every entry of the right leaf into the left one and free the right leaf.
+     */
+    private void mergeLeafNodes(Node left, Node right) {
+        left.appendEntries(right, 0, right.getCount());
+        left.setRightSibling(right.getRightSibling());
+        if (right.getRightSibling() != NO_PAGE) {
+            final var rightSibling = new Node(right.getRightSibling());
+            rightSibling.setLeftSibling(left.pageNumber);
+            rightSibling.release();
+        }
+        freeNode(right);
+    }
+
+    private void rebalanceInternalNode(Node node, ArrayList<PathStep> path) {
+        if (path.isEmpty()) {
+            if (node.getCount() == 0) {
+                // The root has a single child left, which becomes the new root.
+                root = node.getChild(0);
+                freeNode(node);
+            }
+            return;
+        }
+        if (node.getCount() + 1 >= getMinDegree()) {
+            return;
+        }
+
+        final var step = path.remove(path.size() - 1);
+        final var parent = new Node(step.pageNumber);
+        final var childIndex = step.childIndex;
+        final var left = childIndex > 0 ? new Node(parent.getChild(childIndex - 1)) : null;
+        final var right = childIndex < parent.getCount() ? new Node(parent.getChild(childIndex + 1)) : null;
+        try {
+            if (left != null && left.getCount() + 1 > getMinDegree()) {
+                // Rotate the last child of the left sibling through the parent.
+                final var last = left.getCount();
+                node.shift(0, 0, node.getCount() + 1, 1);
+                node.setKey(0, parent.getKey(childIndex - 1));
+                node.setChild(0, left.getChild(last));
+                node.setCount(node.getCount() + 1);
+                parent.setKey(childIndex - 1, left.getKey(last - 1));
+                left.setCount(last - 1);
+            } else if (right != null && right.getCount() + 1 > getMinDegree()) {
+                // Rotate the first child of the right sibling through the parent.
+                node.setKey(node.getCount(), parent.getKey(childIndex));
+                node.setChild(node.getCount() + 1, right.getChild(0));
+                node.setCount(node.getCount() + 1);
+                parent.setKey(childIndex, right.getKey(0));
+                right.shift(1, 1, right.getCount() + 1, -1);
+                right.setCount(right.getCount() - 1);
+            } else if (left != null) {
+                mergeInternalNodes(left, parent.getKey(childIndex - 1), node);
+                parent.removeChild(childIndex - 1);
+                rebalanceInternalNode(parent, path);
+            } else if (right != null) {
+                mergeInternalNodes(node, parent.getKey(childIndex), right);
+                parent.removeChild(childIndex);
+                rebalanceInternalNode(parent, path);
+            }
+        } finally {
+            if (left != null) {
+                left.release();
+            }
+            if (right != null) {
+                right.release();
+            }
+            parent.release();
+        }
+    }
+
+    /**
+     * Pull the separating key down from the parent and move every key and child of the right node into the left one,
+     * then free the right node.
+     */
+    private void mergeInternalNodes(Node left, byte[] separatorKey, Node right) {
+        final var numberOfKeys = left.getCount();
+        left.setKey(numberOfKeys, separatorKey);
+        for (var i = 0; i < right.getCount(); i++) {
+            left.setKey(numberOfKeys + 1 + i, right.getKey(i));
+        }
+        for (var i = 0; i <= right.getCount(); i++) {
+            left.setChild(numberOfKeys + 1 + i, right.getChild(i));
+        }
+        left.setCount(numberOfKeys + 1 + right.getCount());
+        freeNode(right);
+    }
+
+    /**
+     * Version recorded by the last flush, or NO_VERSION if the tree was changed after it (or was never flushed with
+     * one). An index file whose tree has a version was fully written, and holds what the tree held at that flush.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Write all modified pages to the index file and make them durable.
+     */
+    public synchronized void flush() {
+        writeHeader();
+        bufferPool.flush();
+    }
+
+    /**
+     * Write all modified pages to the index file and make them durable, then record the given version, e.g. how far
+     * along its table the index was. The version is only written once every page is, see {@link #getVersion}.
+     */
+    public synchronized void flush(long version) {
+        flush();
+        this.version = version;
+        flush();
+    }
+
+    public synchronized void close() {
+        writeHeader();
+        bufferPool.close();
+    }
+
+    /**
+     * Long keys are stored with their sign bit flipped, so they order like signed numbers as unsigned bytes.
+     */
+    private static byte[] toKey(long key) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(key ^ Long.MIN_VALUE).array();
+    }
+
+    private static byte[] toValue(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+}
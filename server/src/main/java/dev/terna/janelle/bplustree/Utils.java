@@ -1,96 +1,49 @@
 package dev.terna.janelle.bplustree;
 
-import java.util.Arrays;
-import java.util.Comparator;
-
 public class Utils {
     /**
-	 * This method performs a standard linear search on a list of Node[] pointers
-	 * and returns the index of the first null entry found. Otherwise, this
-	 * method returns a -1. This method is primarily used in place of
-	 * binarySearch() when the target t = null.
-	 * @param pointers: list of Node[] pointers
-	 * @return index of the target value if found, else -1
+	 * This method returns the index of the first of the first n keys that is
+	 * greater than or equal to key, or n if there's no such key. The keys must
+	 * be sorted.
+	 * The search range is halved on every step without branching on the
+	 * comparison (the JIT turns the conditional into a cmov), so it doesn't
+	 * suffer from branch mispredictions the way a textbook binary search does.
+	 * @param keys: list of keys sorted in ascending order
+	 * @param n: number of keys in use
+	 * @param key: target key
+	 * @return index of the first key >= key
 	 */
-	public static int linearNullSearch(Node[] pointers) {
-		for (int i = 0; i <  pointers.length; i++) {
-			if (pointers[i] == null) {
-                return i;
-            }
+	public static int lowerBound(long[] keys, int n, long key) {
+		if (n == 0) {
+			return 0;
 		}
-		return -1;
-	}
-
-    /**
-	 * This method performs a standard linear search on a sorted
-	 * Entry[] and returns the index of the first null entry found.
-	 * Otherwise, this method returns a -1. This method is primarily used in
-	 * place of binarySearch() when the target t = null.
-	 * @param entries: list of entries sorted by key within leaf node
-	 * @return index of the target value if found, else -1
-	 */
-    public static int linearNullSearch(Entry[] entries) {
-		for (int i = 0; i <  entries.length; i++) {
-			if (entries[i] == null) {
-                return i;
-            }
+		int base = 0;
+		while (n > 1) {
+			final int half = n >>> 1;
+			base = keys[base + half - 1] < key ? base + half : base;
+			n -= half;
 		}
-		return -1;
-	}
-
-    /**
-	 * This is a specialized sorting method used upon lists of entries
-	 * that may contain interspersed null values.
-	 * @param entries: a list of Entry objects
-	 */
-	public static void sortEntries(Entry[] entries) {
-		Arrays.sort(entries, (a, b) -> {
-            if (a == null && b == null) {
-                return 0;
-            }
-            if (a == null) {
-                return 1;
-            }
-            if (b == null) {
-                return -1;
-            }
-            return a.compareTo(b);
-		});
+		return keys[base] < key ? base + 1 : base;
 	}
 
     /**
-	 * This method performs a standard binary search on a sorted
-	 * Entry[] and returns the index of the entry
-	 * with target key t if found. Otherwise, this method returns a negative
-	 * value.
-	 * @param entries: list of entries sorted by key within leaf node
-	 * @param t: target key value of entry being searched for
-	 * @return index of the target value if found, else a negative value
+	 * This method returns the index of the first of the first n keys that is
+	 * greater than key, or n if there's no such key. The keys must be sorted.
+	 * @param keys: list of keys sorted in ascending order
+	 * @param n: number of keys in use
+	 * @param key: target key
+	 * @return index of the first key > key
 	 */
-	public static int binarySearch(Entry[] entries, int numPairs, long t) {
-		Comparator<Entry> c = new Comparator<Entry>() {
-			@Override
-			public int compare(Entry entry1, Entry entry2) {
-				Long a = Long.valueOf(entry1.key);
-				Long b = Long.valueOf(entry2.key);
-				return a.compareTo(b);
-			}
-		};
-		return Arrays.binarySearch(entries, 0, numPairs, new Entry(t, 0L), c);
-	}
-
-    /**
-	 * Given a list of pointers to Node objects, this method returns the index of
-	 * the pointer that points to the specified 'node' LeafNode object.
-	 * @param pointers: a list of pointers to Node objects
-	 * @param node: a specific pointer to a LeafNode
-	 * @return (int) index of pointer in list of pointers
-	 */
-	public static int findIndexOfPointer(Node[] pointers, LeafNode node) {
-		int i;
-		for (i = 0; i < pointers.length; i++) {
-			if (pointers[i] == node) { break; }
+	public static int upperBound(long[] keys, int n, long key) {
+		if (n == 0) {
+			return 0;
+		}
+		int base = 0;
+		while (n > 1) {
+			final int half = n >>> 1;
+			base = keys[base + half - 1] <= key ? base + half : base;
+			n -= half;
 		}
-		return i;
+		return keys[base] <= key ? base + 1 : base;
 	}
 }
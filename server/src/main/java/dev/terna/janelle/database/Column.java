@@ -1,5 +1,8 @@
 package dev.terna.janelle.database;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
 
@@ -57,6 +60,42 @@ public class Column implements Serializable {
         return sizeInBytes;
     }
 
+    /**
+     * Column format:
+     * Name + Data type name + Is required (1 byte) + Size in bytes (4 bytes) + Has default (1 byte) + Default value
+     */
+    void write(DataOutput output) throws IOException {
+        output.writeUTF(name);
+        output.writeUTF(dataType.name());
+        output.writeBoolean(isRequired);
+        output.writeInt(sizeInBytes);
+        output.writeBoolean(defaultValue != null);
+        if (defaultValue != null) {
+            output.writeUTF(defaultValue.toString());
+        }
+    }
+
+    static Column read(DataInput input) throws IOException {
+        final var name = input.readUTF();
+        final var dataType = DataType.valueOf(input.readUTF());
+        final var isRequired = input.readBoolean();
+        final var sizeInBytes = input.readInt();
+        Object defaultValue = null;
+        if (input.readBoolean()) {
+            final var defaultValueString = input.readUTF();
+            defaultValue = switch (dataType) {
+                case INT -> Integer.parseInt(defaultValueString);
+                case FLOAT -> Float.parseFloat(defaultValueString);
+                case STRING -> defaultValueString;
+                case BOOL -> Boolean.parseBoolean(defaultValueString);
+            };
+        }
+
+        final var column = new Column(name, dataType, isRequired, defaultValue);
+        column.sizeInBytes = sizeInBytes;
+        return column;
+    }
+
     public void validate(Object data) throws Exception {
         dataType.validate();
 
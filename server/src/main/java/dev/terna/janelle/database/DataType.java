@@ -57,23 +57,30 @@ public enum DataType {
     }
 
     public Object getData(byte[] bytes) {
+        return getData(bytes, 0);
+    }
+
+    /**
+     * Read a value stored at the given offset, e.g. a field within a whole row, without copying it out first.
+     */
+    public Object getData(byte[] bytes, int offset) {
         switch (this) {
             case INT -> {
-                return ByteBuffer.wrap(bytes).getInt();
+                return ByteBuffer.wrap(bytes).getInt(offset);
             }
             case FLOAT -> {
-                return ByteBuffer.wrap(bytes).getFloat();
+                return ByteBuffer.wrap(bytes).getFloat(offset);
             }
             case STRING -> {
-                final int stringLength = bytes[0];
+                final int stringLength = bytes[offset];
                 if (stringLength == 0) {
                     return null;
                 }
-                final var stringBytes = Arrays.copyOfRange(bytes, 1, stringLength + 1);
+                final var stringBytes = Arrays.copyOfRange(bytes, offset + 1, offset + stringLength + 1);
                 return new String(stringBytes, StandardCharsets.UTF_8);
             }
             case BOOL -> {
-                return ByteBuffer.wrap(bytes).getShort() == 1;
+                return ByteBuffer.wrap(bytes, offset, 1).getShort() == 1;
             }
             default -> throw new IllegalStateException("getData() not supported for " + this.name() + " type.");
         }
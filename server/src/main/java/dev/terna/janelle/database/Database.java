@@ -1,35 +1,64 @@
 package dev.terna.janelle.database;
 
+import dev.terna.janelle.database.storage.StorageMedium;
 import dev.terna.janelle.sql.Query;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
+/**
+ * Catalog of the tables in the db. Meant to be created once and shared by every request: the table names are read
+ * from the configs table up front, but each table is only loaded the first time it's used.
+ */
 public class Database {
-    private final Map<String, Table> tables;
+    private final Map<String, Table> tables; // Loaded tables.
+    private final Set<String> tableNames;
+    private final StorageMedium storageMedium;
     public static final String DB_CONFIGS_TABLE_NAME = "jn_configs";
 
     public Database() {
-        tables = new HashMap<>();
+        this(StorageMedium.DISK);
+    }
+
+    public Database(StorageMedium storageMedium) {
+        tables = new ConcurrentHashMap<>();
+        tableNames = ConcurrentHashMap.newKeySet();
+        this.storageMedium = storageMedium;
         loadTables();
     }
 
     private void loadTables() {
         // Get the list of tables in the db from the configs table.
-        Table configsTable = Table.load(DB_CONFIGS_TABLE_NAME);
+        Table configsTable = Table.load(DB_CONFIGS_TABLE_NAME, storageMedium);
         if (configsTable == null) {
             configsTable = createConfigsTable();
+        } else {
+            tables.put(DB_CONFIGS_TABLE_NAME, configsTable);
+            tableNames.add(DB_CONFIGS_TABLE_NAME);
         }
         final var rows = configsTable.selectAll();
         final var schema = configsTable.getSchema();
-        final var tableNames = getTableNames(rows, schema);
-        
-        for (var tableName : tableNames) {
-            tables.put(tableName, Table.load(tableName));
+        final var names = getTableNames(rows, schema);
+        if (names != null) {
+            tableNames.addAll(Arrays.asList(names));
+        }
+    }
+
+    /**
+     * Fetch table [metadata] from memory, loading it from storage if this is the first time it's used.
+     * @return the table, or null if there's no table with the given name
+     */
+    private Table findTable(String name) {
+        if (!tableNames.contains(name)) {
+            return null;
         }
+        // Only the first thread to ask for a table loads it, the others wait for it.
+        return tables.computeIfAbsent(name, tableName -> Table.load(tableName, storageMedium));
     }
 
     /**
@@ -63,16 +92,17 @@ public class Database {
         return tableNames;
     }
 
-    public void createTable(String name, Column[] schema) {
+    public synchronized void createTable(String name, Column[] schema) {
         Table.create(name, schema);
-        tables.put(name, Table.load(name));
+        tables.put(name, Table.load(name, storageMedium));
+        tableNames.add(name);
     }
 
     /**
      * Fetch table [metadata] from memory.
      */
     public Table getTable(String name) throws Exception {
-        final var table = tables.get(name);
+        final var table = findTable(name);
         if (table == null) {
             throw new Exception("Table \"" + name + "\" does not exist.");
         }
@@ -89,7 +119,7 @@ public class Database {
         final var schema = new Column[] { keyColumn, valueColumn };
         createTable(DB_CONFIGS_TABLE_NAME, schema);
 
-        final var configsTable = Table.load(DB_CONFIGS_TABLE_NAME);
+        final var configsTable = tables.get(DB_CONFIGS_TABLE_NAME);
  
         // Initial configs
         final var tableNames = new String[] { DB_CONFIGS_TABLE_NAME };
@@ -111,7 +141,7 @@ public class Database {
     }
 
     public Result processQuery(Query query) throws Exception {
-        final var table = tables.get(query.getTable());
+        final var table = findTable(query.getTable());
         if (table == null) {
             throw new Exception(String.format("Table %s does not exist.", query.getTable()));
         }
@@ -119,10 +149,13 @@ public class Database {
         switch (query.getStatement()) {
             case CREATE -> {
             }
+            case CREATE_INDEX -> {
+                table.createIndex(query.getColumns(), query.getIncludedColumns());
+            }
             case INSERT -> {
             }
             case SELECT -> {
-               return table.select(query.getColumns(), query.getWhereClause(), query.getOrderByClause());
+               return table.select(query.getColumns(), query.getWhereClause(), query.getOrderByClause(), query.getLimit());
             }
             case DESCRIBE -> {
                 return table.describe();
@@ -1,13 +1,35 @@
 package dev.terna.janelle.database;
 
+import dev.terna.janelle.database.execution.Operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Columns and rows returned by a query. The rows either are given up front or come from a query plan, in which case
+ * they're only produced when they're read. They're collected if getRows is called, but forEachBatch passes them on as
+ * they're produced without collecting them.
+ */
 public class Result {
     private final String[] columns;
-    private final Object[][] rows;
+    private final DataType[] columnTypes;
+    private Object[][] rows;
+    private final Operator plan;
     private final Table source;
 
-    public Result(String[] columns, Object[][] rows, Table source) {
+    public Result(String[] columns, DataType[] columnTypes, Object[][] rows, Table source) {
         this.columns = columns;
+        this.columnTypes = columnTypes;
         this.rows = rows;
+        this.plan = null;
+        this.source = source;
+    }
+
+    public Result(String[] columns, DataType[] columnTypes, Operator plan, Table source) {
+        this.columns = columns;
+        this.columnTypes = columnTypes;
+        this.rows = null;
+        this.plan = plan;
         this.source = source;
     }
 
@@ -15,11 +37,60 @@ public class Result {
         return columns;
     }
 
-    public Object[][] getRows() {
+    public DataType[] getColumnTypes() {
+        return columnTypes;
+    }
+
+    public synchronized Object[][] getRows() {
+        if (rows == null) {
+            final var rowList = new ArrayList<Object[]>();
+            forEachBatch(1024, (batch, count) -> rowList.addAll(Arrays.asList(batch).subList(0, count)));
+            rows = rowList.toArray(Object[][]::new);
+        }
         return rows;
     }
 
+    /**
+     * Pass the rows to the consumer in batches of at most batchSize rows. The batch array is reused, so the consumer
+     * mustn't hold on to it. If the rows come from a plan and haven't been collected, they're pulled from the plan as
+     * they're needed and can only be read once.
+     */
+    public <E extends Exception> void forEachBatch(int batchSize, BatchConsumer<E> consumer) throws E {
+        final var batch = new Object[batchSize][];
+        if (rows != null) {
+            for (var from = 0; from < rows.length; from += batchSize) {
+                final var count = Math.min(batchSize, rows.length - from);
+                System.arraycopy(rows, from, batch, 0, count);
+                consumer.accept(batch, count);
+            }
+            return;
+        }
+
+        plan.open();
+        try {
+            var count = 0;
+            Object[] row;
+            while ((row = plan.next()) != null) {
+                batch[count++] = row;
+                if (count == batchSize) {
+                    consumer.accept(batch, count);
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                consumer.accept(batch, count);
+            }
+        } finally {
+            plan.close();
+        }
+    }
+
     public Table getSource() {
         return source;
     }
+
+    @FunctionalInterface
+    public interface BatchConsumer<E extends Exception> {
+        void accept(Object[][] batch, int count) throws E;
+    }
 }
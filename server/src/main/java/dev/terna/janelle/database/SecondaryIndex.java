@@ -0,0 +1,450 @@
+package dev.terna.janelle.database;
+
+import dev.terna.janelle.bplustree.PagedBPlusTree;
+import dev.terna.janelle.database.execution.KeyRange;
+import dev.terna.janelle.database.execution.KeyRangePlanner;
+import dev.terna.janelle.database.execution.RowSource;
+import dev.terna.janelle.database.storage.BufferPool;
+import dev.terna.janelle.database.storage.DataStore;
+import dev.terna.janelle.sql.Token;
+import dev.terna.janelle.sql.TokenType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Index on one or more columns other than the row ID, mapping their values to row pointers. Its entries are kept in a
+ * {@link PagedBPlusTree} in an index file of its own, so they're still there when the table is loaded again.
+ * Values can repeat, so a key is the values followed by the 4 byte row ID. Each value is encoded in full, in as many
+ * bytes as its column has room for, so that keys order like the values (see {@link #encodeField}). So equal values are
+ * next to each other in row ID order, and a range of values of a key column is a range of keys once the key columns
+ * before it are equal to a single value.
+ * An index can also keep a copy of some more columns (the included columns) of every row, so queries that only use
+ * the key and included columns never read the rows themselves. The copy is kept in the entries, after the row
+ * pointer.
+ */
+public class SecondaryIndex {
+    public static final int MAX_KEY_COLUMNS = 4;
+    private static final int ROW_ID_SIZE = 4;
+    private static final int ROW_POINTER_SIZE = 8;
+    // Indexes on wide columns get bigger pages, so their nodes still have at least this many keys.
+    private static final int MIN_ORDER = 16;
+    // Entries are read from the tree this many at a time, see RowSource.
+    private static final int BATCH_SIZE = 256;
+    private final Column[] keyColumns;
+    private final int[] keyColumnOffsets;
+    private final int[] fieldSizes;
+    private final int keySize;
+    private final Column[] includedColumns;
+    // The row ID, key and included columns in table order, or null if there are no included columns.
+    private final Column[] coveredSchema;
+    private final int[] coveredColumnOffsets;
+    private final int coveredRowSize;
+    private final int valueSize; // Row pointer + covered columns.
+    private final PagedBPlusTree tree;
+
+    /**
+     * Keys of the index from and to, both inclusive.
+     */
+    record EncodedKeyRange(byte[] from, byte[] to) {
+    }
+
+    /**
+     * Open the index kept in the index file, or start it if the file is empty.
+     */
+    SecondaryIndex(Column[] schema, int[] keyColumnIndexes, int[] includedColumnIndexes, DataStore indexFile) {
+        if (keyColumnIndexes.length == 0 || keyColumnIndexes.length > MAX_KEY_COLUMNS) {
+            throw new IllegalArgumentException(String.format("An index must have 1 to %d key columns.", MAX_KEY_COLUMNS));
+        }
+        final var columnOffsets = new int[schema.length];
+        for (var index = 1; index < schema.length; index++) {
+            columnOffsets[index] = columnOffsets[index - 1] + schema[index - 1].getSize();
+        }
+
+        keyColumns = Arrays.stream(keyColumnIndexes).mapToObj(index -> schema[index]).toArray(Column[]::new);
+        keyColumnOffsets = Arrays.stream(keyColumnIndexes).map(index -> columnOffsets[index]).toArray();
+        fieldSizes = Arrays.stream(keyColumns).mapToInt(SecondaryIndex::getFieldSize).toArray();
+        keySize = Arrays.stream(fieldSizes).sum() + ROW_ID_SIZE;
+        includedColumns = Arrays.stream(includedColumnIndexes).mapToObj(index -> schema[index]).toArray(Column[]::new);
+
+        if (includedColumnIndexes.length == 0) {
+            coveredSchema = null;
+            coveredColumnOffsets = null;
+            coveredRowSize = 0;
+        } else {
+            final var coveredColumnIndexes = new ArrayList<Integer>();
+            for (var index = 0; index < schema.length; index++) {
+                final var columnIndex = index;
+                if (index == 0 || Arrays.stream(keyColumnIndexes).anyMatch(i -> i == columnIndex)
+                        || Arrays.stream(includedColumnIndexes).anyMatch(i -> i == columnIndex)) {
+                    coveredColumnIndexes.add(index);
+                }
+            }
+            coveredSchema = coveredColumnIndexes.stream().map(index -> schema[index]).toArray(Column[]::new);
+            coveredColumnOffsets = coveredColumnIndexes.stream().mapToInt(index -> columnOffsets[index]).toArray();
+            coveredRowSize = Arrays.stream(coveredSchema).mapToInt(Column::getSize).sum();
+        }
+
+        valueSize = ROW_POINTER_SIZE + coveredRowSize;
+        var pageSize = BufferPool.DEFAULT_PAGE_SIZE_IN_BYTES;
+        while (PagedBPlusTree.getMaxOrder(pageSize, keySize, valueSize) < MIN_ORDER) {
+            pageSize *= 2;
+        }
+        tree = new PagedBPlusTree(PagedBPlusTree.getMaxOrder(pageSize, keySize, valueSize), keySize, valueSize,
+                new BufferPool(indexFile, BufferPool.DEFAULT_SIZE_IN_BYTES, pageSize));
+    }
+
+    public Column[] getKeyColumns() {
+        return keyColumns;
+    }
+
+    public Column[] getIncludedColumns() {
+        return includedColumns;
+    }
+
+    /**
+     * Columns kept in the index for every row, in the order they're in the table, or null if the index doesn't keep any
+     * besides its keys.
+     */
+    public Column[] getCoveredSchema() {
+        return coveredSchema;
+    }
+
+    /**
+     * Version the index was last flushed with, or {@link PagedBPlusTree#NO_VERSION} if it was changed after that.
+     */
+    long getVersion() {
+        return tree.getVersion();
+    }
+
+    /**
+     * Make the entries durable, along with the version of the table they match (its row sequence ID).
+     */
+    void flush(long version) {
+        tree.flush(version);
+    }
+
+    void close() {
+        tree.close();
+    }
+
+    void add(byte[] row, int rowId, long rowPointer) {
+        final var key = new byte[keySize];
+        var keyOffset = 0;
+        for (var i = 0; i < keyColumns.length; i++) {
+            encodeField(keyColumns[i].getDataType(), row, keyColumnOffsets[i], key, keyOffset, fieldSizes[i]);
+            keyOffset += fieldSizes[i];
+        }
+        ByteBuffer.wrap(key).putInt(keyOffset, rowId);
+
+        final var value = new byte[valueSize];
+        ByteBuffer.wrap(value).putLong(rowPointer);
+        var valueOffset = ROW_POINTER_SIZE;
+        for (var i = 0; coveredSchema != null && i < coveredSchema.length; i++) {
+            System.arraycopy(row, coveredColumnOffsets[i], value, valueOffset, coveredSchema[i].getSize());
+            valueOffset += coveredSchema[i].getSize();
+        }
+        tree.insert(key, value);
+    }
+
+    /**
+     * Rows of all the entries, in key order.
+     * @param isCovering: read the covered columns of the rows (see {@link #getCoveredSchema}) instead of the rows
+     */
+    RowSource scan(Table table, boolean isCovering) {
+        final var to = new byte[keySize];
+        Arrays.fill(to, (byte) 0xFF);
+        return scan(List.of(new EncodedKeyRange(new byte[keySize], to)), table, isCovering);
+    }
+
+    /**
+     * Rows of the entries whose keys are in the given sorted, non-overlapping ranges, in key order.
+     * @param isCovering: read the covered columns of the rows (see {@link #getCoveredSchema}) instead of the rows
+     */
+    RowSource scan(List<EncodedKeyRange> ranges, Table table, boolean isCovering) {
+        return new RowSource() {
+            private final long[] rowPointers = new long[BATCH_SIZE];
+            private final byte[][] coveredRows = new byte[BATCH_SIZE][];
+            private int numberOfEntries;
+            private int rangeIndex;
+            private byte[] nextKey;
+
+            @Override
+            public void open() {
+                rangeIndex = 0;
+                nextKey = ranges.isEmpty() ? null : ranges.get(0).from();
+            }
+
+            @Override
+            public int readEntries() {
+                numberOfEntries = 0;
+                while (rangeIndex < ranges.size() && numberOfEntries < BATCH_SIZE) {
+                    nextKey = tree.scan(nextKey, ranges.get(rangeIndex).to(), BATCH_SIZE - numberOfEntries, (page, keyOffset, valueOffset) -> {
+                        if (isCovering) {
+                            // The page is only valid while it's visited.
+                            coveredRows[numberOfEntries] = Arrays.copyOfRange(page, valueOffset + ROW_POINTER_SIZE, valueOffset + valueSize);
+                        }
+                        rowPointers[numberOfEntries++] = ByteBuffer.wrap(page).getLong(valueOffset);
+                    });
+                    if (nextKey == null) {
+                        rangeIndex++;
+                        if (rangeIndex < ranges.size()) {
+                            nextKey = ranges.get(rangeIndex).from();
+                        }
+                    }
+                }
+                return numberOfEntries;
+            }
+
+            @Override
+            public byte[] readRow(int entryIndex) {
+                return isCovering ? coveredRows[entryIndex] : table.readRowBytes(rowPointers[entryIndex]);
+            }
+
+            @Override
+            public void close() {
+                rangeIndex = ranges.size();
+            }
+        };
+    }
+
+    /**
+     * Keys of the rows the where clause in postfix order can match, or null if the index doesn't narrow them down.
+     * Conditions on a leading key column narrow down the keys, and so do conditions on the next key column if all the
+     * ones before it are only equal to a single value.
+     */
+    List<EncodedKeyRange> getKeyRanges(List<Token> whereClause, Column[] schema) {
+        final var prefix = new byte[keySize];
+        var prefixSize = 0;
+        for (var i = 0; i < keyColumns.length; i++) {
+            final var fieldRanges = getFieldRanges(keyColumns[i], fieldSizes[i], whereClause, schema);
+            if (fieldRanges == null) {
+                return i == 0 ? null : List.of(new EncodedKeyRange(getKey(prefix, prefixSize, (byte) 0), getKey(prefix, prefixSize, (byte) 0xFF)));
+            }
+
+            final var isSingleValue = fieldRanges.size() == 1 && Arrays.equals(fieldRanges.get(0).from(), fieldRanges.get(0).to());
+            if (isSingleValue && i < keyColumns.length - 1) {
+                System.arraycopy(fieldRanges.get(0).from(), 0, prefix, prefixSize, fieldSizes[i]);
+                prefixSize += fieldSizes[i];
+                continue;
+            }
+            final var keyRanges = new ArrayList<EncodedKeyRange>();
+            for (var fieldRange : fieldRanges) {
+                System.arraycopy(fieldRange.from(), 0, prefix, prefixSize, fieldSizes[i]);
+                final var from = getKey(prefix, prefixSize + fieldSizes[i], (byte) 0);
+                System.arraycopy(fieldRange.to(), 0, prefix, prefixSize, fieldSizes[i]);
+                final var to = getKey(prefix, prefixSize + fieldSizes[i], (byte) 0xFF);
+                keyRanges.add(new EncodedKeyRange(from, to));
+            }
+            return keyRanges;
+        }
+        throw new IllegalStateException("Key ranges of the last key column weren't returned.");
+    }
+
+    /**
+     * Key that starts with the given prefix and has all its other bytes set to fill, so it's the first or the last key
+     * with that prefix.
+     */
+    private byte[] getKey(byte[] prefix, int prefixSize, byte fill) {
+        final var key = Arrays.copyOf(prefix, keySize);
+        Arrays.fill(key, prefixSize, keySize, fill);
+        return key;
+    }
+
+    /**
+     * Encoded values (see {@link #encodeField}) of the column for which the where clause can hold, as sorted,
+     * non-overlapping ranges, or null if it can hold for any.
+     */
+    private static List<EncodedKeyRange> getFieldRanges(Column column, int fieldSize, List<Token> whereClause, Column[] schema) {
+        final var dataType = column.getDataType();
+        if (dataType != DataType.STRING) {
+            final var sortableRanges = KeyRangePlanner.plan(whereClause, schema, column.getName(),
+                    (operator, value) -> getSortableRanges(dataType, operator, value));
+            if (sortableRanges == null) {
+                return null;
+            }
+            return sortableRanges.stream()
+                    .map(range -> new EncodedKeyRange(encodeSortableValue(dataType, range.from()), encodeSortableValue(dataType, range.to())))
+                    .toList();
+        }
+
+        // The planner works with numbers, so the strings in the where clause are numbered in order: the i-th one is
+        // 2i + 1, and 2i stands for the strings between it and the one before. So a range of numbers is a range of
+        // strings, which can be widened to start and end at strings of the where clause (or at either end).
+        final var strings = getStrings(whereClause, fieldSize);
+        final var numberRanges = KeyRangePlanner.plan(whereClause, schema, column.getName(),
+                (operator, value) -> getStringNumberRanges(operator, value, strings, fieldSize));
+        if (numberRanges == null) {
+            return null;
+        }
+        final var last = new byte[fieldSize];
+        Arrays.fill(last, (byte) 0xFF);
+        final var fieldRanges = new ArrayList<EncodedKeyRange>();
+        for (var range : numberRanges) {
+            final var fromIndex = (int) ((range.from() - 1) / 2);
+            final var toIndex = (int) (range.to() / 2);
+            fieldRanges.add(new EncodedKeyRange(
+                    range.from() == 0 ? new byte[fieldSize] : strings.get(fromIndex),
+                    toIndex == strings.size() ? last : strings.get(toIndex)));
+        }
+        return fieldRanges;
+    }
+
+    /**
+     * Encoded strings and nulls of the where clause, sorted and without duplicates.
+     */
+    private static List<byte[]> getStrings(List<Token> whereClause, int fieldSize) {
+        final var strings = new TreeSet<byte[]>(Arrays::compareUnsigned);
+        for (var token : whereClause) {
+            if (token.getTokenType() == TokenType.STRING_LITERAL) {
+                final var value = token.getValue();
+                strings.add(encodeString(value.substring(1, value.length() - 1), fieldSize));
+            } else if (token.getTokenType() == TokenType.NULL_LITERAL) {
+                strings.add(encodeString(null, fieldSize));
+            }
+        }
+        return new ArrayList<>(strings);
+    }
+
+    /**
+     * Numbers (see {@link #getFieldRanges}) of the strings s for which "s operator value" can hold, or null if any can.
+     * Strings longer than the column and strings that only differ in trailing NUL characters are encoded the same, so
+     * the value itself is always in the range; the where clause filters out the rows that don't match.
+     */
+    private static List<KeyRange> getStringNumberRanges(TokenType operator, Object value, List<byte[]> strings, int fieldSize) {
+        if (value != null && !(value instanceof String)) {
+            return null;
+        }
+        final long number = 2L * Collections.binarySearch(strings, encodeString((String) value, fieldSize), Arrays::compareUnsigned) + 1;
+        return switch (operator) {
+            case EQUAL_OP -> List.of(new KeyRange(number, number));
+            case GREATER_THAN_OP, GREATER_THAN_OR_EQUAL_OP -> List.of(new KeyRange(number, 2L * strings.size()));
+            case LESS_THAN_OP, LESS_THAN_OR_EQUAL_OP -> List.of(new KeyRange(0, number));
+            default -> null;
+        };
+    }
+
+    /**
+     * Sortable values (see {@link #encodeField}) of the ints, floats or bools v for which "v operator value" can hold,
+     * or null if any can.
+     */
+    private static List<KeyRange> getSortableRanges(DataType dataType, TokenType operator, Object value) {
+        switch (dataType) {
+            case INT -> {
+                if (!(value instanceof Double number)) {
+                    return null;
+                }
+                final var ranges = KeyRangePlanner.getIntegerRanges(operator, number);
+                if (ranges == null) {
+                    return null;
+                }
+                return KeyRangePlanner.intersect(ranges, List.of(new KeyRange(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+            }
+
+            case FLOAT -> {
+                if (!(value instanceof Double number)) {
+                    return null;
+                }
+                return getFloatRanges(operator, number);
+            }
+
+            case BOOL -> {
+                if (operator != TokenType.EQUAL_OP || !(value instanceof Boolean bool)) {
+                    return null;
+                }
+                final var sortableValue = bool ? 1 : 0;
+                return List.of(new KeyRange(sortableValue, sortableValue));
+            }
+
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Sortable values of the floats f for which "(double) f operator value" holds, as compared by the Evaluator.
+     */
+    private static List<KeyRange> getFloatRanges(TokenType operator, double value) {
+        final var nearest = (float) value;
+        var from = Float.NEGATIVE_INFINITY;
+        var to = Float.POSITIVE_INFINITY;
+        switch (operator) {
+            case EQUAL_OP -> {
+                if ((double) nearest != value) {
+                    return List.of();
+                }
+                from = nearest;
+                to = nearest;
+            }
+            case GREATER_THAN_OP -> from = (double) nearest > value ? nearest : Math.nextUp(nearest);
+            case GREATER_THAN_OR_EQUAL_OP -> from = (double) nearest >= value ? nearest : Math.nextUp(nearest);
+            case LESS_THAN_OP -> to = (double) nearest < value ? nearest : Math.nextDown(nearest);
+            case LESS_THAN_OR_EQUAL_OP -> to = (double) nearest <= value ? nearest : Math.nextDown(nearest);
+            default -> {
+                return null;
+            }
+        }
+        final var sortableFrom = getSortableFloat(from);
+        final var sortableTo = getSortableFloat(to);
+        return sortableFrom > sortableTo ? List.of() : List.of(new KeyRange(sortableFrom, sortableTo));
+    }
+
+    /**
+     * Number of bytes a value of the column takes in a key: all of its bytes in a row, apart from a string's length.
+     */
+    private static int getFieldSize(Column column) {
+        return switch (column.getDataType()) {
+            case INT, FLOAT -> 4;
+            case STRING -> column.getSize() - 1;
+            case BOOL -> 1;
+        };
+    }
+
+    /**
+     * Encode the value in the row into the key, so that keys compared as unsigned bytes order like the values.
+     * Ints and floats are encoded as sortable values (signed ints in the order of the values) with the sign bit
+     * flipped. Strings keep their UTF-8 bytes padded with zeros, so null (the empty string) comes first, like in the
+     * Evaluator. Bools are 0 or 1 already.
+     */
+    private static void encodeField(DataType dataType, byte[] row, int offset, byte[] key, int keyOffset, int fieldSize) {
+        switch (dataType) {
+            case INT -> ByteBuffer.wrap(key).putInt(keyOffset, getInt(row, offset) ^ Integer.MIN_VALUE);
+            case FLOAT -> ByteBuffer.wrap(key).putInt(keyOffset, getSortableFloat(Float.intBitsToFloat(getInt(row, offset))) ^ Integer.MIN_VALUE);
+            case STRING -> System.arraycopy(row, offset + 1, key, keyOffset, Math.min(row[offset] & 0xFF, fieldSize));
+            case BOOL -> key[keyOffset] = row[offset];
+        }
+    }
+
+    private static byte[] encodeSortableValue(DataType dataType, long sortableValue) {
+        if (dataType == DataType.BOOL) {
+            return new byte[] { (byte) sortableValue };
+        }
+        return ByteBuffer.allocate(4).putInt((int) sortableValue ^ Integer.MIN_VALUE).array();
+    }
+
+    private static byte[] encodeString(String value, int fieldSize) {
+        return Arrays.copyOf(value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8), fieldSize);
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24
+                | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Negative floats have the sign bit set and order the other way round from positive ones, so their other bits are
+     * flipped. Both zeros are equal to the Evaluator, so they're encoded the same.
+     */
+    private static int getSortableFloat(float value) {
+        final var bits = Float.floatToIntBits(value == 0 ? 0f : value);
+        return bits >= 0 ? bits : bits ^ Integer.MAX_VALUE;
+    }
+}
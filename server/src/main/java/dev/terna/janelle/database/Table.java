@@ -1,50 +1,111 @@
 package dev.terna.janelle.database;
 
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import dev.terna.janelle.bplustree.BPlusTree;
+import dev.terna.janelle.bplustree.BulkLoader;
+import dev.terna.janelle.bplustree.ConcurrentBPlusTree;
+import dev.terna.janelle.database.execution.Operator;
+import dev.terna.janelle.database.execution.Project;
+import dev.terna.janelle.database.execution.RowDecoder;
+import dev.terna.janelle.database.execution.RowSource;
+import dev.terna.janelle.database.execution.Sort;
+import dev.terna.janelle.database.execution.TopN;
+import dev.terna.janelle.database.execution.Limit;
+import dev.terna.janelle.database.execution.TableScan;
+import dev.terna.janelle.database.execution.BatchFilter;
+import dev.terna.janelle.database.execution.BatchPredicate;
+import dev.terna.janelle.database.execution.KeyRange;
+import dev.terna.janelle.database.execution.KeyRangePlanner;
+import dev.terna.janelle.database.execution.VectorizedPredicate;
+import dev.terna.janelle.database.storage.BufferedDisk;
+import dev.terna.janelle.database.storage.DataStore;
 import dev.terna.janelle.database.storage.Disk;
+import dev.terna.janelle.database.storage.MappedDisk;
 import dev.terna.janelle.database.storage.Memory;
 import dev.terna.janelle.database.storage.StorageHandler;
 import dev.terna.janelle.database.storage.StorageMedium;
+import dev.terna.janelle.database.storage.WriteAheadLog;
 import dev.terna.janelle.sql.Order;
 import dev.terna.janelle.sql.Query;
 import dev.terna.janelle.sql.Token;
-import dev.terna.janelle.sql.postfixexpression.Evaluator;
+import dev.terna.janelle.sql.TokenType;
+import dev.terna.janelle.sql.postfixexpression.Compiler;
 
 public class Table implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
     private final String name;
     private final Column[] schema;
-    private int rowSequenceId;
+    private volatile int rowSequenceId;
     private final int rowSizeInBytes;
     private final BPlusTree data;
     private transient StorageHandler storageHandler;
     private final List<Long> freeRowBlocks; // Pointers to deleted (thus free) row blocks in the db table file.
+    private transient WriteAheadLog writeAheadLog;
+    private transient ByteArrayOutputStream metadataChanges; // Index and free row block changes since the last metadata flush.
+    private transient long numberOfIndexEntries;
+    private transient boolean isCheckpointPending;
+    private transient List<SecondaryIndex> indexes; // Their columns are stored in the metadata, their entries in index files.
+    private transient List<IndexColumns> unopenedIndexes; // Indexes read from the metadata, opened once the table is loaded.
     private static final String ROW_ID_COLUMN_NAME = "row_id";
+    private static final int INDEX_ORDER = 10;
+    private static final byte INDEX_ENTRY_ADDED = 1;
+    private static final byte INDEX_ENTRY_REMOVED = 2;
+    private static final byte FREE_ROW_BLOCK_ADDED = 3;
+    private static final byte FREE_ROW_BLOCK_REMOVED = 4;
+    public static final int METADATA_CHANGE_SIZE_IN_BYTES = 1 + 8 + 8;
+    private static final long CHECKPOINT_LOG_SIZE_IN_BYTES = 4L << 20; // 4 MiB
+    // Checkpoints run in the background so inserts only ever wait for the write-ahead log.
+    private static final ExecutorService CHECKPOINTER = Executors.newSingleThreadExecutor(runnable -> {
+        final var thread = new Thread(runnable, "checkpointer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public Table(String name, Column[] schema) {
-        this(name, schema, StorageMedium.DISK);
+        this(name, schema, newStorageHandler(name, StorageMedium.DISK));
     }
     
-    private Table(String name, Column[] schema, StorageMedium storageMedium) {
+    private Table(String name, Column[] schema, StorageHandler storageHandler) {
+        this(name, schema, storageHandler, new ConcurrentBPlusTree(INDEX_ORDER));
+    }
+
+    private Table(String name, Column[] schema, StorageHandler storageHandler, BPlusTree data) {
        this.name = name;
        this.schema = schema;
        rowSequenceId = 0;
        rowSizeInBytes = Stream.of(schema).mapToInt(Column::getSize).sum();
-       data = new BPlusTree(10);
+       this.data = data;
        freeRowBlocks = new ArrayList<>();
-       switch (storageMedium) {
-           case DISK -> storageHandler = new Disk(name);
-           case MEMORY -> storageHandler = new Memory();
-       }
+       metadataChanges = new ByteArrayOutputStream();
+       this.storageHandler = storageHandler;
+       indexes = new CopyOnWriteArrayList<>();
+    }
+
+    private record IndexColumns(List<String> columnNames, List<String> includedColumnNames) {
+    }
+
+    private static StorageHandler newStorageHandler(String name, StorageMedium storageMedium) {
+        return switch (storageMedium) {
+            case DISK -> new Disk(name);
+            case MAPPED_DISK -> new MappedDisk(name);
+            case BUFFERED_DISK -> new BufferedDisk(name);
+            case MEMORY -> new Memory();
+        };
     }
 
     public static void create(String name, Column[] schema) {
@@ -53,21 +114,66 @@ public class Table implements Serializable {
 
         final var table = new Table(name, fullSchema);
         table.storageHandler.flushMetadata(table);
+
+        // Don't replay a log left behind by an earlier table with the same name.
+        final var writeAheadLog = new WriteAheadLog(name);
+        writeAheadLog.truncate();
+        writeAheadLog.close();
     }
 
     /**
      * Fetch table from disk.
      */
     public static Table load(String name) {
-        final var fileHandler = new Disk(name);
-        final var table = fileHandler.loadTable();
+        return load(name, StorageMedium.DISK);
+    }
+
+    /**
+     * Fetch table from the given storage medium.
+     */
+    public static Table load(String name, StorageMedium storageMedium) {
+        final var storageHandler = newStorageHandler(name, storageMedium);
+        final Table table;
+        try {
+            table = storageHandler.loadTable();
+        } catch (IllegalStateException e) {
+            storageHandler.close();
+            throw e;
+        }
         if (table == null) {
+            storageHandler.close();
             return null;
         }
-        table.storageHandler = fileHandler;
+        table.storageHandler = storageHandler;
+        table.openIndexes();
+        if (storageMedium != StorageMedium.MEMORY) {
+            table.writeAheadLog = new WriteAheadLog(name);
+            table.recover();
+        }
         return table;
     }
 
+    /**
+     * Open the indexes read from the metadata. An index file is only used if it was last flushed along with the
+     * metadata (see {@link #checkpoint}), otherwise the index is rebuilt from the rows.
+     */
+    private void openIndexes() {
+        if (unopenedIndexes == null) {
+            return;
+        }
+        for (var indexColumns : unopenedIndexes) {
+            final var indexName = getIndexName(indexes.size());
+            var index = newIndex(indexColumns.columnNames(), indexColumns.includedColumnNames(), storageHandler.openIndexFile(indexName, false));
+            if (index.getVersion() != rowSequenceId) {
+                index.close();
+                index = newIndex(indexColumns.columnNames(), indexColumns.includedColumnNames(), storageHandler.openIndexFile(indexName, true));
+                buildIndex(index);
+            }
+            indexes.add(index);
+        }
+        unopenedIndexes = null;
+    }
+
     public String getName() {
         return name;
     }
@@ -88,6 +194,164 @@ public class Table implements Serializable {
         return data;
     }
 
+    public StorageHandler getStorageHandler() {
+        return storageHandler;
+    }
+
+    /**
+     * Metadata format:
+     * Name + Row sequence ID (4 bytes) + Number of columns (4 bytes) + Columns + Number of secondary indexes (4 bytes)
+     * + Secondary indexes
+     * Secondary index format:
+     * Number of key columns (4 bytes) + Key column names + Number of included columns (4 bytes) + Included column names
+     * The index and free row blocks are kept as a list of changes instead, see {@link #writeMetadataChanges}.
+     */
+    public void writeMetadata(DataOutputStream output) throws IOException {
+        output.writeUTF(name);
+        output.writeInt(rowSequenceId);
+        output.writeInt(schema.length);
+        for (var column : schema) {
+            column.write(output);
+        }
+        output.writeInt(indexes.size());
+        for (var index : indexes) {
+            writeColumnNames(output, index.getKeyColumns());
+            writeColumnNames(output, index.getIncludedColumns());
+        }
+    }
+
+    private static void writeColumnNames(DataOutputStream output, Column[] columns) throws IOException {
+        output.writeInt(columns.length);
+        for (var column : columns) {
+            output.writeUTF(column.getName());
+        }
+    }
+
+    private static List<String> readColumnNames(DataInputStream input) throws IOException {
+        final var columnNames = new ArrayList<String>();
+        for (var numberOfColumns = input.readInt(); numberOfColumns > 0; numberOfColumns--) {
+            columnNames.add(input.readUTF());
+        }
+        return columnNames;
+    }
+
+    /**
+     * Write changes to the index and free row blocks since the last call, or the full index and free row blocks as
+     * changes to an empty table if all is set.
+     * Change format:
+     * Change type (1 byte) + Key or row block pointer (8 bytes) + Value (8 bytes)
+     */
+    public void writeMetadataChanges(DataOutputStream output, boolean all) throws IOException {
+        if (all) {
+            metadataChanges.reset();
+            data.forEachEntry((key, value) -> recordMetadataChange(INDEX_ENTRY_ADDED, key, value));
+            for (var rowBlock : freeRowBlocks) {
+                recordMetadataChange(FREE_ROW_BLOCK_ADDED, rowBlock, 0);
+            }
+        }
+        metadataChanges.writeTo(output);
+        metadataChanges.reset();
+    }
+
+    /**
+     * Number of changes that writing the full index and free row blocks takes, see {@link #writeMetadataChanges}.
+     */
+    public synchronized long getNumberOfLiveMetadataChanges() {
+        return numberOfIndexEntries + freeRowBlocks.size();
+    }
+
+    /**
+     * Rebuild a table from its metadata and the list of changes to its index and free row blocks.
+     */
+    public static Table readMetadata(DataInputStream input, DataInputStream changesInput, long numberOfChanges) throws IOException {
+        final var name = input.readUTF();
+        final var rowSequenceId = input.readInt();
+        final var schema = new Column[input.readInt()];
+        for (var columnIndex = 0; columnIndex < schema.length; columnIndex++) {
+            schema[columnIndex] = Column.read(input);
+        }
+        final var indexColumns = new ArrayList<IndexColumns>();
+        for (var numberOfIndexes = input.readInt(); numberOfIndexes > 0; numberOfIndexes--) {
+            indexColumns.add(new IndexColumns(readColumnNames(input), readColumnNames(input)));
+        }
+
+        // Index entries are mostly added in row ID order (and always are after a full flush), so the index is bulk
+        // loaded until an entry is added out of order or removed. From then on changes are applied to the loaded tree.
+        final var bulkLoader = new BulkLoader(INDEX_ORDER, 1.0);
+        BPlusTree data = null;
+        final var freeRowBlocks = new ArrayList<Long>();
+        var numberOfIndexEntries = 0L;
+        for (var changeIndex = 0L; changeIndex < numberOfChanges; changeIndex++) {
+            final var changeType = changesInput.readByte();
+            final var key = changesInput.readLong();
+            final var value = changesInput.readLong();
+            if (data == null && (changeType == INDEX_ENTRY_REMOVED || (changeType == INDEX_ENTRY_ADDED && !bulkLoader.canAdd(key)))) {
+                data = bulkLoader.build();
+            }
+            switch (changeType) {
+                case INDEX_ENTRY_ADDED -> {
+                    if (data == null) {
+                        bulkLoader.add(key, value);
+                    } else {
+                        data.insert(key, value);
+                    }
+                    numberOfIndexEntries++;
+                }
+                case INDEX_ENTRY_REMOVED -> {
+                    data.delete(key);
+                    numberOfIndexEntries--;
+                }
+                case FREE_ROW_BLOCK_ADDED -> freeRowBlocks.add(key);
+                case FREE_ROW_BLOCK_REMOVED -> freeRowBlocks.remove(Long.valueOf(key));
+                default -> throw new IOException("Unknown metadata change type " + changeType + ".");
+            }
+        }
+
+        final var table = new Table(name, schema, null, new ConcurrentBPlusTree(data == null ? bulkLoader.build() : data));
+        table.rowSequenceId = rowSequenceId;
+        table.freeRowBlocks.addAll(freeRowBlocks);
+        table.numberOfIndexEntries = numberOfIndexEntries;
+        // Opening the indexes takes the storage handler, see load.
+        table.unopenedIndexes = indexColumns;
+        return table;
+    }
+
+    /**
+     * Tables stored before the binary metadata format are read with Java serialization, which leaves the transient
+     * fields unset and the index in a plain tree. Build the table again from what was stored, with the index loaded
+     * into a fresh tree from its leaves, which only depends on the leaves still being read correctly.
+     */
+    @Serial
+    private Object readResolve() {
+        final var bulkLoader = new BulkLoader(INDEX_ORDER, 1.0);
+        final var entriesOutOfOrder = new ArrayList<long[]>();
+        data.forEachEntry((key, value) -> {
+            if (entriesOutOfOrder.isEmpty() && bulkLoader.canAdd(key)) {
+                bulkLoader.add(key, value);
+            } else {
+                entriesOutOfOrder.add(new long[] { key, value });
+            }
+        });
+
+        final var table = new Table(name, schema, null, new ConcurrentBPlusTree(bulkLoader.build()));
+        for (var entry : entriesOutOfOrder) {
+            table.data.insert(entry[0], entry[1]);
+        }
+        table.rowSequenceId = rowSequenceId;
+        table.freeRowBlocks.addAll(freeRowBlocks);
+        table.data.forEachEntry((key, value) -> table.numberOfIndexEntries++);
+        return table;
+    }
+
+    private void recordMetadataChange(byte changeType, long key, long value) {
+        final var change = ByteBuffer.allocate(METADATA_CHANGE_SIZE_IN_BYTES)
+                .put(changeType)
+                .putLong(key)
+                .putLong(value)
+                .array();
+        metadataChanges.writeBytes(change);
+    }
+
     /**
      * Extract fields in row.
      */
@@ -113,50 +377,118 @@ public class Table implements Serializable {
     private List<byte[][]> fetchRange(long fromRow, long toRow) {
         List<byte[][]> rows = new ArrayList<>();
 
-        List<Long> rowPointers = data.search(fromRow, toRow);
-        for (var rowPointer : rowPointers) {
-            final var seekPosition = (long) rowPointer;
-            final var bytes = storageHandler.readData(seekPosition, rowSizeInBytes);
-            rows.add(bytesToRow(bytes));
+        // Read each row as the cursor reaches it rather than collecting every row pointer first.
+        try (var cursor = data.cursor()) {
+            for (var isValid = cursor.seek(fromRow); isValid && cursor.getKey() <= toRow; isValid = cursor.next()) {
+                final var bytes = storageHandler.readData(cursor.getValue(), rowSizeInBytes);
+                rows.add(bytesToRow(bytes));
+            }
         }
 
         return rows;
     }
 
     /**
-     * Filter out fields for unspecified columns in query.
+     * Read the row stored at the given pointer without deserializing it.
+     */
+    public byte[] readRowBytes(long rowPointer) {
+        return storageHandler.readData(rowPointer, rowSizeInBytes);
+    }
+
+    private int getColumnIndex(String columnName) {
+        return getColumnIndex(schema, columnName);
+    }
+
+    /**
+     * Index of the column in the given columns of the table, like the columns an index keeps a copy of.
      */
-    private Object[] columnsFilter(Object[] row, List<String> columnNames) {
-        if (columnNames.isEmpty()) {
-            // No columns specified so return all fields in the row.
-            return row;
+    private int getColumnIndex(Column[] columns, String columnName) {
+        for (var columnIndex = 0; columnIndex < columns.length; columnIndex++) {
+            if (columns[columnIndex].getName().equals(columnName)) {
+                return columnIndex;
+            }
         }
+        throw new IllegalArgumentException(String.format("Column %s does not exist in table %s.", columnName, name));
+    }
 
-        List<Object> newRow = new ArrayList<>();
-        for (var columnName : columnNames) {
-            final var columnIndex = IntStream.range(0, schema.length)
-                    .filter(i -> schema[i].getName().equals(columnName))
-                    .findFirst()
-                    .orElseThrow();
-            newRow.add(row[columnIndex]);
+    /**
+     * Compare rows by the columns in the order by clause, with nulls first. The rows hold the fields with the given
+     * indexes into the row schema.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<Object[]> getRowComparator(LinkedHashMap<String, Order> orderByClause, Column[] rowSchema, List<Integer> fieldIndexes) {
+        Comparator<Object[]> comparator = (a, b) -> 0;
+        for (var entry : orderByClause.entrySet()) {
+            final var columnIndex = fieldIndexes.indexOf(getColumnIndex(rowSchema, entry.getKey()));
+            Comparator<Object[]> columnComparator = Comparator.comparing(
+                    row -> (Comparable) row[columnIndex], Comparator.nullsFirst(Comparator.naturalOrder()));
+            if (entry.getValue() == Order.DESCENDING) {
+                columnComparator = columnComparator.reversed();
+            }
+            comparator = comparator.thenComparing(columnComparator);
         }
-        return newRow.toArray();
+        return comparator;
     }
 
-    private boolean whereClauseFilter(Object[] row, List<Token> whereClause) {
-        final var variables = new HashMap<String, Object>();
-        for (var fieldIndex = 0; fieldIndex < schema.length; fieldIndex++) {
-            final var columnName = schema[fieldIndex].getName();
-            final var fieldValue = row[fieldIndex];
-            variables.put(columnName, fieldValue);
+    /**
+     * Compile the where clause once for the whole query. Column references read their field straight from the row
+     * bytes, so a row is only deserialized in full if it matches.
+     */
+    private BatchPredicate whereClauseFilter(List<Token> whereClause, Column[] rowSchema) {
+        final var condition = Compiler.compile(whereClause, columnName -> getFieldReader(rowSchema, columnName));
+        if (condition instanceof Compiler.BoolExpression<byte[]> boolCondition) {
+            return (batch, selection) -> {
+                var numberSelected = 0;
+                for (var rowIndex = 0; rowIndex < batch.size(); rowIndex++) {
+                    if (boolCondition.evaluateBool(batch.getRow(rowIndex))) {
+                        selection[numberSelected++] = rowIndex;
+                    }
+                }
+                return numberSelected;
+            };
         }
+        return (batch, selection) -> {
+            var numberSelected = 0;
+            for (var rowIndex = 0; rowIndex < batch.size(); rowIndex++) {
+                final var result = condition.evaluate(batch.getRow(rowIndex));
+                if (!(result instanceof Boolean)) {
+                    throw new IllegalStateException("Useless where clause!!!");
+                }
+                if ((Boolean) result) {
+                    selection[numberSelected++] = rowIndex;
+                }
+            }
+            return numberSelected;
+        };
+    }
 
-        final var evaluator = new Evaluator(variables);
-        final var result = evaluator.evaluate(whereClause);
-        if (!(result instanceof Boolean)) {
-            throw new IllegalStateException("Useless where clause!!!");
+    /**
+     * Closure that reads a column's value from the bytes of a row of the given schema. Columns are looked up like the
+     * Evaluator looks up variables: case-insensitively, and null if there's no such column. Number columns are typed,
+     * so the compiled where clause doesn't box them.
+     */
+    private static Compiler.CompiledExpression<byte[]> getFieldReader(Column[] rowSchema, String columnName) {
+        var columnIndex = -1;
+        var columnOffset = 0;
+        var offset = 0;
+        for (var index = 0; index < rowSchema.length; index++) {
+            if (rowSchema[index].getName().equalsIgnoreCase(columnName)) {
+                columnIndex = index;
+                columnOffset = offset;
+            }
+            offset += rowSchema[index].getSize();
+        }
+        if (columnIndex == -1) {
+            return row -> null;
         }
-        return Boolean.parseBoolean(result.toString());
+
+        final var dataType = rowSchema[columnIndex].getDataType();
+        final var fieldOffset = columnOffset;
+        return switch (dataType) {
+            case INT -> Compiler.number(row -> ByteBuffer.wrap(row).getInt(fieldOffset), row -> dataType.getData(row, fieldOffset));
+            case FLOAT -> Compiler.number(row -> ByteBuffer.wrap(row).getFloat(fieldOffset), row -> dataType.getData(row, fieldOffset));
+            case STRING, BOOL -> row -> dataType.getData(row, fieldOffset);
+        };
     }
 
     public Object[] deserializeRow(byte[][] row, Column[] schema) {
@@ -171,75 +503,332 @@ public class Table implements Serializable {
         return fetchRange(1, rowSequenceId); // TODO: Use Table#select.
     }
 
+    /**
+     * Plan the query as scan -> filter -> sort. The scan only reads the rows that the where clause's conditions on an
+     * indexed column allow, and doesn't read the rows at all if an index keeps a copy of every column the query uses
+     * (see {@link #getAccessPath}). Nothing is read until the rows of the result are, and then only a row at a time
+     * (apart from sorting), so memory use doesn't grow with the size of the table.
+     * Where clauses are evaluated on the raw bytes of a batch of rows, vectorized when they can be (see
+     * {@link VectorizedPredicate}). Only the result columns (and the order by columns, until the rows are sorted)
+     * are decoded from the rows.
+     */
     public Result select(List<String> columns, List<Token> whereClause, LinkedHashMap<String, Order> orderByClause) {
-        List<byte[][]> serializedRows = fetchRange(1, rowSequenceId);
-        List<Object[]> rows = new ArrayList<>();
-        for (var serializedRow : serializedRows) {
-            var row = deserializeRow(serializedRow, schema);
-
-            // where filter
-            if (!whereClause.isEmpty()) {
-                final var returnRow = whereClauseFilter(row, whereClause);
-                if (!returnRow) {
-                    continue;
+        return select(columns, whereClause, orderByClause, null);
+    }
+
+    /**
+     * Select at most limit rows, or all of them if limit is null. With an order by clause only the first limit rows are
+     * held while sorting (see {@link TopN}), without one the rows stop being read once there are enough.
+     */
+    public Result select(List<String> columns, List<Token> whereClause, LinkedHashMap<String, Order> orderByClause, Integer limit) {
+        final var resultColumns = columns.isEmpty()
+                ? Arrays.stream(schema).map(Column::getName).toArray(String[]::new)
+                : columns.toArray(String[]::new);
+        final var isSorted = orderByClause != null && !orderByClause.isEmpty();
+        final var usedColumnNames = new HashSet<String>();
+        for (var columnName : resultColumns) {
+            usedColumnNames.add(schema[getColumnIndex(columnName)].getName());
+        }
+        if (isSorted) {
+            for (var columnName : orderByClause.keySet()) {
+                usedColumnNames.add(schema[getColumnIndex(columnName)].getName());
+            }
+        }
+        for (var token : whereClause) {
+            if (token.getTokenType() == TokenType.IDENTIFIER) {
+                // Where clauses look up columns case-insensitively, with later columns taking precedence.
+                Arrays.stream(schema)
+                        .map(Column::getName)
+                        .filter(columnName -> columnName.equalsIgnoreCase(token.getValue()))
+                        .reduce((first, second) -> second)
+                        .ifPresent(usedColumnNames::add);
+            }
+        }
+
+        final var accessPath = getAccessPath(whereClause, usedColumnNames);
+        final var coveringIndex = accessPath.coveringIndex();
+        // Rows read from a covering index only have the columns it keeps a copy of.
+        final var rowSchema = coveringIndex == null ? schema : coveringIndex.getCoveredSchema();
+        final var fieldIndexes = new ArrayList<Integer>();
+        for (var columnName : resultColumns) {
+            fieldIndexes.add(getColumnIndex(rowSchema, columnName));
+        }
+        if (isSorted) {
+            for (var columnName : orderByClause.keySet()) {
+                final var columnIndex = getColumnIndex(rowSchema, columnName);
+                if (!fieldIndexes.contains(columnIndex)) {
+                    fieldIndexes.add(columnIndex);
                 }
             }
+        }
+
+        final var decoder = new RowDecoder(rowSchema, fieldIndexes.stream().mapToInt(Integer::intValue).toArray());
+        final var scan = accessPath.indexRows() == null
+                ? new TableScan(this, data, accessPath.rowIdRanges(), decoder)
+                : new TableScan(accessPath.indexRows(), decoder);
+        Operator plan = scan;
+        if (!whereClause.isEmpty()) {
+            BatchPredicate predicate = VectorizedPredicate.compile(whereClause, rowSchema);
+            if (predicate == null) {
+                predicate = whereClauseFilter(whereClause, rowSchema);
+            }
+            plan = new BatchFilter(scan, rowSchema, decoder, predicate);
+        }
+        if (isSorted) {
+            final var comparator = getRowComparator(orderByClause, rowSchema, fieldIndexes);
+            plan = limit == null ? new Sort(plan, comparator) : new TopN(plan, comparator, limit);
+            if (fieldIndexes.size() > resultColumns.length) {
+                // Drop the order by columns that were only decoded for sorting.
+                plan = new Project(plan, IntStream.range(0, resultColumns.length).toArray());
+            }
+        } else if (limit != null) {
+            plan = new Limit(plan, limit);
+        }
 
-            // order by filter
+        final var resultColumnTypes = fieldIndexes.stream()
+                .limit(resultColumns.length)
+                .map(columnIndex -> rowSchema[columnIndex].getDataType())
+                .toArray(DataType[]::new);
+        return new Result(resultColumns, resultColumnTypes, plan, this);
+    }
+
+    /**
+     * Where a scan reads the rows of a query from: the row ID ranges to read, or the rows of the entries of a secondary
+     * index to read instead, and the index that keeps a copy of the columns of the rows if they're read from there
+     * instead of the table.
+     */
+    private record AccessPath(List<KeyRange> rowIdRanges, RowSource indexRows, SecondaryIndex coveringIndex) {
+    }
 
-            // columns filter
-            row = columnsFilter(row, columns);
+    /**
+     * Read the rows the where clause can match through the row ID index if it has conditions on the row ID, otherwise
+     * through the first secondary index it has conditions on (preferring ones that keep a copy of the used columns).
+     * With neither, all rows are read from an index that keeps a copy of the used columns if there is one, since that
+     * doesn't touch the table's data, otherwise from the table.
+     */
+    private AccessPath getAccessPath(List<Token> whereClause, Set<String> usedColumnNames) {
+        if (!whereClause.isEmpty()) {
+            final var rowIdRanges = KeyRangePlanner.plan(whereClause, schema, ROW_ID_COLUMN_NAME,
+                    (operator, value) -> value instanceof Double number ? KeyRangePlanner.getIntegerRanges(operator, number) : null);
+            if (rowIdRanges != null) {
+                return new AccessPath(KeyRangePlanner.intersect(rowIdRanges, List.of(new KeyRange(1, rowSequenceId))), null, null);
+            }
 
-            rows.add(row);
+            AccessPath indexPath = null;
+            for (var index : indexes) {
+                final var keyRanges = index.getKeyRanges(whereClause, schema);
+                if (keyRanges != null && covers(index, usedColumnNames)) {
+                    return new AccessPath(null, index.scan(keyRanges, this, true), index);
+                } else if (keyRanges != null && indexPath == null) {
+                    indexPath = new AccessPath(null, index.scan(keyRanges, this, false), null);
+                }
+            }
+            if (indexPath != null) {
+                return indexPath;
+            }
         }
 
-        final var resultColumns = columns.isEmpty()
-                ? Arrays.stream(schema).map(Column::getName).toArray(String[]::new)
-                : columns.toArray(String[]::new);
-        return new Result(resultColumns, rows.toArray(Object[][]::new), this);
+        for (var index : indexes) {
+            if (covers(index, usedColumnNames)) {
+                return new AccessPath(null, index.scan(this, true), index);
+            }
+        }
+        return new AccessPath(List.of(new KeyRange(1, rowSequenceId)), null, null);
+    }
+
+    private static boolean covers(SecondaryIndex index, Set<String> columnNames) {
+        final var coveredSchema = index.getCoveredSchema();
+        return coveredSchema != null
+                && Arrays.stream(coveredSchema).map(Column::getName).collect(Collectors.toSet()).containsAll(columnNames);
+    }
+
+    /**
+     * Index the columns so where clauses comparing them to literals only read the rows that can match, and keep a copy
+     * of the included columns in the index so queries that only use those and the indexed columns don't read the rows
+     * at all. The index is built from the rows already in the table and kept up to date by inserts.
+     */
+    public synchronized void createIndex(List<String> columnNames, List<String> includedColumnNames) {
+        if (columnNames.contains(ROW_ID_COLUMN_NAME)) {
+            throw new IllegalArgumentException(String.format("Column %s is already indexed.", ROW_ID_COLUMN_NAME));
+        }
+        final var keyColumns = columnNames.stream().map(columnName -> schema[getColumnIndex(columnName)]).toArray(Column[]::new);
+        final var isIndexed = indexes.stream().anyMatch(existingIndex -> Arrays.equals(existingIndex.getKeyColumns(), keyColumns));
+        if (isIndexed) {
+            throw new IllegalArgumentException(String.format("Columns %s are already indexed.", String.join(", ", columnNames)));
+        }
+
+        final var index = newIndex(columnNames, includedColumnNames, storageHandler.openIndexFile(getIndexName(indexes.size()), true));
+        buildIndex(index);
+        indexes.add(index);
+        // The indexed columns are stored in the metadata.
+        if (writeAheadLog == null) {
+            storageHandler.flushMetadata(this);
+        } else {
+            checkpoint();
+        }
+    }
+
+    private SecondaryIndex newIndex(List<String> columnNames, List<String> includedColumnNames, DataStore indexFile) {
+        final var columnIndexes = columnNames.stream().mapToInt(this::getColumnIndex).toArray();
+        final var includedColumnIndexes = includedColumnNames.stream().mapToInt(this::getColumnIndex).toArray();
+        return new SecondaryIndex(schema, columnIndexes, includedColumnIndexes, indexFile);
+    }
+
+    /**
+     * Indexes are stored in the metadata in the order they were created, so their position names their index file.
+     */
+    private static String getIndexName(int position) {
+        return "index_" + position;
+    }
+
+    private void buildIndex(SecondaryIndex index) {
+        try (var cursor = data.cursor()) {
+            for (var isValid = cursor.seekToFirst(); isValid; isValid = cursor.next()) {
+                index.add(readRowBytes(cursor.getValue()), (int) cursor.getKey(), cursor.getValue());
+            }
+        }
     }
 
     public void insert(Map<String, Object> newData) throws Exception {
-        // Add row ID.
-        final var rowId = newRowSequenceId();
-        newData.put(ROW_ID_COLUMN_NAME, rowId);
+        final long logSequenceNumber;
+        synchronized (this) {
+            // Add row ID.
+            final var rowId = newRowSequenceId();
+            newData.put(ROW_ID_COLUMN_NAME, rowId);
+
+            // Convert data to bytes.
+            final var outputStream = new ByteArrayOutputStream();
+            for (var column : schema) {
+                final var fieldValue = newData.get(column.getName());
+                column.validate(fieldValue);
+
+                final var fieldValueBytes = column.getDataType().getBytes(fieldValue, column.getSize());
+                outputStream.write(fieldValueBytes);
+            }
+            final var rowBytes = outputStream.toByteArray();
+
+             // Write bytes to disk.
+            long seekPosition;
+            // Check for free row blocks.
+            if (freeRowBlocks.size() > 0) {
+                seekPosition = freeRowBlocks.get(0); // Take first block.
+                freeRowBlocks.remove(0); // It's no longer free now.
+                recordMetadataChange(FREE_ROW_BLOCK_REMOVED, seekPosition, 0);
+            } else {
+                // No free blocks? Go to end of file.
+                seekPosition = storageHandler.getEOFPointerForData();
+            }
+            if (seekPosition == 0) { // File is empty.
+                // First 8 bytes is for storing number of rows, so move forward by 8 bytes.
+                seekPosition = 8 * 8;
+            }
+            storageHandler.writeData(seekPosition, rowBytes);
+
+            // Update table size.
+            var numRowsBytes = storageHandler.readData(0, 8);
+            var numRows = ByteBuffer.wrap(numRowsBytes).getLong();
+            numRows++;
+            numRowsBytes = ByteBuffer.allocate(8).putLong(numRows).array();
+            storageHandler.writeData(0, numRowsBytes);
+
+            // Update B+ tree.
+            data.insert(rowId, seekPosition);
+            numberOfIndexEntries++;
+            recordMetadataChange(INDEX_ENTRY_ADDED, rowId, seekPosition);
+            for (var index : indexes) {
+                index.add(rowBytes, rowId, seekPosition);
+            }
 
-        // Convert data to bytes.
-        final var outputStream = new ByteArrayOutputStream();
-        for (var column : schema) {
-            final var fieldValue = newData.get(column.getName());
-            column.validate(fieldValue);
+            if (writeAheadLog == null) {
+                storageHandler.flushMetadata(this);
+                return;
+            }
+            // The data and metadata files are brought up to date by the next checkpoint.
+            final var logRecord = ByteBuffer.allocate(8 + 8 + 8 + rowBytes.length)
+                    .putLong(rowId)
+                    .putLong(seekPosition)
+                    .putLong(numRows)
+                    .put(rowBytes)
+                    .array();
+            logSequenceNumber = writeAheadLog.append(logRecord);
+        }
 
-            final var fieldValueBytes = column.getDataType().getBytes(fieldValue, column.getSize());
-            outputStream.write(fieldValueBytes);
+        // Wait outside the table lock so inserts from other threads can be committed along with this one.
+        writeAheadLog.commit(logSequenceNumber);
+        if (writeAheadLog.size() > CHECKPOINT_LOG_SIZE_IN_BYTES) {
+            requestCheckpoint();
         }
+    }
 
-         // Write bytes to disk.
-        long seekPosition;
-        // Check for free row blocks.
-        if (freeRowBlocks.size() > 0) {
-            seekPosition = freeRowBlocks.get(0); // Take first block.
-            freeRowBlocks.remove(0); // It's no longer free now.
-        } else {
-            // No free blocks? Go to end of file.
-            seekPosition = storageHandler.getEOFPointerForData();
-        }
-        if (seekPosition == 0) { // File is empty.
-            // First 8 bytes is for storing number of rows, so move forward by 8 bytes.
-            seekPosition = 8 * 8;
-        }
-        storageHandler.writeData(seekPosition, outputStream.toByteArray());
-        
-        // Update table size.
-        var numRowsBytes = storageHandler.readData(0, 8);
-        var numRows = ByteBuffer.wrap(numRowsBytes).getLong();
-        numRows++;
-        numRowsBytes = ByteBuffer.allocate(8).putLong(numRows).array();
-        storageHandler.writeData(0, numRowsBytes);
-
-        // Update B+ tree.
-        data.insert(rowId, seekPosition);
+    /**
+     * Reapply inserts in the write-ahead log that didn't make it into the last checkpoint.
+     */
+    private synchronized void recover() {
+        for (var logRecord : writeAheadLog.readRecords()) {
+            final var buffer = ByteBuffer.wrap(logRecord);
+            final var rowId = (int) buffer.getLong();
+            final var seekPosition = buffer.getLong();
+            final var numRows = buffer.getLong();
+            final var rowBytes = new byte[buffer.remaining()];
+            buffer.get(rowBytes);
+
+            if (rowId <= rowSequenceId) {
+                continue; // Already checkpointed.
+            }
+            storageHandler.writeData(seekPosition, rowBytes);
+            storageHandler.writeData(0, ByteBuffer.allocate(8).putLong(numRows).array());
+            data.insert(rowId, seekPosition);
+            numberOfIndexEntries++;
+            recordMetadataChange(INDEX_ENTRY_ADDED, rowId, seekPosition);
+            for (var index : indexes) {
+                index.add(rowBytes, rowId, seekPosition);
+            }
+            if (freeRowBlocks.remove(Long.valueOf(seekPosition))) {
+                recordMetadataChange(FREE_ROW_BLOCK_REMOVED, seekPosition, 0);
+            }
+            rowSequenceId = rowId;
+        }
+
+        if (writeAheadLog.size() > 0) {
+            checkpoint();
+        }
+    }
+
+    private void requestCheckpoint() {
+        synchronized (this) {
+            if (isCheckpointPending) {
+                return;
+            }
+            isCheckpointPending = true;
+        }
+        CHECKPOINTER.submit(() -> {
+            try {
+                checkpoint();
+            } finally {
+                synchronized (this) {
+                    isCheckpointPending = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Write everything in the write-ahead log to the data, index and metadata files, then empty the log. The index files
+     * are flushed with the row sequence ID the metadata is written with, so loading the table can tell if they're up to
+     * date with it.
+     */
+    public synchronized void checkpoint() {
+        if (writeAheadLog == null) {
+            return;
+        }
+        // Inserts append to the log while holding the table lock, so nothing can be added to it until we're done.
+        writeAheadLog.commit(writeAheadLog.getLastSequenceNumber());
+        storageHandler.flush();
+        for (var index : indexes) {
+            index.flush(rowSequenceId);
+        }
         storageHandler.flushMetadata(this);
+        writeAheadLog.truncate();
     }
 
     public void update(Query query) {}
@@ -257,19 +846,20 @@ public class Table implements Serializable {
 
     public Result describe() {
         final var resultColumns = new String[] {"name", "data_type", "is_required", "default_value", "size_in_bytes"};
+        final var resultColumnTypes = new DataType[] {DataType.STRING, DataType.STRING, DataType.BOOL, DataType.STRING, DataType.INT};
         final var rows = new Object[schema.length][];
         for (var columnIndex = 0; columnIndex < schema.length; columnIndex++) {
             final var column = schema[columnIndex];
 
             rows[columnIndex] = new Object[] {
                     column.getName(),
-                    column.getDataType(),
+                    column.getDataType().name(),
                     column.isRequired(),
-                    column.getDefaultValue(),
+                    column.getDefaultValue() == null ? null : column.getDefaultValue().toString(),
                     column.getSizeInBytes(),
             };
         }
 
-        return new Result(resultColumns, rows, this);
+        return new Result(resultColumns, resultColumnTypes, rows, this);
     }
 }
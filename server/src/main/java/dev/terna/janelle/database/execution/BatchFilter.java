@@ -0,0 +1,48 @@
+package dev.terna.janelle.database.execution;
+
+import dev.terna.janelle.database.Column;
+
+/**
+ * Filters the rows of a table scan a batch at a time, straight from their bytes. Only the rows that match are
+ * deserialized.
+ */
+public class BatchFilter implements Operator {
+    private final TableScan input;
+    private final RowDecoder decoder;
+    private final BatchPredicate predicate;
+    private final ColumnBatch batch;
+    private final int[] selection = new int[ColumnBatch.CAPACITY];
+    private int numberSelected;
+    private int position;
+
+    public BatchFilter(TableScan input, Column[] schema, RowDecoder decoder, BatchPredicate predicate) {
+        this.input = input;
+        this.decoder = decoder;
+        this.predicate = predicate;
+        batch = new ColumnBatch(schema);
+    }
+
+    @Override
+    public void open() {
+        input.open();
+        numberSelected = 0;
+        position = 0;
+    }
+
+    @Override
+    public Object[] next() {
+        while (position == numberSelected) {
+            if (!input.nextBatch(batch)) {
+                return null;
+            }
+            numberSelected = predicate.select(batch, selection);
+            position = 0;
+        }
+        return decoder.decode(batch.getRow(selection[position++]));
+    }
+
+    @Override
+    public void close() {
+        input.close();
+    }
+}
@@ -0,0 +1,13 @@
+package dev.terna.janelle.database.execution;
+
+/**
+ * Predicate over a batch of rows, read from their raw bytes so rows that don't match are never deserialized.
+ */
+@FunctionalInterface
+public interface BatchPredicate {
+    /**
+     * Find the rows of the batch that match. The indexes of the matching rows are written to the selection vector in
+     * order and the number of them is returned.
+     */
+    int select(ColumnBatch batch, int[] selection);
+}
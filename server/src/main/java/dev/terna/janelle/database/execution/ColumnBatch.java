@@ -0,0 +1,93 @@
+package dev.terna.janelle.database.execution;
+
+import dev.terna.janelle.database.Column;
+import dev.terna.janelle.database.DataType;
+
+/**
+ * A batch of rows of a table, kept as their raw bytes. Numeric columns are decoded into a primitive array for the
+ * whole batch the first time they're asked for, so operators can loop over a column without boxing a value per row.
+ * The batch and its arrays are reused for every batch of a scan.
+ */
+public class ColumnBatch {
+    public static final int CAPACITY = 1024;
+    private final Column[] schema;
+    private final int[] columnOffsets;
+    private final byte[][] rows = new byte[CAPACITY][];
+    private final double[][] numbers;
+    private final boolean[] isDecoded;
+    private int size;
+
+    public ColumnBatch(Column[] schema) {
+        this.schema = schema;
+        columnOffsets = new int[schema.length];
+        var offset = 0;
+        for (var columnIndex = 0; columnIndex < schema.length; columnIndex++) {
+            columnOffsets[columnIndex] = offset;
+            offset += schema[columnIndex].getSize();
+        }
+        numbers = new double[schema.length][];
+        isDecoded = new boolean[schema.length];
+    }
+
+    public void clear() {
+        size = 0;
+        for (var columnIndex = 0; columnIndex < schema.length; columnIndex++) {
+            isDecoded[columnIndex] = false;
+        }
+    }
+
+    public void add(byte[] row) {
+        if (size == CAPACITY) {
+            throw new IllegalStateException("Column batch is full.");
+        }
+        rows[size++] = row;
+    }
+
+    public boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] getRow(int rowIndex) {
+        return rows[rowIndex];
+    }
+
+    /**
+     * Offset of the column's field within each row.
+     */
+    public int getColumnOffset(int columnIndex) {
+        return columnOffsets[columnIndex];
+    }
+
+    /**
+     * Values of an INT or FLOAT column for every row in the batch, widened to doubles like the Evaluator does.
+     */
+    public double[] getNumbers(int columnIndex) {
+        if (isDecoded[columnIndex]) {
+            return numbers[columnIndex];
+        }
+
+        final var dataType = schema[columnIndex].getDataType();
+        if (dataType != DataType.INT && dataType != DataType.FLOAT) {
+            throw new IllegalArgumentException("Column " + schema[columnIndex].getName() + " is not numeric.");
+        }
+        if (numbers[columnIndex] == null) {
+            numbers[columnIndex] = new double[CAPACITY];
+        }
+        final var values = numbers[columnIndex];
+        final var offset = columnOffsets[columnIndex];
+        for (var rowIndex = 0; rowIndex < size; rowIndex++) {
+            final var row = rows[rowIndex];
+            final var bits = (row[offset] & 0xFF) << 24
+                    | (row[offset + 1] & 0xFF) << 16
+                    | (row[offset + 2] & 0xFF) << 8
+                    | (row[offset + 3] & 0xFF);
+            values[rowIndex] = dataType == DataType.INT ? bits : Float.intBitsToFloat(bits);
+        }
+        isDecoded[columnIndex] = true;
+        return values;
+    }
+}
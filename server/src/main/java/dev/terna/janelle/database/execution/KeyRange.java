@@ -0,0 +1,7 @@
+package dev.terna.janelle.database.execution;
+
+/**
+ * Keys of an index from and to, both inclusive.
+ */
+public record KeyRange(long from, long to) {
+}
@@ -0,0 +1,221 @@
+package dev.terna.janelle.database.execution;
+
+import dev.terna.janelle.database.Column;
+import dev.terna.janelle.sql.Parser;
+import dev.terna.janelle.sql.Token;
+import dev.terna.janelle.sql.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+/**
+ * Works out which keys of an index a where clause can match, so only those are read from the index instead of
+ * scanning the whole table. Comparisons of the indexed column to a literal become key ranges (equality usually to a
+ * single key, which is a point lookup), AND intersects ranges and OR unites them, so "row_id = 1 or row_id = 5" reads
+ * exactly two rows. Anything else could match any row.
+ * The ranges only ever hold more rows than the where clause matches, never fewer, so the where clause is still
+ * evaluated on the rows read.
+ */
+public class KeyRangePlanner {
+    // Stands for a reference to the indexed column in the where clause.
+    private static final Object COLUMN = new Object();
+    // Stands for a subexpression that could match any row, or isn't a condition on the indexed column at all.
+    private static final Object ANY = new Object();
+
+    /**
+     * Turns a comparison of the indexed column to a literal into the keys of the rows it can match.
+     */
+    @FunctionalInterface
+    public interface KeyRanges {
+        /**
+         * Keys of the rows for which "column operator value" can hold.
+         * @param value: the literal, which is a Double for numbers (they're widened like in the Evaluator), a String, a
+         *               Boolean or null
+         * @return sorted, non-overlapping key ranges, or null if any row can match
+         */
+        List<KeyRange> get(TokenType operator, Object value);
+    }
+
+    /**
+     * Get the sorted, non-overlapping key ranges that the where clause in postfix order can match, or null if it can
+     * match any row.
+     */
+    public static List<KeyRange> plan(List<Token> whereClause, Column[] schema, String columnName, KeyRanges keyRanges) {
+        final var stack = new Stack<Object>();
+        for (var token : whereClause) {
+            if (Parser.OPERANDS.contains(token.getTokenType())) {
+                stack.push(getOperand(token, schema, columnName));
+                continue;
+            }
+            if (stack.size() < 2) {
+                return null;
+            }
+            final var secondOperand = stack.pop();
+            final var firstOperand = stack.pop();
+            stack.push(combine(token.getTokenType(), firstOperand, secondOperand, keyRanges));
+        }
+
+        if (stack.size() != 1 || !(stack.peek() instanceof List<?> ranges)) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        final var keyRangeList = (List<KeyRange>) ranges;
+        return keyRangeList;
+    }
+
+    /**
+     * Keys for which "key operator value" holds, for keys that are whole numbers like row IDs. Returns null for
+     * operators that aren't comparisons.
+     */
+    public static List<KeyRange> getIntegerRanges(TokenType operator, double value) {
+        final var range = switch (operator) {
+            case EQUAL_OP -> new KeyRange((long) Math.ceil(value), (long) Math.floor(value));
+            case GREATER_THAN_OP -> new KeyRange((long) Math.floor(value) + 1, Long.MAX_VALUE);
+            case GREATER_THAN_OR_EQUAL_OP -> new KeyRange((long) Math.ceil(value), Long.MAX_VALUE);
+            case LESS_THAN_OP -> new KeyRange(Long.MIN_VALUE, (long) Math.ceil(value) - 1);
+            case LESS_THAN_OR_EQUAL_OP -> new KeyRange(Long.MIN_VALUE, (long) Math.floor(value));
+            default -> null;
+        };
+        if (range == null) {
+            return null;
+        }
+        return range.from() > range.to() ? List.of() : List.of(range);
+    }
+
+    public static List<KeyRange> intersect(List<KeyRange> first, List<KeyRange> second) {
+        final var ranges = new ArrayList<KeyRange>();
+        var i = 0;
+        var j = 0;
+        while (i < first.size() && j < second.size()) {
+            final var a = first.get(i);
+            final var b = second.get(j);
+            final var from = Math.max(a.from(), b.from());
+            final var to = Math.min(a.to(), b.to());
+            if (from <= to) {
+                ranges.add(new KeyRange(from, to));
+            }
+            if (a.to() < b.to()) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return ranges;
+    }
+
+    private static Object getOperand(Token token, Column[] schema, String columnName) {
+        switch (token.getTokenType()) {
+            // Numbers are widened to doubles like in the Evaluator.
+            case INT_LITERAL -> {
+                return new Literal((double) Integer.parseInt(token.getValue()));
+            }
+            case FLOAT_LITERAL -> {
+                return new Literal((double) Float.parseFloat(token.getValue()));
+            }
+            case STRING_LITERAL -> {
+                final var value = token.getValue();
+                return new Literal(value.substring(1, value.length() - 1));
+            }
+            case BOOL_LITERAL -> {
+                return new Literal(Boolean.parseBoolean(token.getValue()));
+            }
+            case NULL_LITERAL -> {
+                return new Literal(null);
+            }
+            case IDENTIFIER -> {
+                // Identifiers are case-insensitive and later columns take precedence, like in the Evaluator.
+                String identifiedColumnName = null;
+                for (var column : schema) {
+                    if (column.getName().equalsIgnoreCase(token.getValue())) {
+                        identifiedColumnName = column.getName();
+                    }
+                }
+                return columnName.equals(identifiedColumnName) ? COLUMN : ANY;
+            }
+            default -> {
+                return ANY;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object combine(TokenType operator, Object firstOperand, Object secondOperand, KeyRanges keyRanges) {
+        switch (operator) {
+            case AND -> {
+                if (firstOperand instanceof List<?> first && secondOperand instanceof List<?> second) {
+                    return intersect((List<KeyRange>) first, (List<KeyRange>) second);
+                } else if (firstOperand instanceof List<?> first && secondOperand == ANY) {
+                    return first;
+                } else if (firstOperand == ANY && secondOperand instanceof List<?> second) {
+                    return second;
+                }
+                return ANY;
+            }
+
+            case OR -> {
+                if (firstOperand instanceof List<?> first && secondOperand instanceof List<?> second) {
+                    return unite((List<KeyRange>) first, (List<KeyRange>) second);
+                }
+                return ANY;
+            }
+
+            case EQUAL_OP, GREATER_THAN_OP, GREATER_THAN_OR_EQUAL_OP, LESS_THAN_OP, LESS_THAN_OR_EQUAL_OP -> {
+                List<KeyRange> ranges = null;
+                if (firstOperand == COLUMN && secondOperand instanceof Literal literal) {
+                    ranges = keyRanges.get(operator, literal.value());
+                } else if (firstOperand instanceof Literal literal && secondOperand == COLUMN) {
+                    ranges = keyRanges.get(flip(operator), literal.value());
+                }
+                return ranges == null ? ANY : ranges;
+            }
+
+            default -> {
+                return ANY;
+            }
+        }
+    }
+
+    /**
+     * Turn "value operator column" into "column operator value".
+     */
+    private static TokenType flip(TokenType operator) {
+        return switch (operator) {
+            case GREATER_THAN_OP -> TokenType.LESS_THAN_OP;
+            case GREATER_THAN_OR_EQUAL_OP -> TokenType.LESS_THAN_OR_EQUAL_OP;
+            case LESS_THAN_OP -> TokenType.GREATER_THAN_OP;
+            case LESS_THAN_OR_EQUAL_OP -> TokenType.GREATER_THAN_OR_EQUAL_OP;
+            default -> operator;
+        };
+    }
+
+    private static List<KeyRange> unite(List<KeyRange> first, List<KeyRange> second) {
+        final var sorted = new ArrayList<KeyRange>(first.size() + second.size());
+        var i = 0;
+        var j = 0;
+        while (i < first.size() || j < second.size()) {
+            if (j == second.size() || (i < first.size() && first.get(i).from() <= second.get(j).from())) {
+                sorted.add(first.get(i++));
+            } else {
+                sorted.add(second.get(j++));
+            }
+        }
+
+        // Merge ranges that overlap or are next to each other.
+        final var ranges = new ArrayList<KeyRange>();
+        for (var range : sorted) {
+            final var last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && range.from() <= last.to() + 1 && last.to() != Long.MAX_VALUE) {
+                ranges.set(ranges.size() - 1, new KeyRange(last.from(), Math.max(last.to(), range.to())));
+            } else if (last != null && last.to() == Long.MAX_VALUE) {
+                break;
+            } else {
+                ranges.add(range);
+            }
+        }
+        return ranges;
+    }
+
+    private record Literal(Object value) {
+    }
+}
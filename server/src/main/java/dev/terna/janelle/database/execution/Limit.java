@@ -0,0 +1,38 @@
+package dev.terna.janelle.database.execution;
+
+/**
+ * Returns the first rows of its input, up to a number of rows. The input isn't read any further after that.
+ */
+public class Limit implements Operator {
+    private final Operator input;
+    private final int limit;
+    private int numberOfRows;
+
+    public Limit(Operator input, int limit) {
+        this.input = input;
+        this.limit = limit;
+    }
+
+    @Override
+    public void open() {
+        numberOfRows = 0;
+        input.open();
+    }
+
+    @Override
+    public Object[] next() {
+        if (numberOfRows == limit) {
+            return null;
+        }
+        final var row = input.next();
+        if (row != null) {
+            numberOfRows++;
+        }
+        return row;
+    }
+
+    @Override
+    public void close() {
+        input.close();
+    }
+}
@@ -0,0 +1,24 @@
+package dev.terna.janelle.database.execution;
+
+/**
+ * Step of a query plan. A plan is a tree of operators where each one pulls rows from the operators below it one at a
+ * time, so rows flow through the whole plan without being collected in between. Only operators that need all of their
+ * input before they can return anything, like Sort, hold on to rows.
+ */
+public interface Operator extends AutoCloseable {
+    /**
+     * Get ready to return rows. Must be called before next.
+     */
+    void open();
+
+    /**
+     * Return the next row, or null if there are no more.
+     */
+    Object[] next();
+
+    /**
+     * Release what the operator holds on to. The operator can be opened again afterwards.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,38 @@
+package dev.terna.janelle.database.execution;
+
+/**
+ * Returns the given fields of each row of its input, in the given order.
+ */
+public class Project implements Operator {
+    private final Operator input;
+    private final int[] fieldIndexes;
+
+    public Project(Operator input, int[] fieldIndexes) {
+        this.input = input;
+        this.fieldIndexes = fieldIndexes;
+    }
+
+    @Override
+    public void open() {
+        input.open();
+    }
+
+    @Override
+    public Object[] next() {
+        final var row = input.next();
+        if (row == null) {
+            return null;
+        }
+
+        final var projectedRow = new Object[fieldIndexes.length];
+        for (var i = 0; i < fieldIndexes.length; i++) {
+            projectedRow[i] = row[fieldIndexes[i]];
+        }
+        return projectedRow;
+    }
+
+    @Override
+    public void close() {
+        input.close();
+    }
+}
@@ -0,0 +1,40 @@
+package dev.terna.janelle.database.execution;
+
+import dev.terna.janelle.database.Column;
+import dev.terna.janelle.database.DataType;
+
+/**
+ * Decodes some of the fields of a row from its bytes. The offsets of the fields are worked out once up front, so each
+ * row only costs decoding the fields that are needed, and the rest of its bytes are never looked at.
+ */
+public class RowDecoder {
+    private final DataType[] dataTypes;
+    private final int[] offsets;
+
+    /**
+     * Constructor
+     * @param schema: schema of the rows
+     * @param fieldIndexes: indexes of the fields to decode, in the order they're returned in
+     */
+    public RowDecoder(Column[] schema, int[] fieldIndexes) {
+        final var columnOffsets = new int[schema.length];
+        for (var columnIndex = 1; columnIndex < schema.length; columnIndex++) {
+            columnOffsets[columnIndex] = columnOffsets[columnIndex - 1] + schema[columnIndex - 1].getSize();
+        }
+
+        dataTypes = new DataType[fieldIndexes.length];
+        offsets = new int[fieldIndexes.length];
+        for (var i = 0; i < fieldIndexes.length; i++) {
+            dataTypes[i] = schema[fieldIndexes[i]].getDataType();
+            offsets[i] = columnOffsets[fieldIndexes[i]];
+        }
+    }
+
+    public Object[] decode(byte[] row) {
+        final var fields = new Object[dataTypes.length];
+        for (var i = 0; i < dataTypes.length; i++) {
+            fields[i] = dataTypes[i].getData(row, offsets[i]);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,28 @@
+package dev.terna.janelle.database.execution;
+
+/**
+ * Where a {@link TableScan} gets its rows: the entries of an index in key order, read a batch at a time so the index
+ * isn't kept locked while rows are passed up the plan (and possibly to a slow client). A row is only read once the
+ * scan gets to its entry.
+ */
+public interface RowSource {
+    /**
+     * Start again from the first entry.
+     */
+    void open();
+
+    /**
+     * Read the next batch of entries. Returns how many there are, or 0 if there are no more.
+     */
+    int readEntries();
+
+    /**
+     * Read the bytes of the row of an entry of the last batch.
+     */
+    byte[] readRow(int entryIndex);
+
+    /**
+     * Stop reading entries until the source is opened again.
+     */
+    void close();
+}
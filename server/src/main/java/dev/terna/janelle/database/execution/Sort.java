@@ -0,0 +1,47 @@
+package dev.terna.janelle.database.execution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Returns the rows of its input in the order of a comparator. All of the input is read and held when the operator is
+ * opened.
+ */
+public class Sort implements Operator {
+    private final Operator input;
+    private final Comparator<Object[]> comparator;
+    private List<Object[]> rows;
+    private int position;
+
+    public Sort(Operator input, Comparator<Object[]> comparator) {
+        this.input = input;
+        this.comparator = comparator;
+    }
+
+    @Override
+    public void open() {
+        rows = new ArrayList<>();
+        input.open();
+        try {
+            Object[] row;
+            while ((row = input.next()) != null) {
+                rows.add(row);
+            }
+        } finally {
+            input.close();
+        }
+        rows.sort(comparator);
+        position = 0;
+    }
+
+    @Override
+    public Object[] next() {
+        return position < rows.size() ? rows.get(position++) : null;
+    }
+
+    @Override
+    public void close() {
+        rows = null;
+    }
+}
@@ -0,0 +1,141 @@
+package dev.terna.janelle.database.execution;
+
+import dev.terna.janelle.bplustree.BPlusTree;
+import dev.terna.janelle.database.Table;
+
+import java.util.List;
+
+/**
+ * Returns the rows of a table whose keys in an index are in the given ranges, in key order. That's the table's own
+ * index by row ID or one of its secondary indexes (see {@link RowSource}). Each range is looked up in the index, so a
+ * range of a single key is a point read. Only the fields the decoder picks are decoded.
+ */
+public class TableScan implements Operator {
+    private final RowSource source;
+    private final RowDecoder decoder;
+    private int numberOfEntries;
+    private int position;
+
+    /**
+     * Constructor
+     * @param index: index from keys to row pointers
+     * @param ranges: sorted, non-overlapping key ranges to read
+     */
+    public TableScan(Table table, BPlusTree index, List<KeyRange> ranges, RowDecoder decoder) {
+        this(new KeyRangeSource(table, index, ranges), decoder);
+    }
+
+    public TableScan(RowSource source, RowDecoder decoder) {
+        this.source = source;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public void open() {
+        source.open();
+        numberOfEntries = 0;
+        position = 0;
+    }
+
+    @Override
+    public Object[] next() {
+        if (position == numberOfEntries && !readEntries()) {
+            return null;
+        }
+        return decoder.decode(source.readRow(position++));
+    }
+
+    /**
+     * Fill the batch with the raw bytes of the next rows instead of returning them one at a time. Returns false if
+     * there are no more rows.
+     */
+    public boolean nextBatch(ColumnBatch batch) {
+        batch.clear();
+        while (!batch.isFull()) {
+            if (position == numberOfEntries && !readEntries()) {
+                break;
+            }
+            batch.add(source.readRow(position++));
+        }
+        return batch.size() > 0;
+    }
+
+    @Override
+    public void close() {
+        source.close();
+    }
+
+    private boolean readEntries() {
+        numberOfEntries = source.readEntries();
+        position = 0;
+        return numberOfEntries > 0;
+    }
+
+    /**
+     * Rows whose keys in an index with long keys, like the row ID index, are in the given ranges.
+     */
+    private static class KeyRangeSource implements RowSource {
+        private static final int BATCH_SIZE = 256;
+        private final Table table;
+        private final BPlusTree index;
+        private final List<KeyRange> ranges;
+        private final long[] rowPointers = new long[BATCH_SIZE];
+        private int rangeIndex;
+        private long nextKey;
+
+        private KeyRangeSource(Table table, BPlusTree index, List<KeyRange> ranges) {
+            this.table = table;
+            this.index = index;
+            this.ranges = ranges;
+        }
+
+        @Override
+        public void open() {
+            rangeIndex = 0;
+            nextKey = ranges.isEmpty() ? 0 : ranges.get(0).from();
+        }
+
+        @Override
+        public int readEntries() {
+            var numberOfRowPointers = 0;
+            if (rangeIndex == ranges.size()) {
+                return numberOfRowPointers;
+            }
+
+            try (var cursor = index.cursor()) {
+                while (rangeIndex < ranges.size() && numberOfRowPointers < BATCH_SIZE) {
+                    final var toKey = ranges.get(rangeIndex).to();
+                    var isValid = cursor.seek(nextKey);
+                    while (isValid && cursor.getKey() <= toKey && numberOfRowPointers < BATCH_SIZE) {
+                        rowPointers[numberOfRowPointers++] = cursor.getValue();
+                        isValid = cursor.next();
+                        if (isValid) {
+                            nextKey = cursor.getKey();
+                        }
+                    }
+
+                    if (!isValid) {
+                        // There are no more rows in the index.
+                        rangeIndex = ranges.size();
+                    } else if (cursor.getKey() > toKey) {
+                        rangeIndex++;
+                        if (rangeIndex < ranges.size()) {
+                            nextKey = ranges.get(rangeIndex).from();
+                        }
+                    }
+                }
+            }
+            return numberOfRowPointers;
+        }
+
+        @Override
+        public byte[] readRow(int entryIndex) {
+            return table.readRowBytes(rowPointers[entryIndex]);
+        }
+
+        @Override
+        public void close() {
+            rangeIndex = ranges.size();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package dev.terna.janelle.database.execution;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Returns the first rows of its input in the order of a comparator, like Sort followed by a limit, but only ever holds
+ * that many rows. They're kept in a heap with the last of them on top, so each input row is compared to it and either
+ * dropped or swapped in, which takes O(n log k) time for n input rows and a limit of k. Rows that compare equal are
+ * returned in input order, like Sort returns them.
+ */
+public class TopN implements Operator {
+    // The heap starts out this big and grows with the rows it holds, so a large limit doesn't allocate up front.
+    private static final int INITIAL_HEAP_CAPACITY = 256;
+    private final Operator input;
+    private final Comparator<Object[]> comparator;
+    private final int limit;
+    private Object[][] rows;
+    private int position;
+
+    public TopN(Operator input, Comparator<Object[]> comparator, int limit) {
+        this.input = input;
+        this.comparator = comparator;
+        this.limit = limit;
+    }
+
+    @Override
+    public void open() {
+        position = 0;
+        if (limit == 0) {
+            rows = new Object[0][];
+            return;
+        }
+
+        // Of rows that compare equal, the later one is the last.
+        final Comparator<Entry> entryComparator = (a, b) -> {
+            final var order = comparator.compare(a.row(), b.row());
+            return order != 0 ? order : Long.compare(a.sequenceNumber(), b.sequenceNumber());
+        };
+        final var heap = new PriorityQueue<Entry>(Math.min(limit, INITIAL_HEAP_CAPACITY), entryComparator.reversed());
+        input.open();
+        try {
+            Object[] row;
+            for (var sequenceNumber = 0L; (row = input.next()) != null; sequenceNumber++) {
+                if (heap.size() < limit) {
+                    heap.add(new Entry(row, sequenceNumber));
+                } else if (comparator.compare(row, heap.peek().row()) < 0) {
+                    heap.poll();
+                    heap.add(new Entry(row, sequenceNumber));
+                }
+            }
+        } finally {
+            input.close();
+        }
+
+        rows = new Object[heap.size()][];
+        for (var i = rows.length - 1; i >= 0; i--) {
+            rows[i] = heap.poll().row();
+        }
+    }
+
+    @Override
+    public Object[] next() {
+        return position < rows.length ? rows[position++] : null;
+    }
+
+    @Override
+    public void close() {
+        rows = null;
+    }
+
+    private record Entry(Object[] row, long sequenceNumber) {
+    }
+}
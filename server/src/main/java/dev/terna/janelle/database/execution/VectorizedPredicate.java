@@ -0,0 +1,379 @@
+package dev.terna.janelle.database.execution;
+
+import dev.terna.janelle.database.Column;
+import dev.terna.janelle.sql.Token;
+import dev.terna.janelle.sql.TokenType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A where clause compiled to run over a whole batch of rows at a time. Every operator is a loop over primitive arrays
+ * with one slot per row, and the rows that pass are returned as a selection vector (the indexes of the matching rows
+ * in the batch), so only those rows need to be deserialized.
+ * Results match the Evaluator's. Expressions the Evaluator would fail on (like comparing a string to a number), or
+ * that order strings or use bool columns, aren't compiled and are left to it instead.
+ */
+public class VectorizedPredicate implements BatchPredicate {
+    private final BoolVector root;
+
+    private VectorizedPredicate(BoolVector root) {
+        this.root = root;
+    }
+
+    /**
+     * Compile a where clause in postfix order for rows of the given schema. Returns null if it can't be vectorized.
+     */
+    public static VectorizedPredicate compile(List<Token> whereClause, Column[] schema) {
+        final var stack = new ArrayDeque<Object>();
+        for (var token : whereClause) {
+            final var value = token.getValue();
+            switch (token.getTokenType()) {
+                case INT_LITERAL -> stack.push(new NumberConstant(Integer.parseInt(value)));
+                case FLOAT_LITERAL -> stack.push(new NumberConstant(Float.parseFloat(value)));
+                case STRING_LITERAL -> stack.push(new StringConstant(value.substring(1, value.length() - 1).getBytes(StandardCharsets.UTF_8)));
+                case BOOL_LITERAL -> stack.push(new BoolConstant(Boolean.parseBoolean(value)));
+                case NULL_LITERAL -> stack.push(StringConstant.NULL);
+                case IDENTIFIER -> {
+                    final var operand = getColumnOperand(value, schema);
+                    if (operand == null) {
+                        return null;
+                    }
+                    stack.push(operand);
+                }
+                default -> {
+                    if (stack.size() < 2) {
+                        return null;
+                    }
+                    final var secondOperand = stack.pop();
+                    final var firstOperand = stack.pop();
+                    final var result = combine(token.getTokenType(), firstOperand, secondOperand);
+                    if (result == null) {
+                        return null;
+                    }
+                    stack.push(result);
+                }
+            }
+        }
+
+        if (stack.size() != 1 || !(stack.peek() instanceof BoolVector root)) {
+            return null;
+        }
+        return new VectorizedPredicate(root);
+    }
+
+    @Override
+    public int select(ColumnBatch batch, int[] selection) {
+        final var matches = root.evaluate(batch);
+        var numberSelected = 0;
+        for (var rowIndex = 0; rowIndex < batch.size(); rowIndex++) {
+            if (matches[rowIndex]) {
+                selection[numberSelected++] = rowIndex;
+            }
+        }
+        return numberSelected;
+    }
+
+    private static Object getColumnOperand(String name, Column[] schema) {
+        // Column names are matched like the Evaluator matches variables, which is case-insensitively and with later
+        // columns taking precedence.
+        var columnIndex = -1;
+        for (var index = 0; index < schema.length; index++) {
+            if (schema[index].getName().equalsIgnoreCase(name)) {
+                columnIndex = index;
+            }
+        }
+        if (columnIndex == -1) {
+            return StringConstant.NULL;
+        }
+
+        return switch (schema[columnIndex].getDataType()) {
+            case INT, FLOAT -> new NumberColumn(columnIndex);
+            case STRING -> new StringColumn(columnIndex);
+            case BOOL -> null;
+        };
+    }
+
+    private static Object combine(TokenType operator, Object firstOperand, Object secondOperand) {
+        switch (operator) {
+            case ADD_OP, SUBTRACT_OP, MULTIPLY_OP, DIVIDE_OP -> {
+                if (firstOperand instanceof NumberVector first && secondOperand instanceof NumberVector second) {
+                    return new Arithmetic(operator, first, second);
+                }
+                return null;
+            }
+
+            case GREATER_THAN_OP, GREATER_THAN_OR_EQUAL_OP, LESS_THAN_OP, LESS_THAN_OR_EQUAL_OP -> {
+                if (firstOperand instanceof NumberVector first && secondOperand instanceof NumberVector second) {
+                    return new NumberComparison(operator, first, second);
+                }
+                return null;
+            }
+
+            case AND, OR -> {
+                if (firstOperand instanceof BoolVector first && secondOperand instanceof BoolVector second) {
+                    return new BoolOperation(operator, first, second);
+                }
+                return null;
+            }
+
+            case EQUAL_OP, NOT_EQUAL_OP -> {
+                if (firstOperand instanceof NumberVector first && secondOperand instanceof NumberVector second) {
+                    return new NumberComparison(operator, first, second);
+                } else if (firstOperand instanceof StringOperand first && secondOperand instanceof StringOperand second) {
+                    return new StringEquality(operator == TokenType.NOT_EQUAL_OP, first, second);
+                } else if (firstOperand instanceof BoolVector first && secondOperand instanceof BoolVector second) {
+                    return new BoolOperation(operator, first, second);
+                }
+                // Values of different types are never equal.
+                return new BoolConstant(operator == TokenType.NOT_EQUAL_OP);
+            }
+
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private interface NumberVector {
+        double[] evaluate(ColumnBatch batch);
+    }
+
+    private interface BoolVector {
+        boolean[] evaluate(ColumnBatch batch);
+    }
+
+    /**
+     * A string for each row, which is null if bytes returns null.
+     */
+    private interface StringOperand {
+        byte[] bytes(ColumnBatch batch, int rowIndex);
+
+        int offset(ColumnBatch batch, int rowIndex);
+
+        int length(ColumnBatch batch, int rowIndex);
+    }
+
+    private static class NumberConstant implements NumberVector {
+        private final double[] values = new double[ColumnBatch.CAPACITY];
+
+        NumberConstant(Number value) {
+            Arrays.fill(values, value.doubleValue());
+        }
+
+        @Override
+        public double[] evaluate(ColumnBatch batch) {
+            return values;
+        }
+    }
+
+    private record NumberColumn(int columnIndex) implements NumberVector {
+        @Override
+        public double[] evaluate(ColumnBatch batch) {
+            return batch.getNumbers(columnIndex);
+        }
+    }
+
+    private static class Arithmetic implements NumberVector {
+        private final TokenType operator;
+        private final NumberVector first;
+        private final NumberVector second;
+        private final double[] values = new double[ColumnBatch.CAPACITY];
+
+        Arithmetic(TokenType operator, NumberVector first, NumberVector second) {
+            this.operator = operator;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public double[] evaluate(ColumnBatch batch) {
+            final var a = first.evaluate(batch);
+            final var b = second.evaluate(batch);
+            final var size = batch.size();
+            switch (operator) {
+                case ADD_OP -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] + b[i];
+                }
+                case SUBTRACT_OP -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] - b[i];
+                }
+                case MULTIPLY_OP -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] * b[i];
+                }
+                default -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] / b[i];
+                }
+            }
+            return values;
+        }
+    }
+
+    private static class NumberComparison implements BoolVector {
+        private final TokenType operator;
+        private final NumberVector first;
+        private final NumberVector second;
+        private final boolean[] values = new boolean[ColumnBatch.CAPACITY];
+
+        NumberComparison(TokenType operator, NumberVector first, NumberVector second) {
+            this.operator = operator;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean[] evaluate(ColumnBatch batch) {
+            final var a = first.evaluate(batch);
+            final var b = second.evaluate(batch);
+            final var size = batch.size();
+            switch (operator) {
+                case EQUAL_OP -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] == b[i];
+                }
+                case NOT_EQUAL_OP -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] != b[i];
+                }
+                case GREATER_THAN_OP -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] > b[i];
+                }
+                case GREATER_THAN_OR_EQUAL_OP -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] >= b[i];
+                }
+                case LESS_THAN_OP -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] < b[i];
+                }
+                default -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] <= b[i];
+                }
+            }
+            return values;
+        }
+    }
+
+    private static class BoolConstant implements BoolVector {
+        private final boolean[] values = new boolean[ColumnBatch.CAPACITY];
+
+        BoolConstant(boolean value) {
+            Arrays.fill(values, value);
+        }
+
+        @Override
+        public boolean[] evaluate(ColumnBatch batch) {
+            return values;
+        }
+    }
+
+    private static class BoolOperation implements BoolVector {
+        private final TokenType operator;
+        private final BoolVector first;
+        private final BoolVector second;
+        private final boolean[] values = new boolean[ColumnBatch.CAPACITY];
+
+        BoolOperation(TokenType operator, BoolVector first, BoolVector second) {
+            this.operator = operator;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean[] evaluate(ColumnBatch batch) {
+            final var a = first.evaluate(batch);
+            final var b = second.evaluate(batch);
+            final var size = batch.size();
+            switch (operator) {
+                case AND -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] & b[i];
+                }
+                case OR -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] | b[i];
+                }
+                case EQUAL_OP -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] == b[i];
+                }
+                default -> {
+                    for (var i = 0; i < size; i++) values[i] = a[i] != b[i];
+                }
+            }
+            return values;
+        }
+    }
+
+    private static class StringConstant implements StringOperand {
+        static final StringConstant NULL = new StringConstant(null);
+        private final byte[] value;
+
+        StringConstant(byte[] value) {
+            this.value = value;
+        }
+
+        @Override
+        public byte[] bytes(ColumnBatch batch, int rowIndex) {
+            return value;
+        }
+
+        @Override
+        public int offset(ColumnBatch batch, int rowIndex) {
+            return 0;
+        }
+
+        @Override
+        public int length(ColumnBatch batch, int rowIndex) {
+            return value.length;
+        }
+    }
+
+    /**
+     * A string column compared in place in the row bytes. The field's first byte is the length of the string, and an
+     * empty string is stored for null.
+     */
+    private record StringColumn(int columnIndex) implements StringOperand {
+        @Override
+        public byte[] bytes(ColumnBatch batch, int rowIndex) {
+            final var row = batch.getRow(rowIndex);
+            return row[batch.getColumnOffset(columnIndex)] == 0 ? null : row;
+        }
+
+        @Override
+        public int offset(ColumnBatch batch, int rowIndex) {
+            return batch.getColumnOffset(columnIndex) + 1;
+        }
+
+        @Override
+        public int length(ColumnBatch batch, int rowIndex) {
+            return batch.getRow(rowIndex)[batch.getColumnOffset(columnIndex)] & 0xFF;
+        }
+    }
+
+    private static class StringEquality implements BoolVector {
+        private final boolean isNegated;
+        private final StringOperand first;
+        private final StringOperand second;
+        private final boolean[] values = new boolean[ColumnBatch.CAPACITY];
+
+        StringEquality(boolean isNegated, StringOperand first, StringOperand second) {
+            this.isNegated = isNegated;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean[] evaluate(ColumnBatch batch) {
+            for (var i = 0; i < batch.size(); i++) {
+                final var a = first.bytes(batch, i);
+                final var b = second.bytes(batch, i);
+                final boolean isEqual;
+                if (a == null || b == null) {
+                    isEqual = a == b;
+                } else {
+                    final var aOffset = first.offset(batch, i);
+                    final var bOffset = second.offset(batch, i);
+                    isEqual = Arrays.equals(a, aOffset, aOffset + first.length(batch, i), b, bOffset, bOffset + second.length(batch, i));
+                }
+                values[i] = isEqual != isNegated;
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package dev.terna.janelle.database.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed-size page cache in front of a data store.
+ * The data file is split into fixed-size pages which are read into a fixed number of frames. When every frame is in
+ * use, a page is evicted with the CLOCK algorithm; pinned pages are never evicted. Dirty pages are only written to the
+ * underlying data store when they are evicted, flushed or the pool is closed.
+ */
+public class BufferPool implements DataStore {
+    public static final long DEFAULT_SIZE_IN_BYTES = 4L << 20; // 4 MiB
+    public static final int DEFAULT_PAGE_SIZE_IN_BYTES = 4096;
+    private final DataStore dataStore;
+    private final int pageSizeInBytes;
+    private final Page[] frames;
+    private final Map<Long, Page> pages = new HashMap<>(); // page number -> page
+    private int clockHand = 0;
+    private long eofPointer;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public static class Page {
+        private final byte[] data;
+        private long pageNumber;
+        private int pinCount;
+        private boolean isDirty;
+        private boolean isReferenced;
+
+        private Page(int pageSizeInBytes) {
+            data = new byte[pageSizeInBytes];
+        }
+
+        public long getPageNumber() {
+            return pageNumber;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public boolean isDirty() {
+            return isDirty;
+        }
+    }
+
+    public BufferPool(DataStore dataStore) {
+        this(dataStore, DEFAULT_SIZE_IN_BYTES, DEFAULT_PAGE_SIZE_IN_BYTES);
+    }
+
+    public BufferPool(DataStore dataStore, long sizeInBytes, int pageSizeInBytes) {
+        if (pageSizeInBytes <= 0 || sizeInBytes < pageSizeInBytes) {
+            throw new IllegalArgumentException("Buffer pool must hold at least one page.");
+        }
+        this.dataStore = dataStore;
+        this.pageSizeInBytes = pageSizeInBytes;
+        frames = new Page[(int) (sizeInBytes / pageSizeInBytes)];
+        eofPointer = dataStore.getEOFPointerForData();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public int getPageSize() {
+        return pageSizeInBytes;
+    }
+
+    /**
+     * Fetch a page into the pool (if it isn't already there) and pin it so it can't be evicted until it's unpinned.
+     */
+    public synchronized Page pin(long pageNumber) {
+        var page = pages.get(pageNumber);
+        if (page != null) {
+            hits++;
+        } else {
+            misses++;
+            page = getFreeFrame();
+            page.pageNumber = pageNumber;
+            page.isDirty = false;
+            readPage(page);
+            pages.put(pageNumber, page);
+        }
+        page.pinCount++;
+        page.isReferenced = true;
+        return page;
+    }
+
+    /**
+     * Release a pinned page, marking it dirty if its data was modified while pinned.
+     */
+    public synchronized void unpin(Page page, boolean isDirty) {
+        if (page.pinCount == 0) {
+            throw new IllegalStateException("Page " + page.pageNumber + " is not pinned.");
+        }
+        page.pinCount--;
+        page.isDirty |= isDirty;
+    }
+
+    /**
+     * Find a frame for a new page: an unused frame if there's one, otherwise evict the first unpinned page the clock
+     * hand finds that hasn't been referenced since the hand last passed it.
+     */
+    private Page getFreeFrame() {
+        // Two sweeps are enough to clear every reference bit and come back round to an unpinned page.
+        for (var i = 0; i < frames.length * 2; i++) {
+            final var frameIndex = clockHand;
+            clockHand = (clockHand + 1) % frames.length;
+
+            final var page = frames[frameIndex];
+            if (page == null) {
+                frames[frameIndex] = new Page(pageSizeInBytes);
+                return frames[frameIndex];
+            }
+            if (page.pinCount > 0) {
+                continue;
+            }
+            if (page.isReferenced) {
+                page.isReferenced = false;
+                continue;
+            }
+
+            if (page.isDirty) {
+                writePage(page);
+            }
+            pages.remove(page.pageNumber);
+            evictions++;
+            return page;
+        }
+        throw new IllegalStateException("Buffer pool is full: all pages are pinned.");
+    }
+
+    private void readPage(Page page) {
+        final var pageStart = page.pageNumber * pageSizeInBytes;
+        final var numberOfBytes = (int) Math.max(0, Math.min(pageSizeInBytes, dataStore.getEOFPointerForData() - pageStart));
+        Arrays.fill(page.data, (byte) 0);
+        if (numberOfBytes > 0) {
+            System.arraycopy(dataStore.readData(pageStart, numberOfBytes), 0, page.data, 0, numberOfBytes);
+        }
+    }
+
+    private void writePage(Page page) {
+        final var pageStart = page.pageNumber * pageSizeInBytes;
+        // Don't pad the data file past the end of the data with the unused tail of the last page.
+        final var numberOfBytes = (int) Math.max(0, Math.min(pageSizeInBytes, eofPointer - pageStart));
+        if (numberOfBytes > 0) {
+            dataStore.writeData(pageStart, Arrays.copyOf(page.data, numberOfBytes));
+        }
+        page.isDirty = false;
+    }
+
+    /**
+     * Write all dirty pages to the underlying data store and make them durable.
+     */
+    @Override
+    public synchronized void flush() {
+        for (var page : frames) {
+            if (page != null && page.isDirty) {
+                writePage(page);
+            }
+        }
+        dataStore.flush();
+    }
+
+    @Override
+    public synchronized long getEOFPointerForData() {
+        return eofPointer;
+    }
+
+    @Override
+    public synchronized byte[] readData(long seekPosition, int numberOfBytes) {
+        final var bytes = new byte[numberOfBytes];
+
+        var copied = 0;
+        while (copied < numberOfBytes) {
+            final var position = seekPosition + copied;
+            final var page = pin(position / pageSizeInBytes);
+            final var offset = (int) (position % pageSizeInBytes);
+            final var length = Math.min(numberOfBytes - copied, pageSizeInBytes - offset);
+            System.arraycopy(page.data, offset, bytes, copied, length);
+            unpin(page, false);
+            copied += length;
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public synchronized void writeData(long seekPosition, byte[] data) {
+        eofPointer = Math.max(eofPointer, seekPosition + data.length);
+
+        var copied = 0;
+        while (copied < data.length) {
+            final var position = seekPosition + copied;
+            final var page = pin(position / pageSizeInBytes);
+            final var offset = (int) (position % pageSizeInBytes);
+            final var length = Math.min(data.length - copied, pageSizeInBytes - offset);
+            System.arraycopy(data, copied, page.data, offset, length);
+            unpin(page, true);
+            copied += length;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        dataStore.close();
+    }
+}
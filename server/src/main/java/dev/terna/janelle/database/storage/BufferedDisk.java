@@ -0,0 +1,56 @@
+package dev.terna.janelle.database.storage;
+
+import dev.terna.janelle.database.Table;
+
+/**
+ * Disk whose data file is read and written through a {@link BufferPool}. Metadata goes to the disk directly.
+ */
+public class BufferedDisk implements StorageHandler {
+    private final Disk disk;
+    private final BufferPool bufferPool;
+
+    public BufferedDisk(String tableName) {
+        disk = new Disk(tableName);
+        bufferPool = new BufferPool(disk);
+    }
+
+    @Override
+    public Table loadTable() {
+        return disk.loadTable();
+    }
+
+    @Override
+    public void flushMetadata(Table table) {
+        disk.flushMetadata(table);
+    }
+
+    @Override
+    public DataStore openIndexFile(String indexName, boolean isNew) {
+        return disk.openIndexFile(indexName, isNew);
+    }
+
+    @Override
+    public long getEOFPointerForData() {
+        return bufferPool.getEOFPointerForData();
+    }
+
+    @Override
+    public byte[] readData(long seekPosition, int numberOfBytes) {
+        return bufferPool.readData(seekPosition, numberOfBytes);
+    }
+
+    @Override
+    public void writeData(long seekPosition, byte[] data) {
+        bufferPool.writeData(seekPosition, data);
+    }
+
+    @Override
+    public void flush() {
+        bufferPool.flush();
+    }
+
+    @Override
+    public void close() {
+        bufferPool.close();
+    }
+}
@@ -0,0 +1,19 @@
+package dev.terna.janelle.database.storage;
+
+/**
+ * Bytes that can be read and written at any position, such as a table's data file or an index file.
+ */
+public interface DataStore {
+    long getEOFPointerForData();
+
+    byte[] readData(long seekPosition, int numberOfBytes);
+
+    void writeData(long seekPosition, byte[] data);
+
+    /**
+     * Make all data written so far durable.
+     */
+    void flush();
+
+    void close();
+}
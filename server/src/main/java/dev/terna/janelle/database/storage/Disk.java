@@ -3,32 +3,64 @@ package dev.terna.janelle.database.storage;
 import dev.terna.janelle.database.Table;
 import dev.terna.janelle.database.Utils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 public class Disk implements StorageHandler {
-    private static final String DATA_DIRECTORY = "data";
+    // Tables are stored in a directory each under this one. The tests point it at a scratch directory.
+    private static final String DATA_DIRECTORY = System.getProperty("janelle.dataDirectory", "data");
     private static final String FILE_EXTENSION = ".milan";
+    // Position of the end-of-data pointer in the data file header. See MappedDisk.
+    protected static final long DATA_END_POINTER_POSITION = 8;
     public enum DataFile {
         data, // table rows
-        metadata, // table object
+        metadata, // table metadata
+        metadata_changes, // table index and free row block changes
+        metadata_changes_alternate, // takes turns with metadata_changes, see Disk#flushMetadata
+        wal, // write-ahead log
     };
     private String dataFilePath;
     private RandomAccessFile dataFile;
     private String metadataFilePath;
+    private String[] metadataChangesFilePaths;
+    // Which of the two changes files the metadata file covers.
+    private int metadataChangesFile = 0;
+    private static final int METADATA_MAGIC_NUMBER = 0x4A4E4C4D; // "JNLM"
+    private static final short METADATA_FORMAT_VERSION = 1;
+    // Number of changes in the changes file covered by the metadata file. Unknown until the metadata is read or
+    // written in the binary format, which forces the next flush to rewrite the changes file from scratch.
+    private long numberOfMetadataChanges = -1;
+    // The changes file is rewritten from the table's live index entries and free row blocks once it holds this many
+    // times as many changes, so superseded changes don't pile up forever. Small files aren't worth rewriting.
+    private static final int METADATA_COMPACTION_FACTOR = 2;
+    private static final long MIN_METADATA_CHANGES_TO_COMPACT = 1024;
 
     public Disk(String tableName) {
         dataFilePath = getFilePath(tableName, DataFile.data);
         metadataFilePath = getFilePath(tableName, DataFile.metadata);
+        metadataChangesFilePaths = new String[] {
+                getFilePath(tableName, DataFile.metadata_changes),
+                getFilePath(tableName, DataFile.metadata_changes_alternate),
+        };
         setupFiles(tableName);
     }
 
-    private String getFilePath(String tableName, DataFile dataFile) {
+    public static String getFilePath(String tableName, DataFile dataFile) {
         return DATA_DIRECTORY + File.separatorChar + tableName + File.separatorChar + dataFile.name() + FILE_EXTENSION;
     }
 
@@ -44,6 +76,7 @@ public class Disk implements StorageHandler {
                 file.createNewFile();
             }
             dataFile = new RandomAccessFile(dataFilePath, "rw");
+            trimDataFile();
         } catch (IOException e) {
             Utils.panic("Error occurred while retrieving data file.", e);
         }
@@ -58,36 +91,146 @@ public class Disk implements StorageHandler {
         }
     }
 
+    /**
+     * Memory-mapped data files grow in whole segments, so they record where the data actually ends in the file header.
+     * Drop any padding left behind by a mapped file that was not closed cleanly, so that the file length is the end
+     * of the data again.
+     */
+    private void trimDataFile() throws IOException {
+        if (dataFile.length() < DATA_END_POINTER_POSITION + 8) {
+            return;
+        }
+
+        dataFile.seek(DATA_END_POINTER_POSITION);
+        final var dataEndPointer = dataFile.readLong();
+        if (dataEndPointer == 0) {
+            return;
+        }
+        if (dataEndPointer < dataFile.length()) {
+            dataFile.setLength(dataEndPointer);
+        }
+        dataFile.seek(DATA_END_POINTER_POSITION);
+        dataFile.writeLong(0);
+    }
+
+    protected FileChannel getDataChannel() {
+        return dataFile.getChannel();
+    }
+
+    /**
+     * Read the table's metadata and apply the changes to its index and free row blocks that the metadata covers.
+     * Tables stored before the binary metadata format are read with Java serialization. A table that has never been
+     * stored has an empty metadata file, see setupFiles.
+     */
     @Override
     public Table loadTable() {
-        try {
-            final var metadataFIS = new FileInputStream(metadataFilePath);
-            final var metadataOIS = new ObjectInputStream(metadataFIS);
-            final Table table = (Table) metadataOIS.readObject();
-            metadataOIS.close();
-            return table;
-        } catch (IOException | ClassNotFoundException e) {
-            // Table not found, or something went terribly wrong.
+        if (new File(metadataFilePath).length() == 0) {
             return null;
         }
+        try (var metadataInput = new DataInputStream(new BufferedInputStream(new FileInputStream(metadataFilePath)))) {
+            if (metadataInput.readInt() != METADATA_MAGIC_NUMBER) {
+                return loadSerializedTable();
+            }
+            final var version = metadataInput.readShort();
+            if (version != METADATA_FORMAT_VERSION) {
+                throw new IOException("Unsupported metadata format version " + version + ".");
+            }
+            final var changesFile = metadataInput.readByte();
+            final var numberOfChanges = metadataInput.readLong();
+
+            try (var changesInput = new DataInputStream(new BufferedInputStream(new FileInputStream(metadataChangesFilePaths[changesFile])))) {
+                final var table = Table.readMetadata(metadataInput, changesInput, numberOfChanges);
+                metadataChangesFile = changesFile;
+                numberOfMetadataChanges = numberOfChanges;
+                return table;
+            }
+        } catch (IOException e) {
+            // Callers take a missing table as one to create, which would write over this one.
+            throw new IllegalStateException("Error occurred while reading metadata file " + metadataFilePath + ".", e);
+        }
+    }
+
+    private Table loadSerializedTable() {
+        try (var metadataOIS = new ObjectInputStream(new FileInputStream(metadataFilePath))) {
+            return (Table) metadataOIS.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Error occurred while reading serialized metadata file " + metadataFilePath + ".", e);
+        }
     }
 
     /**
-     * Serialize and write table object to file.
+     * Append the table's index and free row block changes to the changes file, then replace the metadata file.
+     * Changes appended by a flush that didn't complete aren't covered by the metadata file, so they're dropped.
+     * Once most of the changes file is superseded changes, the live index entries and free row blocks are written to
+     * the other changes file instead, which the metadata file only switches to when it's replaced. A compaction that
+     * doesn't complete leaves the old changes file in use.
+     * Metadata format:
+     * Magic number (4 bytes) + Format version (2 bytes) + Changes file (1 byte) + Number of changes (8 bytes)
+     * + Table metadata
      */
     @Override
     public void flushMetadata(Table table) {
         try {
-            final var metadataFOS = new FileOutputStream(metadataFilePath);
-            final var metadataOOS = new ObjectOutputStream(metadataFOS);
-            metadataOOS.writeObject(table);
-            metadataOOS.flush();
-            metadataOOS.close();
+            // If the number of changes is unknown, the metadata file doesn't cover any changes yet, so the changes file
+            // can be rewritten in place.
+            final var isCompaction = needsCompaction(table);
+            final var isFullFlush = numberOfMetadataChanges < 0 || isCompaction;
+            final var changesFileToWrite = isCompaction ? 1 - metadataChangesFile : metadataChangesFile;
+            final long numberOfChanges;
+            try (var changesFile = FileChannel.open(Path.of(metadataChangesFilePaths[changesFileToWrite]), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                final var changesStart = isFullFlush ? 0 : numberOfMetadataChanges * Table.METADATA_CHANGE_SIZE_IN_BYTES;
+                changesFile.truncate(changesStart);
+                changesFile.position(changesStart);
+                final var changesOutput = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(changesFile)));
+                table.writeMetadataChanges(changesOutput, isFullFlush);
+                changesOutput.flush();
+                changesFile.force(false);
+                numberOfChanges = changesFile.size() / Table.METADATA_CHANGE_SIZE_IN_BYTES;
+            }
+
+            final var temporaryFilePath = Path.of(metadataFilePath + ".tmp");
+            try (var metadataFOS = new FileOutputStream(temporaryFilePath.toFile())) {
+                final var metadataOutput = new DataOutputStream(new BufferedOutputStream(metadataFOS));
+                metadataOutput.writeInt(METADATA_MAGIC_NUMBER);
+                metadataOutput.writeShort(METADATA_FORMAT_VERSION);
+                metadataOutput.writeByte(changesFileToWrite);
+                metadataOutput.writeLong(numberOfChanges);
+                table.writeMetadata(metadataOutput);
+                metadataOutput.flush();
+                metadataFOS.getFD().sync();
+            }
+            Files.move(temporaryFilePath, Path.of(metadataFilePath), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (isCompaction) {
+                // Nothing refers to the old changes any more.
+                try (var oldChangesFile = FileChannel.open(Path.of(metadataChangesFilePaths[metadataChangesFile]), StandardOpenOption.WRITE)) {
+                    oldChangesFile.truncate(0);
+                }
+            }
+            metadataChangesFile = changesFileToWrite;
+            numberOfMetadataChanges = numberOfChanges;
         } catch (IOException e) {
             Utils.panic("Error occurred while writing to metadata file.", e);
         }
     }
 
+    @Override
+    public DataStore openIndexFile(String indexName, boolean isNew) {
+        final var filePath = Path.of(dataFilePath).resolveSibling(indexName + FILE_EXTENSION);
+        if (isNew) {
+            try {
+                Files.deleteIfExists(filePath);
+            } catch (IOException e) {
+                Utils.panic("Error occurred while deleting index file.", e);
+            }
+        }
+        return new PageFile(filePath);
+    }
+
+    private boolean needsCompaction(Table table) {
+        return numberOfMetadataChanges >= MIN_METADATA_CHANGES_TO_COMPACT
+                && numberOfMetadataChanges > METADATA_COMPACTION_FACTOR * table.getNumberOfLiveMetadataChanges();
+    }
+
     @Override
     public long getEOFPointerForData() {
         try {
@@ -98,29 +241,48 @@ public class Disk implements StorageHandler {
         }
     }
 
+    /**
+     * Positional reads and writes don't move the file pointer, so readers don't race with each other or with the
+     * writer over where the next read lands.
+     */
     @Override
     public byte[] readData(long seekPosition, int numberOfBytes) {
+        final var buffer = ByteBuffer.allocate(numberOfBytes);
         try {
-            dataFile.seek(seekPosition);
-            byte[] bytes = new byte[numberOfBytes];
-		    dataFile.read(bytes);
-            return bytes;
+            final var channel = dataFile.getChannel();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, seekPosition + buffer.position()) < 0) {
+                    break; // Past the end of the file reads as zeros.
+                }
+            }
         } catch (IOException e) {
-            Utils.panic("Error occurred while writing to data file.", e);
-            return new byte[] {};
+            Utils.panic("Error occurred while reading from data file.", e);
         }
+        return buffer.array();
     }
 
     @Override
     public void writeData(long seekPosition, byte[] data) {
+        final var buffer = ByteBuffer.wrap(data);
         try {
-            dataFile.seek(seekPosition);
-            dataFile.write(data);
+            final var channel = dataFile.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, seekPosition + buffer.position());
+            }
         } catch (IOException e) {
             Utils.panic("Error occurred while writing to data file.", e);
         }
     }
 
+    @Override
+    public void flush() {
+        try {
+            dataFile.getFD().sync();
+        } catch (IOException e) {
+            Utils.panic("Error occurred while syncing data file.", e);
+        }
+    }
+
     @Override
     public void close() {
         try {
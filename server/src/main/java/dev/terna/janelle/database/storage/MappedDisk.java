@@ -0,0 +1,116 @@
+package dev.terna.janelle.database.storage;
+
+import dev.terna.janelle.database.Utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Disk storage with the data file memory-mapped, so reading or writing a row is a plain memory copy instead of a
+ * seek + read/write syscall pair.
+ * The file is mapped in fixed-size segments which are added as the data grows. Mapping a segment extends the file
+ * to the end of the segment, so the actual end of the data is kept in the data file header.
+ */
+public class MappedDisk extends Disk {
+    static final int SEGMENT_SIZE_IN_BYTES = 1 << 20; // 1 MiB
+    private final FileChannel dataChannel;
+    // Segments are only ever added (rarely), so readers get them from a copy-on-write list without locking.
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private volatile long dataEndPointer;
+
+    public MappedDisk(String tableName) {
+        super(tableName);
+        dataChannel = getDataChannel();
+        dataEndPointer = super.getEOFPointerForData();
+    }
+
+    /**
+     * Get the mapped segment with the given index, mapping it (and any segment before it) if necessary.
+     */
+    private MappedByteBuffer getSegment(int segmentIndex) {
+        if (segmentIndex < segments.size()) {
+            return segments.get(segmentIndex);
+        }
+        synchronized (segments) {
+            while (segments.size() <= segmentIndex) {
+                final long segmentStart = (long) segments.size() * SEGMENT_SIZE_IN_BYTES;
+                try {
+                    segments.add(dataChannel.map(FileChannel.MapMode.READ_WRITE, segmentStart, SEGMENT_SIZE_IN_BYTES));
+                } catch (IOException e) {
+                    Utils.panic("Error occurred while mapping data file.", e);
+                }
+            }
+            return segments.get(segmentIndex);
+        }
+    }
+
+    @Override
+    public long getEOFPointerForData() {
+        return dataEndPointer;
+    }
+
+    @Override
+    public byte[] readData(long seekPosition, int numberOfBytes) {
+        final var bytes = new byte[numberOfBytes];
+        // Anything past the end of the data reads as zeros, same as reading past the end of the file.
+        final var numberOfBytesToCopy = (int) Math.max(0, Math.min(numberOfBytes, dataEndPointer - seekPosition));
+
+        var copied = 0;
+        while (copied < numberOfBytesToCopy) {
+            final var position = seekPosition + copied;
+            final var segment = getSegment((int) (position / SEGMENT_SIZE_IN_BYTES));
+            final var offset = (int) (position % SEGMENT_SIZE_IN_BYTES);
+            final var length = Math.min(numberOfBytesToCopy - copied, SEGMENT_SIZE_IN_BYTES - offset);
+            segment.get(offset, bytes, copied, length);
+            copied += length;
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public void writeData(long seekPosition, byte[] data) {
+        var copied = 0;
+        while (copied < data.length) {
+            final var position = seekPosition + copied;
+            final var segment = getSegment((int) (position / SEGMENT_SIZE_IN_BYTES));
+            final var offset = (int) (position % SEGMENT_SIZE_IN_BYTES);
+            final var length = Math.min(data.length - copied, SEGMENT_SIZE_IN_BYTES - offset);
+            segment.put(offset, data, copied, length);
+            copied += length;
+        }
+
+        final var writeEndPointer = seekPosition + data.length;
+        if (writeEndPointer > dataEndPointer) {
+            dataEndPointer = writeEndPointer;
+            getSegment(0).putLong((int) DATA_END_POINTER_POSITION, dataEndPointer);
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (var segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            // Drop the segment padding now that nothing will be written past the end of the data.
+            if (!segments.isEmpty()) {
+                getSegment(0).putLong((int) DATA_END_POINTER_POSITION, 0);
+                segments.get(0).force();
+                dataChannel.truncate(dataEndPointer);
+            }
+        } catch (IOException e) {
+            Utils.complain("Error occurred while trimming mapped data file.", e);
+        }
+        segments.clear();
+        super.close();
+    }
+}
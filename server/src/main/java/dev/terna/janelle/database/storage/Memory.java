@@ -2,6 +2,10 @@ package dev.terna.janelle.database.storage;
 
 import dev.terna.janelle.database.Table;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,22 +14,33 @@ public class Memory implements StorageHandler {
     List<Byte> data = new ArrayList<>();
 
     @Override
-    public Table loadTable() {
+    public synchronized Table loadTable() {
         return metadata;
     }
 
     @Override
-    public void flushMetadata(Table table) {
-        // Do nothing.
+    public synchronized void flushMetadata(Table table) {
+        // Nothing to persist, but don't let the table's changes pile up.
+        try {
+            table.writeMetadataChanges(new DataOutputStream(OutputStream.nullOutputStream()), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public DataStore openIndexFile(String indexName, boolean isNew) {
+        // Nothing outlives the table, so every index starts out empty.
+        return new Memory();
     }
 
     @Override
-    public long getEOFPointerForData() {
+    public synchronized long getEOFPointerForData() {
         return data.size();
     }
 
     @Override
-    public byte[] readData(long seekPosition, int numberOfBytes) {
+    public synchronized byte[] readData(long seekPosition, int numberOfBytes) {
         byte[] b = new byte[numberOfBytes];
 
         var pointer = seekPosition;
@@ -38,7 +53,7 @@ public class Memory implements StorageHandler {
     }
 
     @Override
-    public void writeData(long seekPosition, byte[] newData) {
+    public synchronized void writeData(long seekPosition, byte[] newData) {
         if (seekPosition == data.size()) {
             for (var b : newData) {
                 data.add(b);
@@ -52,6 +67,11 @@ public class Memory implements StorageHandler {
         }
     }
 
+    @Override
+    public void flush() {
+        // Do nothing.
+    }
+
     @Override
     public void close() {
         // Do nothing.
@@ -0,0 +1,90 @@
+package dev.terna.janelle.database.storage;
+
+import dev.terna.janelle.database.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Plain file with no table metadata, for structures that manage their own pages such as on-disk indexes.
+ * Usually wrapped in a {@link BufferPool}.
+ */
+public class PageFile implements DataStore {
+    private final FileChannel file;
+
+    public PageFile(String tableName, String fileName) {
+        this(Path.of(Disk.getFilePath(tableName, Disk.DataFile.data)).resolveSibling(fileName));
+    }
+
+    public PageFile(Path filePath) {
+        FileChannel file = null;
+        try {
+            final var directory = filePath.toAbsolutePath().getParent().toFile();
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+            file = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Utils.panic("Error occurred while opening " + filePath + ".", e);
+        }
+        this.file = file;
+    }
+
+    @Override
+    public long getEOFPointerForData() {
+        try {
+            return file.size();
+        } catch (IOException e) {
+            Utils.panic("Error occurred while obtaining end of page file pointer.", e);
+            return 0L;
+        }
+    }
+
+    @Override
+    public byte[] readData(long seekPosition, int numberOfBytes) {
+        final var buffer = ByteBuffer.allocate(numberOfBytes);
+        try {
+            while (buffer.hasRemaining()) {
+                if (file.read(buffer, seekPosition + buffer.position()) < 0) {
+                    break; // Past the end of the file reads as zeros.
+                }
+            }
+        } catch (IOException e) {
+            Utils.panic("Error occurred while reading from page file.", e);
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public void writeData(long seekPosition, byte[] data) {
+        final var buffer = ByteBuffer.wrap(data);
+        try {
+            while (buffer.hasRemaining()) {
+                file.write(buffer, seekPosition + buffer.position());
+            }
+        } catch (IOException e) {
+            Utils.panic("Error occurred while writing to page file.", e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            file.force(false);
+        } catch (IOException e) {
+            Utils.panic("Error occurred while syncing page file.", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            Utils.complain("Error occurred while closing page file.", e);
+        }
+    }
+}
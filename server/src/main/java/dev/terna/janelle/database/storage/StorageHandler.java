@@ -2,16 +2,21 @@ package dev.terna.janelle.database.storage;
 
 import dev.terna.janelle.database.Table;
 
-public interface StorageHandler {
+/**
+ * Where a table's rows and metadata are kept.
+ */
+public interface StorageHandler extends DataStore {
+    /**
+     * Read the table, or return null if it has never been stored. A table that is stored but can't be read is an
+     * IllegalStateException rather than null, so it isn't mistaken for a new table.
+     */
     Table loadTable();
 
     void flushMetadata(Table table);
 
-    long getEOFPointerForData();
-
-    byte[] readData(long seekPosition, int numberOfBytes);
-
-    void writeData(long seekPosition, byte[] data);
-
-    void close();
+    /**
+     * Open the file an index of the table keeps its entries in, emptying it first if isNew is set.
+     * @param indexName: name of the index, unique within the table
+     */
+    DataStore openIndexFile(String indexName, boolean isNew);
 }
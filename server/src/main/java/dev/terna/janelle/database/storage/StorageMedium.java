@@ -2,5 +2,7 @@ package dev.terna.janelle.database.storage;
 
 public enum StorageMedium {
     DISK,
+    MAPPED_DISK,
+    BUFFERED_DISK,
     MEMORY,
 }
@@ -0,0 +1,179 @@
+package dev.terna.janelle.database.storage;
+
+import dev.terna.janelle.database.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of table changes, written before the changes are considered committed.
+ * Records are buffered in memory by {@link #append(byte[])} and made durable by {@link #commit(long)}. Commits are
+ * grouped: the first writer to commit flushes and fsyncs every record appended so far, while writers that commit
+ * during the flush wait for it and then flush whatever piled up behind it in one go.
+ * Record format: Payload length (4 bytes) + CRC32 of payload (4 bytes) + Payload
+ */
+public class WriteAheadLog {
+    private static final int RECORD_HEADER_SIZE_IN_BYTES = 8;
+    private final FileChannel logFile;
+    private final ByteArrayOutputStream pendingRecords = new ByteArrayOutputStream();
+    private long writePosition;
+    private long lastSequenceNumber = 0; // Of the last appended record.
+    private long durableSequenceNumber = 0; // Of the last record known to be on disk.
+    private boolean isFlushing = false;
+
+    public WriteAheadLog(String tableName) {
+        FileChannel logFile = null;
+        try {
+            logFile = FileChannel.open(
+                    Path.of(Disk.getFilePath(tableName, Disk.DataFile.wal)),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writePosition = logFile.size();
+        } catch (IOException e) {
+            Utils.panic("Error occurred while opening write-ahead log.", e);
+        }
+        this.logFile = logFile;
+    }
+
+    /**
+     * Buffer a record to be written to the log.
+     * @return sequence number of the record, to be passed to {@link #commit(long)}
+     */
+    public synchronized long append(byte[] record) {
+        final var crc = new CRC32();
+        crc.update(record);
+        final var header = ByteBuffer.allocate(RECORD_HEADER_SIZE_IN_BYTES)
+                .putInt(record.length)
+                .putInt((int) crc.getValue())
+                .array();
+        pendingRecords.writeBytes(header);
+        pendingRecords.writeBytes(record);
+        return ++lastSequenceNumber;
+    }
+
+    public synchronized long getLastSequenceNumber() {
+        return lastSequenceNumber;
+    }
+
+    /**
+     * Block until the record with the given sequence number (and every record before it) is durable.
+     */
+    public void commit(long sequenceNumber) {
+        while (true) {
+            final byte[] batch;
+            final long batchSequenceNumber;
+            final long batchPosition;
+            synchronized (this) {
+                while (isFlushing && durableSequenceNumber < sequenceNumber) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for write-ahead log commit.", e);
+                    }
+                }
+                if (durableSequenceNumber >= sequenceNumber) {
+                    return;
+                }
+
+                // Nobody is flushing, so this thread flushes everything appended so far.
+                isFlushing = true;
+                batch = pendingRecords.toByteArray();
+                pendingRecords.reset();
+                batchSequenceNumber = lastSequenceNumber;
+                batchPosition = writePosition;
+                writePosition += batch.length;
+            }
+
+            try {
+                final var buffer = ByteBuffer.wrap(batch);
+                var position = batchPosition;
+                while (buffer.hasRemaining()) {
+                    position += logFile.write(buffer, position);
+                }
+                logFile.force(false);
+            } catch (IOException e) {
+                Utils.panic("Error occurred while writing to write-ahead log.", e);
+            } finally {
+                synchronized (this) {
+                    durableSequenceNumber = batchSequenceNumber;
+                    isFlushing = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Size of the log in bytes, including records that haven't been committed yet.
+     */
+    public synchronized long size() {
+        return writePosition + pendingRecords.size();
+    }
+
+    /**
+     * Read all intact records in the log. Reading stops at the first torn or corrupt record since nothing after it
+     * could have been committed.
+     */
+    public synchronized List<byte[]> readRecords() {
+        final List<byte[]> records = new ArrayList<>();
+        try {
+            final var header = ByteBuffer.allocate(RECORD_HEADER_SIZE_IN_BYTES);
+            var position = 0L;
+            while (position + RECORD_HEADER_SIZE_IN_BYTES <= writePosition) {
+                header.clear();
+                logFile.read(header, position);
+                header.flip();
+                final var recordLength = header.getInt();
+                final var recordCrc = header.getInt();
+                if (recordLength < 0 || position + RECORD_HEADER_SIZE_IN_BYTES + recordLength > writePosition) {
+                    break;
+                }
+
+                final var record = ByteBuffer.allocate(recordLength);
+                logFile.read(record, position + RECORD_HEADER_SIZE_IN_BYTES);
+                final var crc = new CRC32();
+                crc.update(record.array());
+                if ((int) crc.getValue() != recordCrc) {
+                    break;
+                }
+
+                records.add(record.array());
+                position += RECORD_HEADER_SIZE_IN_BYTES + recordLength;
+            }
+        } catch (IOException e) {
+            Utils.panic("Error occurred while reading write-ahead log.", e);
+        }
+        return records;
+    }
+
+    /**
+     * Empty the log. Only safe once every committed record has been checkpointed.
+     */
+    public synchronized void truncate() {
+        if (isFlushing || pendingRecords.size() > 0) {
+            throw new IllegalStateException("Cannot truncate write-ahead log with uncommitted records.");
+        }
+        try {
+            logFile.truncate(0);
+            logFile.force(true);
+            writePosition = 0;
+        } catch (IOException e) {
+            Utils.panic("Error occurred while truncating write-ahead log.", e);
+        }
+    }
+
+    public void close() {
+        try {
+            logFile.close();
+        } catch (IOException e) {
+            Utils.complain("Error occurred while closing write-ahead log.", e);
+        }
+    }
+}
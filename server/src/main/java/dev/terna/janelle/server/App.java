@@ -4,7 +4,19 @@ import java.io.IOException;
 
 public class App {
     public static void main(String[] args) throws IOException {
-        final var server = new Server(6969, 5, 20);
-        server.start();
+        // Settings can be overridden with system properties, e.g. -Djanelle.port=7000.
+        final int port = Integer.getInteger("janelle.port", 6969);
+        final int numThreads = Integer.getInteger("janelle.threads", 5);
+        final int workQueueSize = Integer.getInteger("janelle.queue", 20);
+        final int maxInFlightRequests = Integer.getInteger("janelle.maxInFlight", 64);
+
+        // Pass "nio" to handle connections on a selector, or "virtual" to run each connection on a virtual thread.
+        final var mode = args.length > 0 ? args[0] : System.getProperty("janelle.mode", "pool");
+        switch (mode) {
+            case "pool" -> new Server(port, numThreads, workQueueSize).start();
+            case "nio" -> new NioServer(port, numThreads, workQueueSize).start();
+            case "virtual" -> Server.withVirtualThreads(port, maxInFlightRequests).start();
+            default -> throw new IllegalArgumentException("Unknown server mode: " + mode);
+        }
     }
 }
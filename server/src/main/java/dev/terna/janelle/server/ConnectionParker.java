@@ -0,0 +1,132 @@
+package dev.terna.janelle.server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Holds the connections of a fixed pool server while they wait for their next request, so an idle client doesn't
+ * keep a worker to itself. Like NioServer, it watches them all with one selector on its own thread. A connection is
+ * handed back to the pool as soon as its next request starts arriving, and closed if it stays idle for too long.
+ */
+class ConnectionParker implements Runnable {
+    private static final long IDLE_CHECK_INTERVAL_MILLIS = 1000;
+    private final Executor executor;
+    private final Selector selector;
+    // Connections handed over by the workers, which mustn't touch the selection keys themselves.
+    private final Queue<RequestHandler> connectionsToPark = new ConcurrentLinkedQueue<>();
+    private volatile boolean isRunning = true;
+
+    private record ParkedConnection(RequestHandler requestHandler, long parkedAt) {
+    }
+
+    ConnectionParker(Executor executor) throws IOException {
+        this.executor = executor;
+        selector = Selector.open();
+    }
+
+    void park(RequestHandler requestHandler) {
+        connectionsToPark.add(requestHandler);
+        selector.wakeup();
+    }
+
+    /**
+     * Close the parked connections and stop parking more.
+     */
+    void stop() {
+        isRunning = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try (selector) {
+            var lastIdleCheck = System.currentTimeMillis();
+            while (isRunning) {
+                // Keys selected by the last selectNow in resumeReadableConnections haven't been handled yet.
+                if (selector.selectedKeys().isEmpty()) {
+                    selector.select(IDLE_CHECK_INTERVAL_MILLIS);
+                } else {
+                    selector.selectNow();
+                }
+                RequestHandler requestHandler;
+                while ((requestHandler = connectionsToPark.poll()) != null) {
+                    register(requestHandler);
+                }
+                resumeReadableConnections();
+
+                final var now = System.currentTimeMillis();
+                if (now - lastIdleCheck >= IDLE_CHECK_INTERVAL_MILLIS) {
+                    closeIdleConnections(now);
+                    lastIdleCheck = now;
+                }
+            }
+            for (var key : selector.keys()) {
+                close(((ParkedConnection) key.attachment()).requestHandler());
+            }
+            RequestHandler requestHandler;
+            while ((requestHandler = connectionsToPark.poll()) != null) {
+                close(requestHandler);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void register(RequestHandler requestHandler) {
+        try {
+            final var channel = requestHandler.getChannel();
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new ParkedConnection(requestHandler, System.currentTimeMillis()));
+        } catch (IOException e) {
+            close(requestHandler);
+        }
+    }
+
+    private void resumeReadableConnections() throws IOException {
+        final var readableConnections = new ArrayList<RequestHandler>();
+        for (var key : selector.selectedKeys()) {
+            key.cancel();
+            readableConnections.add(((ParkedConnection) key.attachment()).requestHandler());
+        }
+        selector.selectedKeys().clear();
+        if (readableConnections.isEmpty()) {
+            return;
+        }
+
+        // The workers read with blocking streams, and a channel can only go back to blocking mode once its key has
+        // been deregistered, which happens on the next selection.
+        selector.selectNow();
+        for (var requestHandler : readableConnections) {
+            try {
+                requestHandler.getChannel().configureBlocking(true);
+            } catch (IOException e) {
+                close(requestHandler);
+                continue;
+            }
+            // A rejected handler reaches RequestDropper, which turns the client away.
+            executor.execute(requestHandler);
+        }
+    }
+
+    private void closeIdleConnections(long now) {
+        for (var key : selector.keys()) {
+            final var parkedConnection = (ParkedConnection) key.attachment();
+            if (key.isValid() && now - parkedConnection.parkedAt() >= Server.IDLE_TIMEOUT_MILLIS) {
+                close(parkedConnection.requestHandler());
+            }
+        }
+    }
+
+    private static void close(RequestHandler requestHandler) {
+        try {
+            requestHandler.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package dev.terna.janelle.server;
+
+import dev.terna.janelle.database.Database;
+import dev.terna.janelle.protocol.Request;
+import dev.terna.janelle.protocol.RequestType;
+import dev.terna.janelle.protocol.Response;
+import dev.terna.janelle.protocol.ResponseCode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Server that handles all connections on one thread with a selector, so idle and slow clients don't hold a thread
+ * each. Requests are read as their bytes arrive, and only complete requests are handed to the worker threads. The
+ * response is written back on the selector thread. Connections stay open for more requests, which are handled one at
+ * a time so responses go out in the order the requests came in.
+ */
+public class NioServer {
+    private static final long IDLE_CHECK_INTERVAL_MILLIS = 1000;
+    private final int port;
+    private final int numThreads;
+    private final int workQueueSize;
+    // Work handed to the selector thread by the worker threads, which mustn't touch the selection keys themselves.
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile Selector selector;
+    private volatile ServerSocketChannel serverChannel;
+    private volatile boolean isRunning = true;
+
+    public NioServer(int port, int numThreads, int workQueueSize) {
+        this.port = port;
+        this.numThreads = numThreads;
+        this.workQueueSize = workQueueSize;
+    }
+
+    public void start() throws IOException {
+        start(new RequestProcessor(new Database()));
+    }
+
+    void start(RequestProcessor requestProcessor) throws IOException {
+        final var executor = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(workQueueSize));
+
+        try (var selector = Selector.open(); var serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            this.selector = selector;
+            this.serverChannel = serverChannel;
+            started.countDown();
+            System.out.println("*** JANELLE DB SERVER ***");
+            System.out.printf("Listening on port %s...\n\n", port);
+
+            var lastIdleCheck = System.currentTimeMillis();
+            while (isRunning) {
+                selector.select(IDLE_CHECK_INTERVAL_MILLIS);
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+
+                final var keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final var key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(selector, serverChannel);
+                        continue;
+                    }
+
+                    final var connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read(executor, requestProcessor);
+                        } else if (key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+
+                final var now = System.currentTimeMillis();
+                if (now - lastIdleCheck >= IDLE_CHECK_INTERVAL_MILLIS) {
+                    closeIdleConnections(selector, now);
+                    lastIdleCheck = now;
+                }
+            }
+            for (var key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    connection.close();
+                }
+            }
+        } finally {
+            started.countDown();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Stop accepting connections and close the open ones.
+     */
+    public void stop() {
+        isRunning = false;
+        final var selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Port the server is listening on, which is only known after it's bound if it was started on port 0.
+     */
+    int getLocalPort() throws InterruptedException, IOException {
+        started.await();
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    private void closeIdleConnections(Selector selector, long now) {
+        for (var key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection && connection.isIdle(now)) {
+                connection.close();
+            }
+        }
+    }
+
+    private void accept(Selector selector, ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            // Responses are small and shouldn't wait for the previous one to be acknowledged.
+            channel.socket().setTcpNoDelay(true);
+            final var key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+        }
+    }
+
+    /**
+     * A client connection and the request being read from it. A request is a 2 byte type and a 2 byte content length
+     * followed by the content, and any of them can arrive split across reads.
+     */
+    private class Connection {
+        // Response bytes the worker has written that haven't been sent yet are capped at this, so a large result
+        // isn't held in memory when the client reads it slowly.
+        private static final int MAX_PENDING_BYTES = 1 << 20;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer header = ByteBuffer.allocate(4);
+        private RequestType requestType;
+        private ByteBuffer content;
+        // Frames of the response, added by the worker thread as they're written and sent by the selector thread.
+        private final Queue<ByteBuffer> pendingWrites = new ConcurrentLinkedQueue<>();
+        private long pendingBytes = 0; // Guarded by this.
+        private volatile boolean isResponseComplete = false;
+        private volatile boolean isClosed = false;
+        private boolean isProcessing = false;
+        private boolean closeAfterResponse = false;
+        private long lastActivity = System.currentTimeMillis();
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void read(ExecutorService executor, RequestProcessor requestProcessor) throws IOException {
+            lastActivity = System.currentTimeMillis();
+            if (content == null) {
+                if (channel.read(header) < 0) {
+                    close();
+                    return;
+                }
+                if (header.hasRemaining()) {
+                    return;
+                }
+
+                header.flip();
+                requestType = RequestType.fromCode(header.getShort());
+                final var contentLength = header.getShort();
+                // The rest of the stream can't be split into requests after an invalid header.
+                if (requestType == null) {
+                    closeAfterResponse = true;
+                    respond(new Response(ResponseCode.INVALID_REQUEST, "Invalid request type."));
+                    return;
+                }
+                if (contentLength < 0 || contentLength > Request.MAX_CONTENT_LENGTH) {
+                    closeAfterResponse = true;
+                    respond(new Response(ResponseCode.INVALID_REQUEST, "Request too large!"));
+                    return;
+                }
+                content = ByteBuffer.allocate(contentLength);
+            }
+            if (content.hasRemaining() && channel.read(content) < 0) {
+                close();
+                return;
+            }
+            if (content.hasRemaining()) {
+                return;
+            }
+
+            // The request is complete. Nothing more is read from the connection until its response has been written.
+            key.interestOps(0);
+            isProcessing = true;
+            final var request = new Request(requestType, content.capacity() == 0 ? null : new String(content.array(), StandardCharsets.UTF_8));
+            try {
+                executor.execute(() -> {
+                    try {
+                        requestProcessor.process(request, new ConnectionOutputStream());
+                    } catch (IOException e) {
+                        // The connection was closed before the whole response could be sent.
+                        return;
+                    } catch (Throwable e) {
+                        // A response that failed part way can't be finished, so close the connection rather than
+                        // leave the client waiting for the rest of it.
+                        e.printStackTrace();
+                        selectorTasks.add(this::close);
+                        selector.wakeup();
+                        return;
+                    }
+                    isResponseComplete = true;
+                    resumeWriting();
+                });
+            } catch (RejectedExecutionException e) {
+                respond(new Response(ResponseCode.TOO_MANY_REQUESTS, null));
+            }
+        }
+
+        void write() throws IOException {
+            lastActivity = System.currentTimeMillis();
+            ByteBuffer buffer;
+            while ((buffer = pendingWrites.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                pendingWrites.poll();
+                synchronized (this) {
+                    pendingBytes -= buffer.capacity();
+                    notifyAll();
+                }
+            }
+            if (!isResponseComplete) {
+                // Wait for the worker to write more of the response.
+                key.interestOps(0);
+                return;
+            }
+            if (closeAfterResponse) {
+                close();
+                return;
+            }
+
+            // Get ready for the next request, which may already be waiting.
+            header.clear();
+            content = null;
+            isResponseComplete = false;
+            isProcessing = false;
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Whether the connection has been waiting on the client for too long. Connections whose request is still
+         * being processed aren't idle.
+         */
+        boolean isIdle(long now) {
+            return !isProcessing && now - lastActivity >= Server.IDLE_TIMEOUT_MILLIS;
+        }
+
+        /**
+         * Send a response that didn't need a worker. Must be called on the selector thread.
+         */
+        private void respond(Response response) {
+            RequestProcessor.logResponse(response);
+            final var bytes = response.toByteArray();
+            synchronized (this) {
+                pendingBytes += bytes.length;
+            }
+            pendingWrites.add(ByteBuffer.wrap(bytes));
+            isProcessing = true;
+            isResponseComplete = true;
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+
+        /**
+         * Have the selector thread send what the worker has written.
+         */
+        private void resumeWriting() {
+            selectorTasks.add(() -> {
+                // The response may have been sent in full already, if this comes after its last frame was written.
+                if (key.isValid() && isProcessing) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                }
+            });
+            selector.wakeup();
+        }
+
+        void close() {
+            isClosed = true;
+            synchronized (this) {
+                notifyAll();
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Stream the worker writes the response to. Writes block while too much of the response is waiting to be sent.
+         */
+        private class ConnectionOutputStream extends OutputStream {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                synchronized (Connection.this) {
+                    while (pendingBytes >= MAX_PENDING_BYTES && !isClosed) {
+                        try {
+                            Connection.this.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException();
+                        }
+                    }
+                    if (isClosed) {
+                        throw new IOException("Connection closed.");
+                    }
+                    pendingBytes += length;
+                }
+                pendingWrites.add(ByteBuffer.wrap(Arrays.copyOfRange(bytes, offset, offset + length)));
+                resumeWriting();
+            }
+        }
+    }
+}
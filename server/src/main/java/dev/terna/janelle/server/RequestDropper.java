@@ -15,6 +15,7 @@ public class RequestDropper implements RejectedExecutionHandler {
         if (runnable instanceof RequestHandler requestHandler) {
             try {
                 requestHandler.sendResponse(ResponseCode.TOO_MANY_REQUESTS, null);
+                requestHandler.close();
             } catch (IOException e) {
                 e.printStackTrace();
             }
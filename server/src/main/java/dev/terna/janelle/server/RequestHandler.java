@@ -1,123 +1,163 @@
 package dev.terna.janelle.server;
 
-import dev.terna.janelle.database.Database;
-import dev.terna.janelle.database.Utils;
 import dev.terna.janelle.protocol.Request;
 import dev.terna.janelle.protocol.RequestType;
 import dev.terna.janelle.protocol.Response;
 import dev.terna.janelle.protocol.ResponseCode;
-import dev.terna.janelle.sql.Emitter;
-import dev.terna.janelle.sql.Parser;
-import dev.terna.janelle.sql.Query;
-import dev.terna.janelle.sql.Tokenizer;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.Date;
-import java.util.List;
+import java.util.concurrent.Semaphore;
 
 public class RequestHandler implements Runnable {
     private final Socket client;
+    private final RequestProcessor requestProcessor;
+    // Limits the number of requests processed at once, or null if there's no limit.
+    private final Semaphore inFlightRequests;
+    // Where the connection waits for its next request when it runs on a fixed pool, or null if it keeps its thread.
+    private final ConnectionParker connectionParker;
+    private InputStream input;
+
+    public RequestHandler(Socket client, RequestProcessor requestProcessor) {
+        this(client, requestProcessor, null, null);
+    }
 
-    public RequestHandler(Socket client) {
+    public RequestHandler(Socket client, RequestProcessor requestProcessor, Semaphore inFlightRequests, ConnectionParker connectionParker) {
         this.client = client;
+        this.requestProcessor = requestProcessor;
+        this.inFlightRequests = inFlightRequests;
+        this.connectionParker = connectionParker;
     }
 
+    /**
+     * Handle requests until the client closes the connection or stays idle too long. Requests are handled one after
+     * another, so a client can send several at once and get the responses back in the same order. A parked
+     * connection is run again once its next request starts arriving, and it's parked again as soon as nothing more
+     * has arrived.
+     */
     @Override
     public void run() {
+        var isParked = false;
         try {
-            var requestType = getRequestType();
-            if (requestType == null) {
-                sendResponse(ResponseCode.INVALID_REQUEST, "Invalid request type.");
-                return;
-            }
-            String queryString;
-            try {
-                queryString = getContent();
-            } catch (IllegalStateException e) {
-                sendResponse(ResponseCode.INVALID_REQUEST, e.getMessage());
-                return;
+            if (input == null) {
+                client.setTcpNoDelay(true);
+                input = new BufferedInputStream(client.getInputStream());
             }
-            System.out.println("[" + new Date() + "] Request: " + requestType.name() + " " + queryString);
-
-            switch (requestType) {
-                case PING -> sendResponse(ResponseCode.SUCCESS, "PONG");
+            while (true) {
+                client.setSoTimeout(connectionParker == null ? Server.IDLE_TIMEOUT_MILLIS : Server.REQUEST_TIMEOUT_MILLIS);
+                final int firstByte;
+                try {
+                    firstByte = input.read();
+                } catch (SocketTimeoutException e) {
+                    return; // Idle for too long.
+                }
+                if (firstByte < 0) {
+                    return; // The client is done with the connection.
+                }
 
-                case QUERY -> {
-                    List<Query> queries;
-                    try {
-                        queries = getQueries(queryString);
-                    } catch (Exception e) {
-                        sendResponse(ResponseCode.QUERY_ERROR, e.getMessage());
+                client.setSoTimeout(Server.REQUEST_TIMEOUT_MILLIS);
+                RequestType requestType;
+                String queryString;
+                try {
+                    requestType = getRequestType(firstByte);
+                    if (requestType == null) {
+                        // The rest of the stream can't be split into requests after this.
+                        sendResponse(ResponseCode.INVALID_REQUEST, "Invalid request type.");
                         return;
                     }
+                    queryString = getContent();
+                } catch (IllegalStateException e) {
+                    sendResponse(ResponseCode.INVALID_REQUEST, e.getMessage());
+                    return;
+                }
 
-                    try {
-                        final var db = new Database();
-                        StringBuilder resultStringBuilder = new StringBuilder();
-                        for (var query : queries) {
-                            final var result = db.processQuery(query);
-                            resultStringBuilder.append(Utils.renderQueryResult(result)).append("\n");
-                        }
-                        sendResponse(ResponseCode.SUCCESS, resultStringBuilder.toString());
-
-                    } catch (Exception e) {
-                        sendResponse(ResponseCode.INTERNAL_ERROR, e.getMessage());
+                if (inFlightRequests != null && !inFlightRequests.tryAcquire()) {
+                    sendResponse(ResponseCode.TOO_MANY_REQUESTS, null);
+                    continue;
+                }
+                try {
+                    requestProcessor.process(new Request(requestType, queryString), client.getOutputStream());
+                } finally {
+                    if (inFlightRequests != null) {
+                        inFlightRequests.release();
                     }
                 }
 
-                default -> sendResponse(ResponseCode.SERVER_ERROR, "Server error: Request type not implemented.");
+                if (connectionParker != null && input.available() == 0) {
+                    // Give the worker back until the next request starts arriving.
+                    connectionParker.park(this);
+                    isParked = true;
+                    return;
+                }
             }
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            if (!isParked) {
+                try {
+                    close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
         }
     }
 
     public void sendResponse(ResponseCode responseCode, String content) throws IOException {
-        System.out.println("[" + new Date() + "] Response: " + responseCode.name() + " \n" + content);
+        final var response = new Response(responseCode, content);
+        RequestProcessor.logResponse(response);
+
+        client.getOutputStream().write(response.toByteArray());
+    }
 
-        final var bytes = new Response(responseCode, content).toByteArray();
-        client.getOutputStream().write(bytes);
+    public void close() throws IOException {
         client.close();
     }
 
-    private RequestType getRequestType() throws IOException {
-        final var codeBytes = client.getInputStream().readNBytes(2);
-        if (codeBytes.length != 2) {
-            return null;
-        }
-        final var code = ByteBuffer.wrap(codeBytes).getShort();
+    SocketChannel getChannel() {
+        return client.getChannel();
+    }
+
+    /**
+     * Read the rest of the type of a request whose first byte has been read.
+     */
+    private RequestType getRequestType(int firstByte) throws IOException {
+        final var code = (short) (firstByte << 8 | readRequestBytes(1)[0] & 0xFF);
         return RequestType.fromCode(code);
     }
 
     private String getContent() throws IOException {
-        final var contentLengthBytes = client.getInputStream().readNBytes(2);
-        if (contentLengthBytes.length != 2) {
-            return null;
-        }
-        final var contentLength = ByteBuffer.wrap(contentLengthBytes).getShort();
+        final var contentLength = ByteBuffer.wrap(readRequestBytes(2)).getShort();
         if (contentLength == 0) {
             return null;
         }
-        if (contentLength > Request.MAX_CONTENT_LENGTH) {
+        if (contentLength < 0 || contentLength > Request.MAX_CONTENT_LENGTH) {
             throw new IllegalStateException("Request too large!");
         }
 
-        final var contentBytes = client.getInputStream().readNBytes(contentLength);
-        if (contentBytes.length != contentLength) {
-            throw new IllegalStateException("Incomplete request content.");
-        }
-        return new String(contentBytes, StandardCharsets.UTF_8);
+        return new String(readRequestBytes(contentLength), StandardCharsets.UTF_8);
     }
 
-    private List<Query> getQueries(String queryString) throws Exception {
-        final var tokenizer = new Tokenizer(queryString);
-        final var tokens = tokenizer.tokenize();
-        final var parser = new Parser();
-        final var ast = parser.parse(tokens);
-        final var emitter = new Emitter();
-        return emitter.emit(ast);
+    /**
+     * Read bytes of a request that has started arriving. A request that stops short, because the client closed the
+     * connection or took too long to send the rest, is an IllegalStateException.
+     */
+    private byte[] readRequestBytes(int length) throws IOException {
+        final byte[] bytes;
+        try {
+            bytes = input.readNBytes(length);
+        } catch (SocketTimeoutException e) {
+            throw new IllegalStateException("Incomplete request.");
+        }
+        if (bytes.length != length) {
+            throw new IllegalStateException("Incomplete request.");
+        }
+        return bytes;
     }
 }
@@ -0,0 +1,166 @@
+package dev.terna.janelle.server;
+
+import dev.terna.janelle.database.Database;
+import dev.terna.janelle.database.Result;
+import dev.terna.janelle.database.Utils;
+import dev.terna.janelle.protocol.ColumnType;
+import dev.terna.janelle.protocol.Request;
+import dev.terna.janelle.protocol.RequestType;
+import dev.terna.janelle.protocol.Response;
+import dev.terna.janelle.protocol.ResponseCode;
+import dev.terna.janelle.protocol.ResponseOutputStream;
+import dev.terna.janelle.protocol.ResultWriter;
+import dev.terna.janelle.sql.Emitter;
+import dev.terna.janelle.sql.Parser;
+import dev.terna.janelle.sql.Query;
+import dev.terna.janelle.sql.Tokenizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Turns a request into its response. The servers only differ in how they read requests and write responses, so they
+ * all hand complete requests to this class.
+ */
+public class RequestProcessor {
+    private final Database db;
+
+    public RequestProcessor(Database db) {
+        this.db = db;
+    }
+
+    public Response process(Request request) {
+        logRequest(request);
+
+        switch (request.getType()) {
+            case PING -> {
+                return new Response(ResponseCode.SUCCESS, "PONG");
+            }
+
+            case QUERY -> {
+                List<Query> queries;
+                try {
+                    queries = getQueries(request.getContent());
+                } catch (Exception e) {
+                    return new Response(ResponseCode.QUERY_ERROR, e.getMessage());
+                }
+
+                try {
+                    StringBuilder resultStringBuilder = new StringBuilder();
+                    for (var query : queries) {
+                        final var result = db.processQuery(query);
+                        // Statements that don't return rows have nothing to render.
+                        if (result != null) {
+                            resultStringBuilder.append(Utils.renderQueryResult(result)).append("\n");
+                        }
+                    }
+                    return new Response(ResponseCode.SUCCESS, resultStringBuilder.toString());
+
+                } catch (Exception e) {
+                    return new Response(ResponseCode.INTERNAL_ERROR, e.getMessage());
+                }
+            }
+
+            case QUERY_BINARY -> {
+                try {
+                    final var frames = new ByteArrayOutputStream();
+                    writeBinaryResults(request.getContent(), new ResponseOutputStream(frames));
+                    return Response.read(new ByteArrayInputStream(frames.toByteArray()));
+                } catch (IOException e) {
+                    return new Response(ResponseCode.INTERNAL_ERROR, e.getMessage());
+                }
+            }
+
+            default -> {
+                return new Response(ResponseCode.SERVER_ERROR, "Server error: Request type not implemented.");
+            }
+        }
+    }
+
+    /**
+     * Process the request and write its response to the given stream. Binary query results are sent a frame at a
+     * time as they're written instead of being built in full first, so they can be of any size and the client gets
+     * the first rows sooner.
+     */
+    public void process(Request request, OutputStream output) throws IOException {
+        if (request.getType() != RequestType.QUERY_BINARY) {
+            final var response = process(request);
+            logResponse(response);
+            output.write(response.toByteArray());
+            output.flush();
+            return;
+        }
+
+        logRequest(request);
+        final var responseOutput = new ResponseOutputStream(output);
+        writeBinaryResults(request.getContent(), responseOutput);
+        System.out.println("[" + new Date() + "] Response: " + responseOutput.getResponseCode().name() + " \n<" + responseOutput.getContentLength() + " bytes>");
+    }
+
+    private static void logRequest(Request request) {
+        System.out.println("[" + new Date() + "] Request: " + request.getType().name() + " " + request.getContent());
+    }
+
+    public static void logResponse(Response response) {
+        final var content = response.isBinary() ? "<" + response.getContentBytes().length + " bytes>" : response.getContent();
+        System.out.println("[" + new Date() + "] Response: " + response.getResponseCode().name() + " \n" + content);
+    }
+
+    /**
+     * Run the queries and write their results to the response, ending it with SUCCESS or an error.
+     * Binary results format:
+     * Result count (2 bytes) + Results (see ResultWriter)
+     */
+    private void writeBinaryResults(String queryString, ResponseOutputStream responseOutput) throws IOException {
+        List<Query> queries;
+        try {
+            queries = getQueries(queryString);
+        } catch (Exception e) {
+            responseOutput.fail(ResponseCode.QUERY_ERROR, e.getMessage());
+            return;
+        }
+
+        try {
+            final var output = new DataOutputStream(responseOutput);
+            output.writeShort(queries.size());
+            for (var query : queries) {
+                writeResult(output, db.processQuery(query));
+            }
+            responseOutput.finish(ResponseCode.SUCCESS);
+        } catch (Exception e) {
+            // Also reached when the client has gone away, in which case failing throws as well.
+            responseOutput.fail(ResponseCode.INTERNAL_ERROR, e.getMessage());
+        }
+    }
+
+    private static void writeResult(DataOutputStream output, Result result) throws IOException {
+        if (result == null) {
+            // Statements that don't return rows get an empty result.
+            new ResultWriter(output, new String[]{}, new ColumnType[]{}).finish();
+            return;
+        }
+
+        final var columnTypes = Arrays.stream(result.getColumnTypes())
+                .map(dataType -> ColumnType.valueOf(dataType.name()))
+                .toArray(ColumnType[]::new);
+        final var writer = new ResultWriter(output, result.getColumns(), columnTypes);
+        // Rows are written as the query plan produces them.
+        result.forEachBatch(ResultWriter.BATCH_SIZE, (batch, count) -> writer.writeBatch(batch, 0, count));
+        writer.finish();
+    }
+
+    private List<Query> getQueries(String queryString) throws Exception {
+        final var tokenizer = new Tokenizer(queryString);
+        final var tokens = tokenizer.tokenize();
+        final var parser = new Parser();
+        final var ast = parser.parse(tokens);
+        final var emitter = new Emitter();
+        return emitter.emit(ast);
+    }
+}
@@ -1,31 +1,132 @@
 package dev.terna.janelle.server;
 
+import dev.terna.janelle.database.Database;
+
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.concurrent.*;
 
 public class Server {
+    // How long a connection can stay open without a request before it's closed.
+    public static final int IDLE_TIMEOUT_MILLIS = 60_000;
+    // How long the rest of a request can take once it has started arriving. With a fixed pool the connection holds a
+    // worker meanwhile, so this is kept short.
+    public static final int REQUEST_TIMEOUT_MILLIS = 5_000;
     private final int port;
     private final int numThreads;
     private final int workQueueSize;
+    // Only used with virtual threads, where the number of queries being processed is limited instead of the queue.
+    private final int maxInFlightRequests;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile ServerSocketChannel serverChannel;
+    private volatile boolean isRunning = true;
 
     public Server(int port, int numThreads, int workQueueSize) {
+        this(port, numThreads, workQueueSize, 0);
+    }
+
+    private Server(int port, int numThreads, int workQueueSize, int maxInFlightRequests) {
         this.port = port;
         this.numThreads = numThreads;
         this.workQueueSize = workQueueSize;
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    /**
+     * Server that runs every connection on its own virtual thread, so a burst of connections doesn't wait for pool
+     * threads or fill up a queue. Requests beyond the given number of in-flight queries get TOO_MANY_REQUESTS.
+     */
+    public static Server withVirtualThreads(int port, int maxInFlightRequests) {
+        if (maxInFlightRequests < 1) {
+            throw new IllegalArgumentException("Max in-flight requests must be at least 1.");
+        }
+        return new Server(port, 0, 0, maxInFlightRequests);
     }
 
     public void start() throws IOException {
-        ExecutorService executor = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(workQueueSize), new RequestDropper());
+        // Tables are loaded once and shared by all requests.
+        start(new RequestProcessor(new Database()));
+    }
+
+    /**
+     * With virtual threads, every connection keeps its thread and waits on it for the next request. With a fixed
+     * pool, connections waiting for their next request are parked instead, so they don't hold a worker while the
+     * client is idle, see {@link ConnectionParker}.
+     */
+    void start(RequestProcessor requestProcessor) throws IOException {
+        ExecutorService executor;
+        Semaphore inFlightRequests = null;
+        ConnectionParker connectionParker = null;
+        if (maxInFlightRequests > 0) {
+            executor = newVirtualThreadExecutor();
+            inFlightRequests = new Semaphore(maxInFlightRequests);
+        } else {
+            executor = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(workQueueSize), new RequestDropper());
+            connectionParker = new ConnectionParker(executor);
+            final var parkerThread = new Thread(connectionParker, "connection-parker");
+            parkerThread.setDaemon(true);
+            parkerThread.start();
+        }
 
-        try(ServerSocket server = new ServerSocket(port)) {
+        try (var serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port));
+            this.serverChannel = serverChannel;
+            started.countDown();
             System.out.println("*** JANELLE DB SERVER ***");
             System.out.printf("Listening on port %s...\n\n", port);
 
-            while (true) {
-                final var requestHandler = new RequestHandler(server.accept());
-                executor.submit(requestHandler);
+            while (isRunning) {
+                final var client = serverChannel.accept().socket();
+                if (connectionParker != null) {
+                    // Nothing is read until the first request starts arriving.
+                    connectionParker.park(new RequestHandler(client, requestProcessor, null, connectionParker));
+                } else {
+                    // execute rather than submit, so a rejected handler reaches RequestDropper unwrapped.
+                    executor.execute(new RequestHandler(client, requestProcessor, inFlightRequests, null));
+                }
             }
+        } catch (AsynchronousCloseException e) {
+            // Stopped.
+        } finally {
+            started.countDown();
+            if (connectionParker != null) {
+                connectionParker.stop();
+            }
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Stop accepting connections. Parked connections are closed, connections being served finish their request.
+     */
+    public void stop() throws IOException {
+        isRunning = false;
+        final var serverChannel = this.serverChannel;
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+    }
+
+    /**
+     * Port the server is listening on, which is only known after it's bound if it was started on port 0.
+     */
+    int getLocalPort() throws InterruptedException, IOException {
+        started.await();
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Virtual threads need Java 21, and the server is built for 17, so the executor is looked up at runtime. On older
+     * runtimes threads are cached and reused instead, which still doesn't limit the number of connections.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads aren't available, using a cached thread pool.");
+            return Executors.newCachedThreadPool();
         }
     }
 }
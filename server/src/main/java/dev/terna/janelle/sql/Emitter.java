@@ -1,6 +1,7 @@
 package dev.terna.janelle.sql;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 public class Emitter {
@@ -15,8 +16,11 @@ public class Emitter {
 
             query.setStatement(getStatement(statementNode));
             query.setTable(getTable(statementNode));
-            query.setColumns(getColumns(statementNode));
+            query.setColumns(getColumns(statementNode, NodeType.COLUMNS));
+            query.setIncludedColumns(getColumns(statementNode, NodeType.INCLUDED_COLUMNS));
             query.setWhereClause(getWhereClause(statementNode));
+            query.setOrderByClause(getOrderByClause(statementNode));
+            query.setLimit(getLimit(statementNode));
 
             queries.add(query);
         }
@@ -35,6 +39,9 @@ public class Emitter {
             case DESCRIBE -> {
                 return Statement.DESCRIBE;
             }
+            case CREATE_INDEX -> {
+                return Statement.CREATE_INDEX;
+            }
             default -> throw new IllegalStateException(statement.getNodeType() + " node type is not a statement.");
         }
     }
@@ -49,19 +56,51 @@ public class Emitter {
         return null;
     }
 
-    private List<String> getColumns(Node statement) {
+    private List<String> getColumns(Node statement, NodeType columnsNodeType) {
         for (var statementChild : statement.getChildren()) {
-            if (statementChild.getNodeType() == NodeType.COLUMNS) {
+            if (statementChild.getNodeType() == columnsNodeType) {
+                // Commas and * aren't columns.
                 return statementChild.getTokens()
                         .stream()
+                        .filter(token -> token.getTokenType() == TokenType.IDENTIFIER)
                         .map(Token::getValue)
-                        .filter(value -> !"*".equals(value))
                         .toList();
             }
         }
         return List.of();
     }
 
+    private LinkedHashMap<String, Order> getOrderByClause(Node statement) {
+        final var orderByClause = new LinkedHashMap<String, Order>();
+        for (var statementChild : statement.getChildren()) {
+            if (statementChild.getNodeType() == NodeType.ORDER_BY_CLAUSE) {
+                // Columns are in ascending order unless they're followed by desc.
+                String columnName = null;
+                for (var token : statementChild.getTokens()) {
+                    switch (token.getTokenType()) {
+                        case IDENTIFIER -> {
+                            columnName = token.getValue();
+                            orderByClause.put(columnName, Order.ASCENDING);
+                        }
+                        case DESCENDING -> orderByClause.put(columnName, Order.DESCENDING);
+                        default -> {
+                        }
+                    }
+                }
+            }
+        }
+        return orderByClause;
+    }
+
+    private Integer getLimit(Node statement) {
+        for (var statementChild : statement.getChildren()) {
+            if (statementChild.getNodeType() == NodeType.LIMIT) {
+                return Integer.parseInt(statementChild.getTokens().get(0).getValue());
+            }
+        }
+        return null;
+    }
+
     private List<Token> getWhereClause(Node statement) {
         for (var statementChild : statement.getChildren()) {
             if (statementChild.getNodeType() == NodeType.WHERE_CLAUSE) {
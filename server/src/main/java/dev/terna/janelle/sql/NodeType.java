@@ -10,4 +10,8 @@ public enum NodeType {
     WHERE_CLAUSE,
     EXPRESSION,
     DESCRIBE,
+    CREATE_INDEX,
+    INCLUDED_COLUMNS,
+    ORDER_BY_CLAUSE,
+    LIMIT,
 }
@@ -129,6 +129,9 @@ public class Parser {
         }
 
         switch (statementType) {
+            case CREATE -> {
+                return parseCreateStatement(tokens);
+            }
             case SELECT -> {
                 return parseSelectStatement(tokens);
             }
@@ -198,7 +201,9 @@ public class Parser {
                 continue;
             }
 
-            if (token.getTokenType() == TokenType.ORDER_BY || token.getTokenType() == TokenType.SEMICOLON) { // End
+            if (token.getTokenType() == TokenType.ORDER_BY
+                    || token.getTokenType() == TokenType.LIMIT
+                    || token.getTokenType() == TokenType.SEMICOLON) { // End
                 break;
             }
 
@@ -214,12 +219,84 @@ public class Parser {
         }
 
         // Get order by tokens.
-        // WIP
+        final var orderByTokens = new ArrayList<Token>();
+        boolean hasOrderByClause = false;
+        for (var token : select.getTokens()) {
+            if (token.getTokenType() == TokenType.ORDER_BY && !hasOrderByClause) { // Start
+                hasOrderByClause = true;
+                continue;
+            }
+
+            if (!hasOrderByClause) {
+                continue;
+            }
+
+            if (token.getTokenType() == TokenType.LIMIT || token.getTokenType() == TokenType.SEMICOLON) { // End
+                break;
+            }
+
+            orderByTokens.add(token);
+        }
+        if (hasOrderByClause) {
+            children.add(parseOrderByClause(orderByTokens));
+        }
+
+        // Get limit token.
+        for (var tokenIndex = 0; tokenIndex < tokens.size(); tokenIndex++) {
+            if (tokens.get(tokenIndex).getTokenType() == TokenType.LIMIT) {
+                final var isValidLimit = tokenIndex + 1 < tokens.size()
+                        && tokens.get(tokenIndex + 1).getTokenType() == TokenType.INT_LITERAL
+                        && isNumberOfRows(tokens.get(tokenIndex + 1).getValue());
+                if (!isValidLimit) {
+                    throw new Exception("Syntax error: Limit must be a number of rows.");
+                }
+                children.add(new Node(NodeType.LIMIT, List.of(tokens.get(tokenIndex + 1))));
+                break;
+            }
+        }
 
         select.setChildren(children);
         return select;
     }
 
+    /**
+     * Whether an integer literal is a limit the emitter can take: not negative, and small enough for an int.
+     */
+    private static boolean isNumberOfRows(String value) {
+        try {
+            return Integer.parseInt(value) >= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * column_name [asc | desc], ...
+     */
+    private Node parseOrderByClause(List<Token> tokens) throws Exception {
+        final var orderByClause = new Node(NodeType.ORDER_BY_CLAUSE, tokens);
+        final var children = new ArrayList<Node>();
+        var index = -1;
+        do {
+            index++;
+            if (index >= tokens.size() || tokens.get(index).getTokenType() != TokenType.IDENTIFIER) {
+                throw new Exception("Syntax error: Could not parse order by clause.");
+            }
+            children.add(parseIdentifier(List.of(tokens.get(index))));
+            index++;
+            if (index < tokens.size()
+                    && (tokens.get(index).getTokenType() == TokenType.ASCENDING || tokens.get(index).getTokenType() == TokenType.DESCENDING)) {
+                index++;
+            }
+        } while (index < tokens.size() && tokens.get(index).getTokenType() == TokenType.COMMA);
+        if (index < tokens.size()) {
+            throw new Exception("Syntax error: Could not parse order by clause.");
+        }
+
+        orderByClause.setChildren(children);
+        return orderByClause;
+    }
+
     private Node parseWhereClause(List<Token> tokens) {
         final var whereClause = new Node(NodeType.WHERE_CLAUSE, tokens);
         final var children = new ArrayList<Node>();
@@ -303,6 +380,76 @@ public class Parser {
         return new Node(NodeType.IDENTIFIER, tokens);
     }
 
+    private Node parseCreateStatement(List<Token> tokens) throws Exception {
+        if (tokens.size() < 2 || tokens.get(1).getTokenType() != TokenType.INDEX) {
+            throw new Exception("Parser error: Not implemented. Statement - " + TokenType.CREATE + ".");
+        }
+        return parseCreateIndexStatement(tokens);
+    }
+
+    /**
+     * create index on table_name (column_name, ...) [include (column_name, ...)]
+     */
+    private Node parseCreateIndexStatement(List<Token> tokens) throws Exception {
+        final var isValidStart = tokens.size() > 4
+                && tokens.get(2).getTokenType() == TokenType.ON
+                && tokens.get(3).getTokenType() == TokenType.IDENTIFIER;
+        if (!isValidStart) {
+            throw new Exception("Syntax error: Invalid create index statement.");
+        }
+
+        final var createIndex = new Node(NodeType.CREATE_INDEX, tokens);
+        final var children = new ArrayList<Node>();
+        children.add(parseTable(List.of(tokens.get(3))));
+
+        final var columnsEnd = parseColumnList(tokens, 4, NodeType.COLUMNS, children);
+        if (columnsEnd < tokens.size()) {
+            if (tokens.get(columnsEnd).getTokenType() != TokenType.INCLUDE) {
+                throw new Exception("Syntax error: Invalid create index statement.");
+            }
+            if (parseColumnList(tokens, columnsEnd + 1, NodeType.INCLUDED_COLUMNS, children) != tokens.size()) {
+                throw new Exception("Syntax error: Invalid create index statement.");
+            }
+        }
+        createIndex.setChildren(children);
+
+        return createIndex;
+    }
+
+    /**
+     * Parse "(column_name, ...)" starting at the given token into a node of the given type. Returns the index of the
+     * token after it.
+     */
+    private int parseColumnList(List<Token> tokens, int start, NodeType nodeType, List<Node> nodes) throws Exception {
+        if (start >= tokens.size() || tokens.get(start).getTokenType() != TokenType.OPEN_PAREN) {
+            throw new Exception("Syntax error: Expected a list of columns.");
+        }
+
+        final var columnTokens = new ArrayList<Token>();
+        final var identifiers = new ArrayList<Node>();
+        var index = start;
+        do {
+            index++;
+            if (index >= tokens.size() || tokens.get(index).getTokenType() != TokenType.IDENTIFIER) {
+                throw new Exception("Syntax error: Could not parse list of columns.");
+            }
+            if (!columnTokens.isEmpty()) {
+                columnTokens.add(tokens.get(index - 1));
+            }
+            columnTokens.add(tokens.get(index));
+            identifiers.add(parseIdentifier(List.of(tokens.get(index))));
+            index++;
+        } while (index < tokens.size() && tokens.get(index).getTokenType() == TokenType.COMMA);
+        if (index >= tokens.size() || tokens.get(index).getTokenType() != TokenType.CLOSE_PAREN) {
+            throw new Exception("Syntax error: Could not parse list of columns.");
+        }
+
+        final var columns = new Node(nodeType, columnTokens);
+        columns.setChildren(identifiers);
+        nodes.add(columns);
+        return index + 1;
+    }
+
     private Node parseDropStatement(List<Token> tokens) {
         // WIP
         return new Node(NodeType.DROP, tokens);
@@ -10,10 +10,12 @@ public class Query {
     private Statement statement;
     private String table;
     private List<String> columns;
+    private List<String> includedColumns; // Columns an index keeps a copy of besides its key columns.
     private List<Object[]> rows;
     private HashMap<Column, Column> schema; // new column -> old column (or null if there's no old column)
     private List<Token> whereClause; // Postfix expression.
     private LinkedHashMap<String, Order> orderByClause; // column -> order
+    private Integer limit; // Maximum number of rows, or null if there's no limit.
 
     public Statement getStatement() {
         return statement;
@@ -39,6 +41,14 @@ public class Query {
         this.columns = columns;
     }
 
+    public List<String> getIncludedColumns() {
+        return includedColumns;
+    }
+
+    public void setIncludedColumns(List<String> includedColumns) {
+        this.includedColumns = includedColumns;
+    }
+
     public List<Object[]> getRows() {
         return rows;
     }
@@ -70,4 +80,12 @@ public class Query {
     public void setOrderByClause(LinkedHashMap<String, Order> orderByClause) {
         this.orderByClause = orderByClause;
     }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
 }
@@ -2,6 +2,7 @@ package dev.terna.janelle.sql;
 
 public enum Statement {
     CREATE,
+    CREATE_INDEX,
     INSERT,
     SELECT,
     DESCRIBE,
@@ -26,6 +26,10 @@ public enum TokenType {
     DEFAULT,
     ASCENDING,
     DESCENDING,
+    INDEX,
+    ON,
+    INCLUDE,
+    LIMIT,
 
     // Functions
     COUNT,
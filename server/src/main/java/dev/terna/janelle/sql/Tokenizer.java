@@ -59,6 +59,10 @@ public class Tokenizer {
                     || tokenizeKeyword("^or$", TokenType.OR)
                     || tokenizeKeyword("^asc$", TokenType.ASCENDING)
                     || tokenizeKeyword("^desc$", TokenType.DESCENDING)
+                    || tokenizeKeyword("^index$", TokenType.INDEX)
+                    || tokenizeKeyword("^on$", TokenType.ON)
+                    || tokenizeKeyword("^include$", TokenType.INCLUDE)
+                    || tokenizeKeyword("^limit$", TokenType.LIMIT)
 
                     || tokenizeKeyword("^count$", TokenType.COUNT)
                     || tokenizeKeyword("^average$", TokenType.AVERAGE)
@@ -194,7 +198,14 @@ public class Tokenizer {
         if (charRightOfQueryBufferIsWord()) {
             return false;
         }
-        
+
+        // "order" can be the first word of "order by", which is only matched as a keyword once both words are read.
+        final var isStartOfOrderBy = queryBuffer.equalsIgnoreCase("order")
+                && Pattern.compile("^\\s+by\\b", Pattern.CASE_INSENSITIVE).matcher(query.substring(queryBufferEnd)).find();
+        if (isStartOfOrderBy) {
+            return false;
+        }
+
         tokens.add(new Token(TokenType.IDENTIFIER, queryBuffer));
         return true;
     }
@@ -0,0 +1,319 @@
+package dev.terna.janelle.sql.postfixexpression;
+
+import dev.terna.janelle.sql.Parser;
+import dev.terna.janelle.sql.Token;
+import dev.terna.janelle.sql.TokenType;
+
+import java.util.List;
+import java.util.Stack;
+import java.util.TreeMap;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compile postfix expression into a tree of closures that can be evaluated many times, e.g. once per row.
+ * Literals are parsed, variables are resolved and each operator is picked once when the expression is compiled, so
+ * evaluating it is just calling the closures. The results are the same as the Evaluator's.
+ * The type of every operator's result is known when it's compiled, and so is the type of literals and of variables
+ * that are given as typed closures. Operators whose operands are both known to be numbers or bools get closures that
+ * work on primitives, so they neither box values nor check their types for every row. Only operands whose type isn't
+ * known, like strings, null and untyped variables, are evaluated as objects and checked when they're evaluated.
+ */
+public class Compiler {
+    /**
+     * Compiled expression, evaluated against a row of type R.
+     */
+    @FunctionalInterface
+    public interface CompiledExpression<R> {
+        Object evaluate(R row);
+    }
+
+    /**
+     * Compiled expression that's known to evaluate to a number.
+     */
+    @FunctionalInterface
+    public interface NumberExpression<R> extends CompiledExpression<R> {
+        double evaluateNumber(R row);
+
+        @Override
+        default Object evaluate(R row) {
+            return evaluateNumber(row);
+        }
+    }
+
+    /**
+     * Compiled expression that's known to evaluate to a bool.
+     */
+    @FunctionalInterface
+    public interface BoolExpression<R> extends CompiledExpression<R> {
+        boolean evaluateBool(R row);
+
+        @Override
+        default Object evaluate(R row) {
+            return evaluateBool(row);
+        }
+    }
+
+    /**
+     * Number whose primitive value is read with number, and whose boxed value is read with value, e.g. an Integer
+     * variable. Evaluating it as an object then gives the same value as the Evaluator.
+     */
+    public static <R> NumberExpression<R> number(ToDoubleFunction<R> number, CompiledExpression<R> value) {
+        return new NumberExpression<>() {
+            @Override
+            public double evaluateNumber(R row) {
+                return number.applyAsDouble(row);
+            }
+
+            @Override
+            public Object evaluate(R row) {
+                return value.evaluate(row);
+            }
+        };
+    }
+
+    /**
+     * Compile the expression for rows that are arrays of values, named by the given variable names. Like in the
+     * Evaluator, variable names are case-insensitive and unknown variables are null.
+     */
+    public static CompiledExpression<Object[]> compile(List<Token> expression, String[] variableNames) {
+        final var variableIndexes = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+        for (var index = 0; index < variableNames.length; index++) {
+            variableIndexes.put(variableNames[index], index);
+        }
+
+        return compile(expression, variableName -> {
+            final var index = variableIndexes.get(variableName);
+            if (index == null) {
+                return row -> null;
+            }
+            return row -> row[index];
+        });
+    }
+
+    /**
+     * Compile the expression, using the given function to get the closure that reads each variable from a row.
+     */
+    public static <R> CompiledExpression<R> compile(List<Token> expression, Function<String, CompiledExpression<R>> variables) {
+        final var stack = new Stack<CompiledExpression<R>>();
+        for (var token : expression) {
+            if (Parser.OPERANDS.contains(token.getTokenType())) {
+                stack.push(compileOperand(token.getTokenType(), token.getValue(), variables));
+
+            } else {
+                final var secondOperand = stack.pop();
+                final var firstOperand = stack.pop();
+                stack.push(compileOperation(token.getTokenType(), firstOperand, secondOperand));
+            }
+        }
+
+        return stack.pop();
+    }
+
+    private static <R> CompiledExpression<R> compileOperand(TokenType name, String value, Function<String, CompiledExpression<R>> variables) {
+        switch (name) {
+            case INT_LITERAL -> {
+                final Object nativeValue = Integer.parseInt(value);
+                final double number = (Integer) nativeValue;
+                return number(row -> number, row -> nativeValue);
+            }
+            case FLOAT_LITERAL -> {
+                final Object nativeValue = Float.parseFloat(value);
+                final double number = (Float) nativeValue;
+                return number(row -> number, row -> nativeValue);
+            }
+            case STRING_LITERAL -> {
+                // Remove quotes.
+                final Object nativeValue = value.substring(1, value.length() - 1);
+                return row -> nativeValue;
+            }
+            case BOOL_LITERAL -> {
+                final var nativeValue = Boolean.parseBoolean(value);
+                return (BoolExpression<R>) row -> nativeValue;
+            }
+            case NULL_LITERAL -> {
+                return row -> null;
+            }
+            case IDENTIFIER -> {
+                return variables.apply(value);
+            }
+            default -> throw new IllegalStateException(String.format("Cannot get native value of operand %s of type %s", value, name));
+        }
+    }
+
+    private static <R> CompiledExpression<R> compileOperation(TokenType operator, CompiledExpression<R> first, CompiledExpression<R> second) {
+        if (first instanceof NumberExpression<R> a && second instanceof NumberExpression<R> b) {
+            final var operation = compileNumberOperation(operator, a, b);
+            if (operation != null) {
+                return operation;
+            }
+        } else if (first instanceof BoolExpression<R> a && second instanceof BoolExpression<R> b) {
+            final var operation = compileBoolOperation(operator, a, b);
+            if (operation != null) {
+                return operation;
+            }
+        }
+
+        // The operands' types are checked for every row. The results' types are still known, so operators above them
+        // can be typed.
+        switch (operator) {
+            case ADD_OP -> {
+                return arithmetic(operator, first, second, Double::sum);
+            }
+
+            case SUBTRACT_OP -> {
+                return arithmetic(operator, first, second, (a, b) -> a - b);
+            }
+
+            case MULTIPLY_OP -> {
+                return arithmetic(operator, first, second, (a, b) -> a * b);
+            }
+
+            case DIVIDE_OP -> {
+                return arithmetic(operator, first, second, (a, b) -> a / b);
+            }
+
+            case EQUAL_OP -> {
+                return (BoolExpression<R>) row -> isEqual(first.evaluate(row), second.evaluate(row));
+            }
+
+            case NOT_EQUAL_OP -> {
+                return (BoolExpression<R>) row -> !isEqual(first.evaluate(row), second.evaluate(row));
+            }
+
+            case GREATER_THAN_OP -> {
+                return (BoolExpression<R>) row -> {
+                    final var firstOperand = first.evaluate(row);
+                    final var secondOperand = second.evaluate(row);
+                    if (firstOperand instanceof Number a && secondOperand instanceof Number b) {
+                        return a.doubleValue() > b.doubleValue();
+                    } else if (Evaluator.isStringComparison(firstOperand, secondOperand)) {
+                        return Evaluator.compareStrings((String) firstOperand, (String) secondOperand) > 0;
+                    }
+                    throw cannotCompute(operator, firstOperand, secondOperand);
+                };
+            }
+
+            case GREATER_THAN_OR_EQUAL_OP -> {
+                return (BoolExpression<R>) row -> {
+                    final var firstOperand = first.evaluate(row);
+                    final var secondOperand = second.evaluate(row);
+                    if (firstOperand instanceof Number a && secondOperand instanceof Number b) {
+                        return a.doubleValue() >= b.doubleValue();
+                    } else if (Evaluator.isStringComparison(firstOperand, secondOperand)) {
+                        return Evaluator.compareStrings((String) firstOperand, (String) secondOperand) >= 0;
+                    }
+                    throw cannotCompute(operator, firstOperand, secondOperand);
+                };
+            }
+
+            case LESS_THAN_OP -> {
+                return (BoolExpression<R>) row -> {
+                    final var firstOperand = first.evaluate(row);
+                    final var secondOperand = second.evaluate(row);
+                    if (firstOperand instanceof Number a && secondOperand instanceof Number b) {
+                        return a.doubleValue() < b.doubleValue();
+                    } else if (Evaluator.isStringComparison(firstOperand, secondOperand)) {
+                        return Evaluator.compareStrings((String) firstOperand, (String) secondOperand) < 0;
+                    }
+                    throw cannotCompute(operator, firstOperand, secondOperand);
+                };
+            }
+
+            case LESS_THAN_OR_EQUAL_OP -> {
+                return (BoolExpression<R>) row -> {
+                    final var firstOperand = first.evaluate(row);
+                    final var secondOperand = second.evaluate(row);
+                    if (firstOperand instanceof Number a && secondOperand instanceof Number b) {
+                        return a.doubleValue() <= b.doubleValue();
+                    } else if (Evaluator.isStringComparison(firstOperand, secondOperand)) {
+                        return Evaluator.compareStrings((String) firstOperand, (String) secondOperand) <= 0;
+                    }
+                    throw cannotCompute(operator, firstOperand, secondOperand);
+                };
+            }
+
+            // Both operands are always evaluated, so errors in either are reported like by the Evaluator.
+            case AND -> {
+                return (BoolExpression<R>) row -> {
+                    final var firstOperand = first.evaluate(row);
+                    final var secondOperand = second.evaluate(row);
+                    if (firstOperand instanceof Boolean a && secondOperand instanceof Boolean b) {
+                        return a && b;
+                    }
+                    throw cannotCompute(operator, firstOperand, secondOperand);
+                };
+            }
+
+            case OR -> {
+                return (BoolExpression<R>) row -> {
+                    final var firstOperand = first.evaluate(row);
+                    final var secondOperand = second.evaluate(row);
+                    if (firstOperand instanceof Boolean a && secondOperand instanceof Boolean b) {
+                        return a || b;
+                    }
+                    throw cannotCompute(operator, firstOperand, secondOperand);
+                };
+            }
+
+            default -> {
+                return row -> {
+                    throw cannotCompute(operator, first.evaluate(row), second.evaluate(row));
+                };
+            }
+        }
+    }
+
+    private static <R> CompiledExpression<R> compileNumberOperation(TokenType operator, NumberExpression<R> first, NumberExpression<R> second) {
+        return switch (operator) {
+            case ADD_OP -> (NumberExpression<R>) row -> first.evaluateNumber(row) + second.evaluateNumber(row);
+            case SUBTRACT_OP -> (NumberExpression<R>) row -> first.evaluateNumber(row) - second.evaluateNumber(row);
+            case MULTIPLY_OP -> (NumberExpression<R>) row -> first.evaluateNumber(row) * second.evaluateNumber(row);
+            case DIVIDE_OP -> (NumberExpression<R>) row -> first.evaluateNumber(row) / second.evaluateNumber(row);
+            case EQUAL_OP -> (BoolExpression<R>) row -> first.evaluateNumber(row) == second.evaluateNumber(row);
+            case NOT_EQUAL_OP -> (BoolExpression<R>) row -> first.evaluateNumber(row) != second.evaluateNumber(row);
+            case GREATER_THAN_OP -> (BoolExpression<R>) row -> first.evaluateNumber(row) > second.evaluateNumber(row);
+            case GREATER_THAN_OR_EQUAL_OP -> (BoolExpression<R>) row -> first.evaluateNumber(row) >= second.evaluateNumber(row);
+            case LESS_THAN_OP -> (BoolExpression<R>) row -> first.evaluateNumber(row) < second.evaluateNumber(row);
+            case LESS_THAN_OR_EQUAL_OP -> (BoolExpression<R>) row -> first.evaluateNumber(row) <= second.evaluateNumber(row);
+            default -> null;
+        };
+    }
+
+    private static <R> BoolExpression<R> compileBoolOperation(TokenType operator, BoolExpression<R> first, BoolExpression<R> second) {
+        return switch (operator) {
+            // Both operands are always evaluated, like by the untyped operators.
+            case AND -> row -> first.evaluateBool(row) & second.evaluateBool(row);
+            case OR -> row -> first.evaluateBool(row) | second.evaluateBool(row);
+            case EQUAL_OP -> row -> first.evaluateBool(row) == second.evaluateBool(row);
+            case NOT_EQUAL_OP -> row -> first.evaluateBool(row) != second.evaluateBool(row);
+            default -> null;
+        };
+    }
+
+    private static <R> NumberExpression<R> arithmetic(TokenType operator, CompiledExpression<R> first, CompiledExpression<R> second, DoubleBinaryOperator operation) {
+        return row -> {
+            final var firstOperand = first.evaluate(row);
+            final var secondOperand = second.evaluate(row);
+            if (firstOperand instanceof Number a && secondOperand instanceof Number b) {
+                return operation.applyAsDouble(a.doubleValue(), b.doubleValue());
+            }
+            throw cannotCompute(operator, firstOperand, secondOperand);
+        };
+    }
+
+    private static boolean isEqual(Object firstOperand, Object secondOperand) {
+        if (firstOperand instanceof Number a && secondOperand instanceof Number b) {
+            return a.doubleValue() == b.doubleValue();
+        } else if ((firstOperand instanceof String && secondOperand instanceof String)
+                || (firstOperand instanceof Boolean && secondOperand instanceof Boolean)) {
+            return firstOperand.equals(secondOperand);
+        }
+        return firstOperand == null && secondOperand == null;
+    }
+
+    private static IllegalStateException cannotCompute(TokenType operator, Object firstOperand, Object secondOperand) {
+        return new IllegalStateException(String.format("Cannot compute %s %s %s.", firstOperand, operator, secondOperand));
+    }
+}
@@ -4,6 +4,8 @@ import dev.terna.janelle.sql.Parser;
 import dev.terna.janelle.sql.Token;
 import dev.terna.janelle.sql.TokenType;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
@@ -67,31 +69,31 @@ public class Evaluator {
         switch (operator) {
             case ADD_OP -> {
                 if (firstOperand instanceof Number && secondOperand instanceof Number) {
-                    return Double.parseDouble(firstOperand.toString()) + Double.parseDouble(secondOperand.toString());
+                    return ((Number) firstOperand).doubleValue() + ((Number) secondOperand).doubleValue();
                 }
             }
 
             case SUBTRACT_OP -> {
                 if (firstOperand instanceof Number && secondOperand instanceof Number) {
-                    return Double.parseDouble(firstOperand.toString()) - Double.parseDouble(secondOperand.toString());
+                    return ((Number) firstOperand).doubleValue() - ((Number) secondOperand).doubleValue();
                 }
             }
 
             case MULTIPLY_OP -> {
                 if (firstOperand instanceof Number && secondOperand instanceof Number) {
-                    return Double.parseDouble(firstOperand.toString()) * Double.parseDouble(secondOperand.toString());
+                    return ((Number) firstOperand).doubleValue() * ((Number) secondOperand).doubleValue();
                 }
             }
 
             case DIVIDE_OP -> {
                 if (firstOperand instanceof Number && secondOperand instanceof Number) {
-                    return Double.parseDouble(firstOperand.toString()) / Double.parseDouble(secondOperand.toString());
+                    return ((Number) firstOperand).doubleValue() / ((Number) secondOperand).doubleValue();
                 }
             }
 
             case EQUAL_OP -> {
                 if (firstOperand instanceof Number && secondOperand instanceof Number) {
-                    return Double.parseDouble(firstOperand.toString()) == Double.parseDouble(secondOperand.toString());
+                    return ((Number) firstOperand).doubleValue() == ((Number) secondOperand).doubleValue();
                 } else if ((firstOperand instanceof String && secondOperand instanceof String)
                         || (firstOperand instanceof Boolean && secondOperand instanceof Boolean)) {
                     return firstOperand.equals(secondOperand);
@@ -109,25 +111,33 @@ public class Evaluator {
 
             case GREATER_THAN_OP -> {
                 if (firstOperand instanceof Number && secondOperand instanceof Number) {
-                    return Double.parseDouble(firstOperand.toString()) > Double.parseDouble(secondOperand.toString());
+                    return ((Number) firstOperand).doubleValue() > ((Number) secondOperand).doubleValue();
+                } else if (isStringComparison(firstOperand, secondOperand)) {
+                    return compareStrings((String) firstOperand, (String) secondOperand) > 0;
                 }
             }
 
             case GREATER_THAN_OR_EQUAL_OP -> {
                 if (firstOperand instanceof Number && secondOperand instanceof Number) {
-                    return Double.parseDouble(firstOperand.toString()) >= Double.parseDouble(secondOperand.toString());
+                    return ((Number) firstOperand).doubleValue() >= ((Number) secondOperand).doubleValue();
+                } else if (isStringComparison(firstOperand, secondOperand)) {
+                    return compareStrings((String) firstOperand, (String) secondOperand) >= 0;
                 }
             }
 
             case LESS_THAN_OP -> {
                 if (firstOperand instanceof Number && secondOperand instanceof Number) {
-                    return Double.parseDouble(firstOperand.toString()) < Double.parseDouble(secondOperand.toString());
+                    return ((Number) firstOperand).doubleValue() < ((Number) secondOperand).doubleValue();
+                } else if (isStringComparison(firstOperand, secondOperand)) {
+                    return compareStrings((String) firstOperand, (String) secondOperand) < 0;
                 }
             }
 
             case LESS_THAN_OR_EQUAL_OP -> {
                 if (firstOperand instanceof Number && secondOperand instanceof Number) {
-                    return Double.parseDouble(firstOperand.toString()) <= Double.parseDouble(secondOperand.toString());
+                    return ((Number) firstOperand).doubleValue() <= ((Number) secondOperand).doubleValue();
+                } else if (isStringComparison(firstOperand, secondOperand)) {
+                    return compareStrings((String) firstOperand, (String) secondOperand) <= 0;
                 }
             }
 
@@ -146,4 +156,24 @@ public class Evaluator {
 
         throw new IllegalStateException(String.format("Cannot compute %s %s %s.", firstOperand, operator, secondOperand));
     }
+
+    /**
+     * Whether two operands are compared as strings: at least one is a string and the other one is too, or is null.
+     */
+    static boolean isStringComparison(Object firstOperand, Object secondOperand) {
+        return (firstOperand instanceof String || secondOperand instanceof String)
+                && (firstOperand == null || firstOperand instanceof String)
+                && (secondOperand == null || secondOperand instanceof String);
+    }
+
+    /**
+     * Strings are ordered by their UTF-8 bytes, which is the order of their code points and the order they have in
+     * indexes. A table stores an empty string as null, so null comes before every other string.
+     */
+    static int compareStrings(String first, String second) {
+        if (first == null || second == null) {
+            return first == null ? (second == null ? 0 : -1) : 1;
+        }
+        return Arrays.compareUnsigned(first.getBytes(StandardCharsets.UTF_8), second.getBytes(StandardCharsets.UTF_8));
+    }
 }
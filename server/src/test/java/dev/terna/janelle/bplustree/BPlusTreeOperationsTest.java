@@ -0,0 +1,148 @@
+package dev.terna.janelle.bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class BPlusTreeOperationsTest {
+    @ParameterizedTest
+    @ValueSource(ints = {3, 4, 5, 10})
+    public void matchSortedMapAfterInsertsAndDeletes(int m) {
+        final var tree = new BPlusTree(m);
+        final var expected = new TreeMap<Long, Long>();
+        final var random = new Random(m);
+
+        for (var i = 0; i < 5000; i++) {
+            final long key = random.nextInt(2000);
+            if (expected.containsKey(key)) {
+                tree.delete(key);
+                expected.remove(key);
+            } else {
+                tree.insert(key, key * 10);
+                expected.put(key, key * 10);
+            }
+        }
+
+        for (long key = 0; key < 2000; key++) {
+            Assertions.assertEquals(expected.get(key), tree.search(key));
+        }
+        Assertions.assertEquals(new ArrayList<>(expected.subMap(500L, true, 1500L, true).values()), tree.search(500, 1500));
+
+        final var keys = new ArrayList<Long>();
+        tree.forEachEntry((key, value) -> keys.add(key));
+        Assertions.assertEquals(new ArrayList<>(expected.keySet()), keys);
+
+        for (var key : new ArrayList<>(expected.keySet())) {
+            tree.delete(key);
+        }
+        Assertions.assertNull(tree.search(expected.isEmpty() ? 0 : expected.firstKey()));
+        Assertions.assertTrue(tree.search(Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void scanRangesInBothDirections() {
+        final var tree = new BPlusTree(5);
+        final var expected = new TreeMap<Long, Long>();
+        final var random = new Random(7);
+        while (expected.size() < 300) {
+            final long key = random.nextInt(1000) - 500;
+            if (!expected.containsKey(key)) {
+                tree.insert(key, key + 1);
+                expected.put(key, key + 1);
+            }
+        }
+
+        for (var i = 0; i < 100; i++) {
+            final long lowerBound = random.nextInt(1200) - 600;
+            final long upperBound = lowerBound + random.nextInt(200) - 20;
+            final var range = lowerBound <= upperBound
+                    ? expected.subMap(lowerBound, true, upperBound, true)
+                    : new TreeMap<Long, Long>();
+            Assertions.assertEquals(new ArrayList<>(range.values()), tree.search(lowerBound, upperBound));
+            Assertions.assertEquals(new ArrayList<>(range.descendingMap().values()), tree.searchReverse(lowerBound, upperBound));
+        }
+    }
+
+    @Test
+    public void walkEntriesWithCursor() {
+        final var tree = new BPlusTree(3);
+        try (var cursor = tree.cursor()) {
+            Assertions.assertFalse(cursor.seekToFirst());
+            Assertions.assertFalse(cursor.seek(0));
+        }
+
+        for (long key = 0; key < 100; key += 2) {
+            tree.insert(key, key * 10);
+        }
+
+        try (var cursor = tree.cursor()) {
+            Assertions.assertTrue(cursor.seek(41));
+            Assertions.assertEquals(42, cursor.getKey());
+            Assertions.assertEquals(420, cursor.getValue());
+            Assertions.assertTrue(cursor.prev());
+            Assertions.assertEquals(40, cursor.getKey());
+            Assertions.assertTrue(cursor.next());
+            Assertions.assertTrue(cursor.next());
+            Assertions.assertEquals(44, cursor.getKey());
+
+            Assertions.assertTrue(cursor.seekForPrev(41));
+            Assertions.assertEquals(40, cursor.getKey());
+
+            var count = 0;
+            for (var isValid = cursor.seekToFirst(); isValid; isValid = cursor.next()) {
+                Assertions.assertEquals(count * 2L, cursor.getKey());
+                count++;
+            }
+            Assertions.assertEquals(50, count);
+
+            Assertions.assertTrue(cursor.seekToLast());
+            Assertions.assertEquals(98, cursor.getKey());
+            Assertions.assertFalse(cursor.seek(99));
+            Assertions.assertThrows(IllegalStateException.class, cursor::getKey);
+        }
+    }
+
+    @Test
+    public void keepDuplicateKeysInInsertionOrder() {
+        final var tree = new BPlusTree(4);
+        for (long value = 0; value < 20; value++) {
+            tree.insert(5, value);
+            tree.insert(value * 3, -value);
+        }
+
+        final var values = new ArrayList<Long>();
+        for (long value = 0; value < 20; value++) {
+            values.add(value);
+        }
+        Assertions.assertEquals(values, tree.search(5, 5));
+
+        for (var i = 0; i < 20; i++) {
+            tree.delete(5);
+        }
+        Assertions.assertNull(tree.search(5));
+        Assertions.assertEquals(Long.valueOf(-2), tree.search(6));
+    }
+
+    @Test
+    public void findBoundsWithBranchFreeSearch() {
+        final long[] keys = {1, 3, 3, 3, 7, 9, 9, 12};
+        for (long key = 0; key <= 13; key++) {
+            var lowerBound = 0;
+            while (lowerBound < keys.length && keys[lowerBound] < key) {
+                lowerBound++;
+            }
+            var upperBound = 0;
+            while (upperBound < keys.length && keys[upperBound] <= key) {
+                upperBound++;
+            }
+            Assertions.assertEquals(lowerBound, Utils.lowerBound(keys, keys.length, key));
+            Assertions.assertEquals(upperBound, Utils.upperBound(keys, keys.length, key));
+        }
+        Assertions.assertEquals(0, Utils.lowerBound(keys, 0, 5));
+    }
+}
@@ -0,0 +1,58 @@
+package dev.terna.janelle.bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class BulkLoaderTest {
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 9, 10, 11, 100, 1234})
+    public void buildSearchableTree(int numberOfEntries) {
+        for (var fillFactor : new double[] {0.5, 0.7, 1.0}) {
+            final var bulkLoader = new BulkLoader(4, fillFactor);
+            final var expected = new TreeMap<Long, Long>();
+            for (long key = 0; key < numberOfEntries; key++) {
+                bulkLoader.add(key * 2, key);
+                expected.put(key * 2, key);
+            }
+            final var tree = bulkLoader.build();
+
+            Assertions.assertEquals(new ArrayList<>(expected.values()), tree.search(Long.MIN_VALUE, Long.MAX_VALUE));
+            Assertions.assertEquals(Long.valueOf(numberOfEntries / 2), tree.search(numberOfEntries / 2 * 2));
+            Assertions.assertNull(tree.search(1));
+
+            // The tree must stay valid as it's modified after loading.
+            final var random = new Random(numberOfEntries);
+            for (var i = 0; i < 2000; i++) {
+                final long key = random.nextInt(numberOfEntries * 2 + 10);
+                if (expected.containsKey(key)) {
+                    tree.delete(key);
+                    expected.remove(key);
+                } else {
+                    tree.insert(key, -key);
+                    expected.put(key, -key);
+                }
+            }
+            Assertions.assertEquals(new ArrayList<>(expected.values()), tree.search(Long.MIN_VALUE, Long.MAX_VALUE));
+            Assertions.assertEquals(new ArrayList<>(expected.descendingMap().values()), tree.searchReverse(Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void rejectEntriesOutOfOrder() {
+        final var bulkLoader = new BulkLoader(4, 1.0);
+        bulkLoader.add(5, 5);
+        bulkLoader.add(5, 6);
+        Assertions.assertFalse(bulkLoader.canAdd(4));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bulkLoader.add(4, 4));
+
+        final var tree = bulkLoader.build();
+        Assertions.assertEquals(2, tree.search(5, 5).size());
+        Assertions.assertThrows(IllegalStateException.class, bulkLoader::build);
+    }
+}
@@ -0,0 +1,227 @@
+package dev.terna.janelle.bplustree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConcurrentBPlusTreeTest {
+    @Test
+    public void readWhileWriting() throws Exception {
+        final var tree = new ConcurrentBPlusTree(4);
+        final var numberOfWriters = 4;
+        final var keysPerWriter = 5000;
+        final var executor = Executors.newFixedThreadPool(numberOfWriters + 2);
+        final var start = new CountDownLatch(1);
+        final var isWriting = new AtomicBoolean(true);
+
+        final var writers = new ArrayList<Future<?>>();
+        for (var writer = 0; writer < numberOfWriters; writer++) {
+            final var firstKey = writer;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (long key = firstKey; key < (long) numberOfWriters * keysPerWriter; key += numberOfWriters) {
+                    tree.insert(key, key * 10);
+                }
+                return null;
+            }));
+        }
+        final var readers = new ArrayList<Future<?>>();
+        for (var reader = 0; reader < 2; reader++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                while (isWriting.get()) {
+                    // Whatever has been inserted must be found with the right value.
+                    final var key = (long) (Math.random() * numberOfWriters * keysPerWriter);
+                    final var value = tree.search(key);
+                    if (value != null && value != key * 10) {
+                        throw new AssertionError("Wrong value " + value + " for key " + key + ".");
+                    }
+                    final var values = tree.search(key, key + 100);
+                    for (var i = 1; i < values.size(); i++) {
+                        if (values.get(i - 1) >= values.get(i)) {
+                            throw new AssertionError("Range search out of order.");
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (var writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        isWriting.set(false);
+        for (var reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(numberOfWriters * keysPerWriter, tree.search(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        for (long key = 0; key < (long) numberOfWriters * keysPerWriter; key++) {
+            Assertions.assertEquals(Long.valueOf(key * 10), tree.search(key));
+        }
+    }
+
+    @Test
+    public void searchWhileDeleting() throws Exception {
+        final var tree = new ConcurrentBPlusTree(4);
+        final var numberOfKeys = 20000;
+        for (long key = 0; key < numberOfKeys; key++) {
+            tree.insert(key, key * 10);
+        }
+        final var executor = Executors.newFixedThreadPool(3);
+        final var isWriting = new AtomicBoolean(true);
+        final var readers = new ArrayList<Future<?>>();
+        for (var reader = 0; reader < 2; reader++) {
+            readers.add(executor.submit(() -> {
+                while (isWriting.get()) {
+                    // Merges and borrows change nodes under the search, which must still end with the right answer.
+                    final var key = (long) (Math.random() * numberOfKeys);
+                    final var value = tree.search(key);
+                    if (value != null && value != key * 10) {
+                        throw new AssertionError("Wrong value " + value + " for key " + key + ".");
+                    }
+                    if (key % 2 == 1 && value == null) {
+                        throw new AssertionError("Key " + key + " wasn't deleted but isn't found.");
+                    }
+                }
+                return null;
+            }));
+        }
+
+        final var writer = executor.submit(() -> {
+            for (long key = 0; key < numberOfKeys; key += 2) {
+                tree.delete(key);
+            }
+            return null;
+        });
+        writer.get(30, TimeUnit.SECONDS);
+        isWriting.set(false);
+        for (var reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        for (long key = 0; key < numberOfKeys; key++) {
+            Assertions.assertEquals(key % 2 == 0 ? null : Long.valueOf(key * 10), tree.search(key));
+        }
+    }
+
+    @Test
+    public void writeWhileCursorIsOpen() throws Exception {
+        final var tree = new ConcurrentBPlusTree(new BPlusTree(4));
+        tree.insert(1, 1);
+
+        final var executor = Executors.newSingleThreadExecutor();
+        try (var cursor = tree.cursor()) {
+            Assertions.assertTrue(cursor.seekToFirst());
+            executor.submit(() -> tree.insert(2, 2)).get(10, TimeUnit.SECONDS);
+            // The cursor finds the new entry once it moves past the copy of the leaf it was on.
+            Assertions.assertTrue(cursor.next());
+            Assertions.assertEquals(2, cursor.getKey());
+            Assertions.assertFalse(cursor.next());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void scanWhileWriting() throws Exception {
+        final var tree = new ConcurrentBPlusTree(4);
+        final var numberOfKeys = 20000;
+        for (long key = 0; key < numberOfKeys; key += 2) {
+            tree.insert(key, key * 10);
+        }
+        final var executor = Executors.newFixedThreadPool(3);
+        final var isWriting = new AtomicBoolean(true);
+        final var scanners = new ArrayList<Future<?>>();
+        for (var scanner = 0; scanner < 2; scanner++) {
+            final var isForward = scanner == 0;
+            scanners.add(executor.submit(() -> {
+                while (isWriting.get()) {
+                    // Splits change the leaves under the cursor, which must still visit every even key once, in order.
+                    var numberOfEvenKeys = 0;
+                    var previousKey = isForward ? -1L : numberOfKeys;
+                    try (var cursor = tree.cursor()) {
+                        for (var isValid = isForward ? cursor.seekToFirst() : cursor.seekToLast(); isValid; isValid = isForward ? cursor.next() : cursor.prev()) {
+                            final var key = cursor.getKey();
+                            if (isForward ? key <= previousKey : key >= previousKey) {
+                                throw new AssertionError("Key " + key + " came after " + previousKey + ".");
+                            }
+                            if (cursor.getValue() != key * 10) {
+                                throw new AssertionError("Wrong value " + cursor.getValue() + " for key " + key + ".");
+                            }
+                            if (key % 2 == 0) {
+                                numberOfEvenKeys++;
+                            }
+                            previousKey = key;
+                        }
+                    }
+                    if (numberOfEvenKeys != numberOfKeys / 2) {
+                        throw new AssertionError("Scan saw " + numberOfEvenKeys + " of the even keys.");
+                    }
+                }
+                return null;
+            }));
+        }
+
+        final var writer = executor.submit(() -> {
+            for (long key = 1; key < numberOfKeys; key += 2) {
+                tree.insert(key, key * 10);
+            }
+            return null;
+        });
+        writer.get(30, TimeUnit.SECONDS);
+        isWriting.set(false);
+        for (var scanner : scanners) {
+            scanner.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(numberOfKeys, tree.search(Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void walkDuplicateKeysAcrossSplits() {
+        final var tree = new ConcurrentBPlusTree(4);
+        tree.insert(1, 10);
+        for (var i = 0; i < 10; i++) {
+            tree.insert(5, 500 + i);
+        }
+        tree.insert(9, 90);
+
+        try (var cursor = tree.cursor()) {
+            Assertions.assertTrue(cursor.seek(5));
+            for (var i = 0; i < 4; i++) {
+                Assertions.assertTrue(cursor.next());
+            }
+            Assertions.assertEquals(504, cursor.getValue());
+
+            // Split the leaves around the duplicates while the cursor is on one of them.
+            for (var i = 0; i < 10; i++) {
+                tree.insert(4, 400 + i);
+                tree.insert(6, 600 + i);
+            }
+
+            for (var i = 5; i < 10; i++) {
+                Assertions.assertTrue(cursor.next());
+                Assertions.assertEquals(500 + i, cursor.getValue());
+            }
+            Assertions.assertTrue(cursor.next());
+            Assertions.assertEquals(600, cursor.getValue());
+
+            for (var i = 9; i >= 0; i--) {
+                Assertions.assertTrue(cursor.prev());
+                Assertions.assertEquals(500 + i, cursor.getValue());
+            }
+            Assertions.assertTrue(cursor.prev());
+            Assertions.assertEquals(409, cursor.getValue());
+        }
+    }
+}
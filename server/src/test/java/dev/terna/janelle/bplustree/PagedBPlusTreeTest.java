@@ -0,0 +1,139 @@
+package dev.terna.janelle.bplustree;
+
+import dev.terna.janelle.database.storage.BufferPool;
+import dev.terna.janelle.database.storage.Disk;
+import dev.terna.janelle.database.storage.PageFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class PagedBPlusTreeTest {
+    private static final Path INDEX_FILE_PATH = Path.of(Disk.getFilePath("jn_test_paged_bplustree", Disk.DataFile.data)).resolveSibling("index.milan");
+    private static final int PAGE_SIZE = 128;
+    private static final int M = 4;
+
+    // A few pages only, so nodes are evicted and read back from the index file all the time.
+    private static PagedBPlusTree openTree() {
+        return new PagedBPlusTree(M, new BufferPool(new PageFile(INDEX_FILE_PATH), PAGE_SIZE * 16, PAGE_SIZE));
+    }
+
+    @BeforeEach
+    public void deleteIndexFile() throws IOException {
+        Files.deleteIfExists(INDEX_FILE_PATH);
+    }
+
+    @Test
+    public void matchSortedMapAfterInsertsAndDeletes() {
+        final var tree = openTree();
+        final var expected = new TreeMap<Long, Long>();
+        final var random = new Random(42);
+
+        for (var i = 0; i < 2000; i++) {
+            final long key = random.nextInt(1000);
+            if (expected.containsKey(key)) {
+                tree.delete(key);
+                expected.remove(key);
+            } else {
+                tree.insert(key, key * 10);
+                expected.put(key, key * 10);
+            }
+        }
+
+        for (long key = 0; key < 1000; key++) {
+            Assertions.assertEquals(expected.get(key), tree.search(key));
+        }
+        Assertions.assertEquals(new ArrayList<>(expected.subMap(250L, true, 750L, true).values()), tree.search(250, 750));
+
+        final var entries = new ArrayList<Long>();
+        tree.forEachEntry((key, value) -> entries.add(key));
+        Assertions.assertEquals(new ArrayList<>(expected.keySet()), entries);
+
+        for (var key : new ArrayList<>(expected.keySet())) {
+            tree.delete(key);
+        }
+        Assertions.assertTrue(tree.search(Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+        tree.close();
+    }
+
+    @Test
+    public void reopenIndexFile() {
+        var tree = openTree();
+        for (long key = 0; key < 500; key++) {
+            tree.insert(key, -key);
+        }
+        tree.close();
+
+        tree = openTree();
+        Assertions.assertEquals(Long.valueOf(-123), tree.search(123));
+        Assertions.assertEquals(500, tree.search(0, 499).size());
+        Assertions.assertNull(tree.search(500));
+        tree.close();
+    }
+
+    @Test
+    public void findDuplicateKeysAcrossLeaves() {
+        final var tree = openTree();
+        for (long value = 0; value < 20; value++) {
+            tree.insert(7, value);
+        }
+        tree.insert(3, 3);
+        tree.insert(9, 9);
+
+        Assertions.assertEquals(20, tree.search(7, 7).size());
+        Assertions.assertEquals(22, tree.search(0, 10).size());
+        for (var i = 0; i < 20; i++) {
+            tree.delete(7);
+        }
+        Assertions.assertNull(tree.search(7));
+        Assertions.assertEquals(Long.valueOf(3), tree.search(3));
+        Assertions.assertEquals(Long.valueOf(9), tree.search(9));
+        tree.close();
+    }
+
+    @Test
+    public void scanByteKeysAndKeepVersion() {
+        var tree = new PagedBPlusTree(M, 2, 1, new BufferPool(new PageFile(INDEX_FILE_PATH), PAGE_SIZE * 16, PAGE_SIZE));
+        final var random = new Random(42);
+        final var expected = new TreeMap<Integer, Integer>();
+        while (expected.size() < 300) {
+            // Keys with the high bit set have to come after the others.
+            final var key = random.nextInt(1 << 16);
+            expected.put(key, key & 0xFF);
+            tree.insert(new byte[] { (byte) (key >> 8), (byte) key }, new byte[] { (byte) key });
+        }
+        tree.flush(7);
+        Assertions.assertEquals(7, tree.getVersion());
+        tree.close();
+
+        tree = new PagedBPlusTree(M, 2, 1, new BufferPool(new PageFile(INDEX_FILE_PATH), PAGE_SIZE * 16, PAGE_SIZE));
+        Assertions.assertEquals(7, tree.getVersion());
+        // Read the keys from 0x4000 on, 32 at a time.
+        final var keys = new ArrayList<Integer>();
+        byte[] nextKey = { 0x40, 0 };
+        do {
+            nextKey = tree.scan(nextKey, new byte[] { (byte) 0xFF, (byte) 0xFF }, 32, (page, keyOffset, valueOffset) -> {
+                final var key = (page[keyOffset] & 0xFF) << 8 | (page[keyOffset + 1] & 0xFF);
+                Assertions.assertEquals(key & 0xFF, page[valueOffset] & 0xFF);
+                keys.add(key);
+            });
+        } while (nextKey != null);
+        Assertions.assertEquals(new ArrayList<>(expected.tailMap(0x4000).keySet()), keys);
+
+        // Changing the tree drops the version, so a file that was only partly written isn't taken as flushed.
+        tree.delete(new byte[] { (byte) (keys.get(0) >> 8), (byte) (int) keys.get(0) });
+        Assertions.assertEquals(PagedBPlusTree.NO_VERSION, tree.getVersion());
+        tree.close();
+        tree = new PagedBPlusTree(M, 2, 1, new BufferPool(new PageFile(INDEX_FILE_PATH), PAGE_SIZE * 16, PAGE_SIZE));
+        Assertions.assertEquals(PagedBPlusTree.NO_VERSION, tree.getVersion());
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> new PagedBPlusTree(M, 8, 8, new BufferPool(new PageFile(INDEX_FILE_PATH), PAGE_SIZE * 16, PAGE_SIZE)));
+        tree.close();
+    }
+}
@@ -7,6 +7,11 @@ import dev.terna.janelle.sql.Tokenizer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 public class DatabaseTest {
     private Query getQuery(String queryString) throws Exception {
         final var tokenizer = new Tokenizer(queryString);
@@ -52,4 +57,23 @@ public class DatabaseTest {
         Utils.printQueryResult(result);
         result.getSource().getData().visualize();
     }
+
+    @Test
+    public void shareDatabaseAcrossThreads() throws Exception {
+        final var db = new Database();
+        final var query = getQuery(String.format("select * from %s where key = \"tables\";", Database.DB_CONFIGS_TABLE_NAME));
+
+        final var executor = Executors.newFixedThreadPool(4);
+        final var results = new ArrayList<Future<Result>>();
+        for (var i = 0; i < 100; i++) {
+            results.add(executor.submit(() -> db.processQuery(query)));
+        }
+        for (var result : results) {
+            Assertions.assertEquals(1, result.get(10, TimeUnit.SECONDS).getRows().length);
+        }
+        executor.shutdown();
+
+        Assertions.assertSame(db.getTable(Database.DB_CONFIGS_TABLE_NAME), db.getTable(Database.DB_CONFIGS_TABLE_NAME));
+        Assertions.assertThrows(Exception.class, () -> db.getTable("jn_nonexistent"));
+    }
 }
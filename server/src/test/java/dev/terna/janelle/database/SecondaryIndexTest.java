@@ -0,0 +1,48 @@
+package dev.terna.janelle.database;
+
+import dev.terna.janelle.database.storage.Memory;
+import dev.terna.janelle.sql.Tokenizer;
+import dev.terna.janelle.sql.postfixexpression.Generator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+public class SecondaryIndexTest {
+    private static final Column[] SCHEMA = {
+            new Column("row_id", DataType.INT),
+            new Column("a", DataType.INT),
+            new Column("b", DataType.INT),
+            new Column("c", DataType.INT),
+            new Column("d", DataType.INT)
+    };
+
+    private static int countEntries(SecondaryIndex index, String whereClause) throws Exception {
+        final var postfixExpression = new Generator().generate(new Tokenizer(whereClause).tokenize());
+        final var rows = index.scan(index.getKeyRanges(postfixExpression, SCHEMA), null, false);
+        rows.open();
+        var numberOfEntries = 0;
+        for (var batchSize = rows.readEntries(); batchSize > 0; batchSize = rows.readEntries()) {
+            numberOfEntries += batchSize;
+        }
+        return numberOfEntries;
+    }
+
+    @Test
+    public void narrowDownEveryKeyColumnOfCompositeKeys() throws Exception {
+        final var index = new SecondaryIndex(SCHEMA, new int[] { 1, 2, 3, 4 }, new int[0], new Memory());
+        // Every combination of 1000 and 1256 in the four columns, which only differ above their lowest byte.
+        for (var rowId = 1; rowId <= 16; rowId++) {
+            final var row = ByteBuffer.allocate(5 * 4).putInt(rowId);
+            for (var column = 0; column < 4; column++) {
+                row.putInt(((rowId - 1) >> column & 1) == 0 ? 1000 : 1256);
+            }
+            index.add(row.array(), rowId, rowId);
+        }
+
+        Assertions.assertEquals(1, countEntries(index, "a = 1000 and b = 1256 and c = 1000 and d = 1256"));
+        Assertions.assertEquals(2, countEntries(index, "a = 1000 and b = 1256 and c >= 1256"));
+        Assertions.assertEquals(4, countEntries(index, "a = 1256 and b < 1256"));
+        Assertions.assertEquals(16, countEntries(index, "a >= 1000"));
+    }
+}
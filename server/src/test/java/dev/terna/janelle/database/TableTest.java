@@ -0,0 +1,352 @@
+package dev.terna.janelle.database;
+
+import dev.terna.janelle.database.storage.Disk;
+import dev.terna.janelle.sql.Emitter;
+import dev.terna.janelle.sql.Order;
+import dev.terna.janelle.sql.Parser;
+import dev.terna.janelle.sql.Tokenizer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TableTest {
+    private Table createTable(String name) {
+        final var nameColumn = new Column("name", DataType.STRING);
+        nameColumn.setSize(20);
+        final var scoreColumn = new Column("score", DataType.INT);
+        Table.create(name, new Column[] { nameColumn, scoreColumn });
+        return Table.load(name);
+    }
+
+    private void insert(Table table, String name, int score) throws Exception {
+        final Map<String, Object> row = new HashMap<>();
+        row.put("name", name);
+        row.put("score", score);
+        table.insert(row);
+    }
+
+    @Test
+    public void recoverInsertsFromWriteAheadLog() throws Exception {
+        final var table = createTable("jn_test_recovery");
+        insert(table, "Janelle", 10);
+        insert(table, "Milan", 20);
+
+        // Load the table again without a checkpoint, as if the server had crashed.
+        final var recoveredTable = Table.load("jn_test_recovery");
+        Assertions.assertEquals(table.getRowSequenceId(), recoveredTable.getRowSequenceId());
+        Assertions.assertEquals(table.countAll(), recoveredTable.countAll());
+
+        final var result = recoveredTable.select(List.of("name"), List.of(), null);
+        Assertions.assertEquals(2, result.getRows().length);
+        Assertions.assertEquals("Milan", result.getRows()[1][0]);
+    }
+
+    @Test
+    public void persistMetadataIncrementally() throws Exception {
+        final var table = createTable("jn_test_metadata");
+        final var changesFile = new File(Disk.getFilePath("jn_test_metadata", Disk.DataFile.metadata_changes));
+        insert(table, "Janelle", 10);
+        insert(table, "Milan", 20);
+        table.checkpoint();
+        Assertions.assertEquals(2L * Table.METADATA_CHANGE_SIZE_IN_BYTES, changesFile.length());
+
+        insert(table, "Nick", 30);
+        table.checkpoint();
+        Assertions.assertEquals(3L * Table.METADATA_CHANGE_SIZE_IN_BYTES, changesFile.length());
+
+        final var loadedTable = Table.load("jn_test_metadata");
+        Assertions.assertEquals(3, loadedTable.getRowSequenceId());
+        Assertions.assertEquals(3, loadedTable.getSchema().length);
+        Assertions.assertEquals(20, loadedTable.getSchema()[1].getSize() - 1);
+
+        final var result = loadedTable.select(List.of("name", "score"), List.of(), null);
+        Assertions.assertEquals(3, result.getRows().length);
+        Assertions.assertArrayEquals(new Object[] { "Nick", 30 }, result.getRows()[2]);
+    }
+
+    @Test
+    public void compactMetadataChanges() throws Exception {
+        final var table = createTable("jn_test_compaction");
+        for (var i = 0; i < 10; i++) {
+            insert(table, "row " + i, i);
+        }
+        table.checkpoint();
+
+        // Pad the changes with free row blocks that are added and taken again, which leaves nothing behind.
+        try (var changesFile = new RandomAccessFile(Disk.getFilePath("jn_test_compaction", Disk.DataFile.metadata_changes), "rw");
+             var metadataFile = new RandomAccessFile(Disk.getFilePath("jn_test_compaction", Disk.DataFile.metadata), "rw")) {
+            changesFile.seek(changesFile.length());
+            for (var i = 0; i < 1000; i++) {
+                for (var changeType = 3; changeType <= 4; changeType++) {
+                    changesFile.writeByte(changeType);
+                    changesFile.writeLong(1L << 20);
+                    changesFile.writeLong(0);
+                }
+            }
+            // Skip the magic number, format version and changes file to get to the number of changes.
+            metadataFile.seek(4 + 2 + 1);
+            metadataFile.writeLong(changesFile.length() / Table.METADATA_CHANGE_SIZE_IN_BYTES);
+        }
+
+        final var loadedTable = Table.load("jn_test_compaction");
+        insert(loadedTable, "row 10", 10);
+        loadedTable.checkpoint();
+        Assertions.assertEquals(0, new File(Disk.getFilePath("jn_test_compaction", Disk.DataFile.metadata_changes)).length());
+        Assertions.assertEquals(11L * Table.METADATA_CHANGE_SIZE_IN_BYTES, new File(Disk.getFilePath("jn_test_compaction", Disk.DataFile.metadata_changes_alternate)).length());
+
+        final var result = Table.load("jn_test_compaction").select(List.of("name", "score"), List.of(), null);
+        Assertions.assertEquals(11, result.getRows().length);
+        Assertions.assertArrayEquals(new Object[] { "row 10", 10 }, result.getRows()[10]);
+    }
+
+    @Test
+    public void loadTableStoredWithJavaSerialization() throws Exception {
+        // Written by the server before the binary metadata format: 40 rows of ("row i", 3 * i), enough for the index
+        // to have internal nodes.
+        for (var dataFile : List.of(Disk.DataFile.data, Disk.DataFile.metadata)) {
+            final var filePath = Path.of(Disk.getFilePath("jn_test_serialized", dataFile));
+            Files.createDirectories(filePath.getParent());
+            try (var resource = getClass().getResourceAsStream("/baseline_table/" + dataFile.name() + ".milan")) {
+                Files.copy(resource, filePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        final var table = Table.load("jn_test_serialized");
+        Assertions.assertEquals(40, table.getRowSequenceId());
+        Assertions.assertEquals(40, table.countAll());
+        final var query = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_serialized where row_id >= 38 or row_id = 12;").tokenize())).get(0);
+        final var result = table.select(List.of("name", "score"), query.getWhereClause(), null);
+        Assertions.assertEquals(4, result.getRows().length);
+        Assertions.assertArrayEquals(new Object[] { "row 12", 36 }, result.getRows()[0]);
+        Assertions.assertArrayEquals(new Object[] { "row 40", 120 }, result.getRows()[3]);
+
+        // The next flush stores it in the binary format.
+        insert(table, "row 41", 123);
+        table.checkpoint();
+        final var loadedTable = Table.load("jn_test_serialized");
+        final var loadedRows = loadedTable.select(List.of("name", "score"), List.of(), null).getRows();
+        Assertions.assertEquals(41, loadedRows.length);
+        for (var i = 0; i < loadedRows.length; i++) {
+            Assertions.assertArrayEquals(new Object[] { "row " + (i + 1), 3 * (i + 1) }, loadedRows[i]);
+        }
+    }
+
+    @Test
+    public void selectThroughQueryPlan() throws Exception {
+        final var table = createTable("jn_test_plan");
+        // More rows than the scan reads from the index at a time.
+        for (var i = 0; i < 600; i++) {
+            insert(table, "row " + i, i % 50);
+        }
+
+        final var query = new Emitter().emit(new Parser().parse(new Tokenizer("select * from jn_test_plan where score >= 45;").tokenize())).get(0);
+        final var orderBy = new LinkedHashMap<String, Order>();
+        orderBy.put("score", Order.DESCENDING);
+        orderBy.put("row_id", Order.ASCENDING);
+        final var result = table.select(List.of("name", "score"), query.getWhereClause(), orderBy);
+
+        final var rows = new ArrayList<Object[]>();
+        result.forEachBatch(7, (batch, count) -> rows.addAll(Arrays.asList(batch).subList(0, count)));
+        Assertions.assertEquals(60, rows.size());
+        Assertions.assertArrayEquals(new Object[] { "row 49", 49 }, rows.get(0));
+        Assertions.assertArrayEquals(new Object[] { "row 99", 49 }, rows.get(1));
+        Assertions.assertArrayEquals(new Object[] { "row 595", 45 }, rows.get(59));
+
+        // The plan runs again when the rows are read again.
+        Assertions.assertEquals(60, result.getRows().length);
+    }
+
+    @Test
+    public void filterRowsThatCannotBeVectorized() throws Exception {
+        final var table = createTable("jn_test_row_filter");
+        for (var i = 0; i < 10; i++) {
+            insert(table, "row " + i, i);
+        }
+
+        // Comparing a string to a number isn't vectorized, and fails like the Evaluator does.
+        final var query = new Emitter().emit(new Parser().parse(new Tokenizer("select * from jn_test_row_filter where name > 3;").tokenize())).get(0);
+        final var result = table.select(List.of(), query.getWhereClause(), null);
+        final var exception = Assertions.assertThrows(IllegalStateException.class, result::getRows);
+        Assertions.assertEquals("Cannot compute row 0 GREATER_THAN_OP 3.", exception.getMessage());
+    }
+
+    @Test
+    public void selectByRowId() throws Exception {
+        final var table = createTable("jn_test_row_id");
+        for (var i = 1; i <= 600; i++) {
+            insert(table, "row " + i, i % 50);
+        }
+
+        final var query = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_row_id where row_id = 300 or row_id > 597 or (row_id >= 255 and row_id <= 258 and score != 6);").tokenize())).get(0);
+        final var result = table.select(List.of("name"), query.getWhereClause(), null);
+
+        final var names = Arrays.stream(result.getRows()).map(row -> row[0]).toList();
+        Assertions.assertEquals(List.of("row 255", "row 257", "row 258", "row 300", "row 598", "row 599", "row 600"), names);
+    }
+
+    @Test
+    public void selectThroughSecondaryIndex() throws Exception {
+        final var table = createTable("jn_test_secondary_index");
+        for (var i = 1; i <= 300; i++) {
+            insert(table, "row " + i, i % 50);
+        }
+        table.createIndex(List.of("score"), List.of());
+        table.createIndex(List.of("name"), List.of());
+        for (var i = 301; i <= 600; i++) {
+            insert(table, "row " + i, i % 50);
+        }
+
+        final var query = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_secondary_index where score = 7 or (score > 47 and name != \"row 598\");").tokenize())).get(0);
+        // Rows come in index order, so by score and then row ID.
+        final var expectedNames = new ArrayList<String>();
+        for (var score : new int[] { 7, 48, 49 }) {
+            for (var i = score; i <= 600; i += 50) {
+                if (i != 598) {
+                    expectedNames.add("row " + i);
+                }
+            }
+        }
+        final var result = table.select(List.of("name"), query.getWhereClause(), null);
+        Assertions.assertEquals(expectedNames, Arrays.stream(result.getRows()).map(row -> row[0]).toList());
+
+        final var nameQuery = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_secondary_index where name = \"row 123\";").tokenize())).get(0);
+        final var nameResult = table.select(List.of("score"), nameQuery.getWhereClause(), null);
+        Assertions.assertArrayEquals(new Object[][] { { 23 } }, nameResult.getRows());
+
+        // Strings are indexed in full, so ranges of them are read in string order.
+        final var nameRangeQuery = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_secondary_index where name >= \"row 590\" and name < \"row 6\";").tokenize())).get(0);
+        final var nameRangeResult = table.select(List.of("name"), nameRangeQuery.getWhereClause(), null);
+        final var expectedRangeNames = new ArrayList<String>();
+        for (var i = 590; i <= 599; i++) {
+            expectedRangeNames.add("row " + i);
+        }
+        Assertions.assertEquals(expectedRangeNames, Arrays.stream(nameRangeResult.getRows()).map(row -> row[0]).toList());
+
+        // The index files are flushed by the checkpoint, so loading the table again uses them instead of rebuilding them.
+        table.checkpoint();
+        final var indexFile = Path.of(Disk.getFilePath("jn_test_secondary_index", Disk.DataFile.data)).resolveSibling("index_0.milan");
+        final var indexFileBytes = Files.readAllBytes(indexFile);
+        final var loadedTable = Table.load("jn_test_secondary_index");
+        Assertions.assertArrayEquals(indexFileBytes, Files.readAllBytes(indexFile));
+        final var loadedResult = loadedTable.select(List.of("name"), query.getWhereClause(), null);
+        Assertions.assertEquals(expectedNames, Arrays.stream(loadedResult.getRows()).map(row -> row[0]).toList());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> loadedTable.createIndex(List.of("score"), List.of("name")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> loadedTable.createIndex(List.of("row_id"), List.of()));
+
+        // An index changed after the last checkpoint is rebuilt, and then gets the inserts in the write-ahead log.
+        insert(table, "row 601", 1);
+        final var recoveredTable = Table.load("jn_test_secondary_index");
+        final var recoveredQuery = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_secondary_index where name = \"row 601\";").tokenize())).get(0);
+        final var recoveredResult = recoveredTable.select(List.of("row_id"), recoveredQuery.getWhereClause(), null);
+        Assertions.assertArrayEquals(new Object[][] { { 601 } }, recoveredResult.getRows());
+    }
+
+    @Test
+    public void selectThroughCompositeIndex() throws Exception {
+        final var table = createTable("jn_test_composite_index");
+        for (var i = 1; i <= 600; i++) {
+            insert(table, "row " + i, i % 50);
+        }
+        table.createIndex(List.of("score", "name"), List.of());
+
+        final var query = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_composite_index where score = 7 and name = \"row 57\";").tokenize())).get(0);
+        final var result = table.select(List.of("row_id", "name"), query.getWhereClause(), null);
+        Assertions.assertArrayEquals(new Object[][] { { 57, "row 57" } }, result.getRows());
+
+        // Rows with the same score come in name order.
+        final var rangeQuery = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_composite_index where score >= 48 and name != \"row 48\";").tokenize())).get(0);
+        final var expectedNames = new ArrayList<String>();
+        for (var score : new int[] { 48, 49 }) {
+            final var names = new ArrayList<String>();
+            for (var i = score; i <= 600; i += 50) {
+                if (i != 48) {
+                    names.add("row " + i);
+                }
+            }
+            names.sort(null);
+            expectedNames.addAll(names);
+        }
+        final var rangeResult = table.select(List.of("name"), rangeQuery.getWhereClause(), null);
+        Assertions.assertEquals(expectedNames, Arrays.stream(rangeResult.getRows()).map(row -> row[0]).toList());
+
+        final var nameRangeQuery = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_composite_index where score = 7 and name >= \"row 3\" and name < \"row 4\";").tokenize())).get(0);
+        final var nameRangeResult = table.select(List.of("name"), nameRangeQuery.getWhereClause(), null);
+        Assertions.assertArrayEquals(new Object[][] { { "row 307" }, { "row 357" } }, nameRangeResult.getRows());
+    }
+
+    @Test
+    public void selectFromCoveringIndexWithoutReadingRows() throws Exception {
+        final var table = createTable("jn_test_covering_index");
+        for (var i = 1; i <= 300; i++) {
+            insert(table, "row " + i, i % 50);
+        }
+        table.createIndex(List.of("score"), List.of("name"));
+        table.checkpoint();
+
+        // Wipe the rows from the data file, so only the index has them.
+        final var dataFile = new File(Disk.getFilePath("jn_test_covering_index", Disk.DataFile.data));
+        try (var file = new RandomAccessFile(dataFile, "rw")) {
+            file.seek(8 * 8);
+            file.write(new byte[(int) file.length() - 8 * 8]);
+        }
+
+        final var query = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select * from jn_test_covering_index where SCORE = 7 or score = 49;").tokenize())).get(0);
+        final var result = table.select(List.of("row_id", "name"), query.getWhereClause(), null);
+        final var expectedRows = new ArrayList<List<Object>>();
+        for (var score : new int[] { 7, 49 }) {
+            for (var i = score; i <= 300; i += 50) {
+                expectedRows.add(List.of(i, "row " + i));
+            }
+        }
+        Assertions.assertEquals(expectedRows, Arrays.stream(result.getRows()).map(Arrays::asList).toList());
+
+        // Without conditions on the index, all of it is read instead of the table.
+        final var allNames = table.select(List.of("name"), List.of(), null);
+        Assertions.assertEquals(300, allNames.getRows().length);
+        Assertions.assertEquals("row 50", allNames.getRows()[0][0]);
+
+        // The copies are stored in the index file, so they're still there when the table is loaded again.
+        final var loadedTable = Table.load("jn_test_covering_index");
+        final var loadedResult = loadedTable.select(List.of("row_id", "name"), query.getWhereClause(), null);
+        Assertions.assertEquals(expectedRows, Arrays.stream(loadedResult.getRows()).map(Arrays::asList).toList());
+    }
+
+    @Test
+    public void selectTopRows() throws Exception {
+        final var table = createTable("jn_test_top_rows");
+        for (var i = 1; i <= 600; i++) {
+            insert(table, "row " + i, (i * 37) % 101);
+        }
+
+        final var query = new Emitter().emit(new Parser().parse(new Tokenizer(
+                "select name, score from jn_test_top_rows where score < 100 order by score desc, row_id limit 5;").tokenize())).get(0);
+        Assertions.assertEquals(Integer.valueOf(5), query.getLimit());
+        final var result = table.select(query.getColumns(), query.getWhereClause(), query.getOrderByClause(), query.getLimit());
+
+        final var expectedRows = table.select(query.getColumns(), query.getWhereClause(), query.getOrderByClause()).getRows();
+        Assertions.assertArrayEquals(Arrays.copyOf(expectedRows, 5), result.getRows());
+        Assertions.assertArrayEquals(new Object[] { "row 60", 99 }, result.getRows()[0]);
+        Assertions.assertEquals(3, table.select(List.of("name"), List.of(), null, 3).getRows().length);
+    }
+}
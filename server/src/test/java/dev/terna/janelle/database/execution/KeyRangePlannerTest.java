@@ -0,0 +1,51 @@
+package dev.terna.janelle.database.execution;
+
+import dev.terna.janelle.database.Column;
+import dev.terna.janelle.database.DataType;
+import dev.terna.janelle.sql.Tokenizer;
+import dev.terna.janelle.sql.postfixexpression.Generator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class KeyRangePlannerTest {
+    private static final Column[] SCHEMA = {new Column("row_id", DataType.INT), new Column("score", DataType.INT)};
+
+    private static List<KeyRange> plan(String whereClause) throws Exception {
+        final var postfixExpression = new Generator().generate(new Tokenizer(whereClause).tokenize());
+        final var ranges = KeyRangePlanner.plan(postfixExpression, SCHEMA, "row_id",
+                (operator, value) -> value instanceof Double number ? KeyRangePlanner.getIntegerRanges(operator, number) : null);
+        // Limit the ranges to the row IDs of a table of 100 rows.
+        return ranges == null ? null : KeyRangePlanner.intersect(ranges, List.of(new KeyRange(1, 100)));
+    }
+
+    @Test
+    public void planPointAndRangeLookups() throws Exception {
+        Assertions.assertEquals(List.of(new KeyRange(5, 5)), plan("row_id = 5"));
+        Assertions.assertEquals(List.of(new KeyRange(5, 5)), plan("5 = ROW_ID and score > 3"));
+        Assertions.assertEquals(List.of(new KeyRange(11, 100)), plan("row_id > 10"));
+        Assertions.assertEquals(List.of(new KeyRange(1, 9)), plan("10 > row_id"));
+        Assertions.assertEquals(List.of(new KeyRange(3, 4)), plan("row_id >= 2.5 and row_id <= 4.5"));
+        Assertions.assertEquals(List.of(), plan("row_id = 4.5"));
+        Assertions.assertEquals(List.of(), plan("row_id > 10 and row_id < 5"));
+    }
+
+    @Test
+    public void uniteRangesOfOrConditions() throws Exception {
+        // Like row_id in (1, 5, 6, 50).
+        Assertions.assertEquals(
+                List.of(new KeyRange(1, 1), new KeyRange(5, 6), new KeyRange(50, 50)),
+                plan("row_id = 50 or row_id = 5 or row_id = 1 or row_id = 6"));
+        Assertions.assertEquals(List.of(new KeyRange(1, 10), new KeyRange(90, 100)), plan("row_id <= 10 or row_id >= 90"));
+    }
+
+    @Test
+    public void matchAnyRowForOtherConditions() throws Exception {
+        Assertions.assertNull(plan("score = 5"));
+        Assertions.assertNull(plan("row_id = 5 or score = 5"));
+        Assertions.assertNull(plan("row_id != 5"));
+        Assertions.assertNull(plan("row_id = score"));
+        Assertions.assertNull(plan("row_id = \"five\""));
+    }
+}
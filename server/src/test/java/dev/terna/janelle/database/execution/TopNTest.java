@@ -0,0 +1,78 @@
+package dev.terna.janelle.database.execution;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class TopNTest {
+    /**
+     * Returns the given rows.
+     */
+    private static class Rows implements Operator {
+        private final List<Object[]> rows;
+        private int position;
+
+        Rows(List<Object[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void open() {
+            position = 0;
+        }
+
+        @Override
+        public Object[] next() {
+            return position < rows.size() ? rows.get(position++) : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static List<Object[]> readAll(Operator operator) {
+        final var rows = new ArrayList<Object[]>();
+        operator.open();
+        Object[] row;
+        while ((row = operator.next()) != null) {
+            rows.add(row);
+        }
+        operator.close();
+        return rows;
+    }
+
+    @Test
+    public void returnSameRowsAsSortingEverything() {
+        final var rows = new ArrayList<Object[]>();
+        for (var i = 0; i < 1000; i++) {
+            rows.add(new Object[] { (i * 7919) % 101, i });
+        }
+        final Comparator<Object[]> byScoreDescending = Comparator.comparing(row -> -(Integer) row[0]);
+
+        final var sorted = readAll(new Sort(new Rows(rows), byScoreDescending));
+        for (var limit : new int[] { 0, 1, 10, 999, 1000, 2000 }) {
+            final var topRows = readAll(new TopN(new Rows(rows), byScoreDescending, limit));
+            Assertions.assertArrayEquals(sorted.subList(0, Math.min(limit, sorted.size())).toArray(), topRows.toArray());
+        }
+    }
+
+    @Test
+    public void holdOnlyTheRowsThereAreForLargeLimits() {
+        final var rows = List.of(new Object[] { 2 }, new Object[] { 1 });
+        final Comparator<Object[]> byNumber = Comparator.comparing(row -> (Integer) row[0]);
+
+        Assertions.assertEquals(0, readAll(new TopN(new Rows(List.of()), byNumber, Integer.MAX_VALUE)).size());
+        final var topRows = readAll(new TopN(new Rows(rows), byNumber, Integer.MAX_VALUE));
+        Assertions.assertArrayEquals(new Object[][] { { 1 }, { 2 } }, topRows.toArray());
+    }
+
+    @Test
+    public void stopReadingAtLimit() {
+        final var rows = List.of(new Object[] { 1 }, new Object[] { 2 }, new Object[] { 3 });
+        Assertions.assertArrayEquals(rows.subList(0, 2).toArray(), readAll(new Limit(new Rows(rows), 2)).toArray());
+    }
+}
@@ -0,0 +1,116 @@
+package dev.terna.janelle.database.execution;
+
+import dev.terna.janelle.database.Column;
+import dev.terna.janelle.database.DataType;
+import dev.terna.janelle.sql.Token;
+import dev.terna.janelle.sql.Tokenizer;
+import dev.terna.janelle.sql.postfixexpression.Evaluator;
+import dev.terna.janelle.sql.postfixexpression.Generator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class VectorizedPredicateTest {
+    private static Column[] getSchema() {
+        final var name = new Column("name", DataType.STRING, false, null);
+        name.setSize(16);
+        return new Column[] {
+                new Column("row_id", DataType.INT),
+                new Column("score", DataType.FLOAT),
+                name,
+                new Column("is_active", DataType.BOOL),
+        };
+    }
+
+    private static List<Token> getWhereClause(String expression) throws Exception {
+        return new Generator().generate(new Tokenizer(expression).tokenize());
+    }
+
+    private static byte[] toBytes(Column[] schema, Object[] row) throws Exception {
+        final var output = new ByteArrayOutputStream();
+        for (var columnIndex = 0; columnIndex < schema.length; columnIndex++) {
+            final var column = schema[columnIndex];
+            output.write(row[columnIndex] == null
+                    ? new byte[column.getSize()]
+                    : column.getDataType().getBytes(row[columnIndex], column.getSize()));
+        }
+        return output.toByteArray();
+    }
+
+    private static List<Object[]> getRows() {
+        final var names = new String[] {"Milan", "Ada", null, "milan"};
+        final var rows = new ArrayList<Object[]>();
+        for (var rowId = 1; rowId <= 1500; rowId++) {
+            rows.add(new Object[] {rowId, rowId * 0.7f, names[rowId % names.length], rowId % 2 == 0});
+        }
+        return rows;
+    }
+
+    /**
+     * Select rows with the vectorized predicate, a batch at a time like a table scan would.
+     */
+    private static List<Integer> selectVectorized(VectorizedPredicate predicate, Column[] schema, List<Object[]> rows) throws Exception {
+        final var batch = new ColumnBatch(schema);
+        final var selection = new int[ColumnBatch.CAPACITY];
+        final var selected = new ArrayList<Integer>();
+        for (var start = 0; start < rows.size(); start += ColumnBatch.CAPACITY) {
+            batch.clear();
+            for (var rowIndex = start; rowIndex < Math.min(rows.size(), start + ColumnBatch.CAPACITY); rowIndex++) {
+                batch.add(toBytes(schema, rows.get(rowIndex)));
+            }
+            final var numberSelected = predicate.select(batch, selection);
+            for (var i = 0; i < numberSelected; i++) {
+                selected.add(start + selection[i]);
+            }
+        }
+        return selected;
+    }
+
+    private static List<Integer> selectWithEvaluator(List<Token> whereClause, Column[] schema, List<Object[]> rows) {
+        final var selected = new ArrayList<Integer>();
+        for (var rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
+            final var variables = new HashMap<String, Object>();
+            for (var columnIndex = 0; columnIndex < schema.length; columnIndex++) {
+                variables.put(schema[columnIndex].getName(), rows.get(rowIndex)[columnIndex]);
+            }
+            if ((Boolean) new Evaluator(variables).evaluate(whereClause)) {
+                selected.add(rowIndex);
+            }
+        }
+        return selected;
+    }
+
+    @Test
+    public void matchEvaluator() throws Exception {
+        final var schema = getSchema();
+        final var rows = getRows();
+        final var expressions = List.of(
+                "score >= 45",
+                "(row_id * 2 - 3) / 4 < score and not_a_column = null",
+                "name = \"Milan\" or name = null",
+                "name != \"milan\" and row_id > 1000",
+                "score = 7 or row_id = 4.2 or name = 42",
+                "(row_id > 10) = (score < 100.5)",
+                "name != \"\""
+        );
+        for (var expression : expressions) {
+            final var whereClause = getWhereClause(expression);
+            final var predicate = VectorizedPredicate.compile(whereClause, schema);
+            Assertions.assertNotNull(predicate, expression);
+            Assertions.assertEquals(selectWithEvaluator(whereClause, schema, rows), selectVectorized(predicate, schema, rows), expression);
+        }
+    }
+
+    @Test
+    public void leaveUnsupportedExpressionsToEvaluator() throws Exception {
+        final var schema = getSchema();
+        Assertions.assertNull(VectorizedPredicate.compile(getWhereClause("name > 3"), schema));
+        Assertions.assertNull(VectorizedPredicate.compile(getWhereClause("is_active = true"), schema));
+        Assertions.assertNull(VectorizedPredicate.compile(getWhereClause("row_id + 1"), schema));
+        Assertions.assertNull(VectorizedPredicate.compile(getWhereClause("not_a_column + 1 > 2"), schema));
+    }
+}
@@ -0,0 +1,55 @@
+package dev.terna.janelle.database.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BufferPoolTest {
+    private static final String TABLE_NAME = "jn_test_buffer_pool";
+    private static final int PAGE_SIZE = 16;
+
+    @Test
+    public void countHitsAndMisses() {
+        final var bufferPool = new BufferPool(new Memory(), PAGE_SIZE * 2, PAGE_SIZE);
+        bufferPool.writeData(0, new byte[PAGE_SIZE]); // Miss.
+        bufferPool.readData(0, 4); // Hit.
+        bufferPool.readData(4, 4); // Hit.
+
+        Assertions.assertEquals(1, bufferPool.getMisses());
+        Assertions.assertEquals(2, bufferPool.getHits());
+        Assertions.assertEquals(0, bufferPool.getEvictions());
+    }
+
+    @Test
+    public void writeBackEvictedPages() {
+        final var disk = new Disk(TABLE_NAME);
+        final var seekPosition = disk.getEOFPointerForData();
+        final var bufferPool = new BufferPool(disk, PAGE_SIZE * 2, PAGE_SIZE);
+
+        final var data = new byte[PAGE_SIZE * 5];
+        for (var i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        bufferPool.writeData(seekPosition, data);
+
+        Assertions.assertTrue(bufferPool.getEvictions() > 0);
+        Assertions.assertArrayEquals(data, bufferPool.readData(seekPosition, data.length));
+
+        bufferPool.flush();
+        Assertions.assertEquals(seekPosition + data.length, disk.getEOFPointerForData());
+        Assertions.assertArrayEquals(data, disk.readData(seekPosition, data.length));
+        bufferPool.close();
+    }
+
+    @Test
+    public void neverEvictPinnedPages() {
+        final var bufferPool = new BufferPool(new Memory(), PAGE_SIZE * 2, PAGE_SIZE);
+        final var firstPage = bufferPool.pin(0);
+        bufferPool.pin(1);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> bufferPool.pin(2));
+
+        bufferPool.unpin(firstPage, false);
+        Assertions.assertEquals(2, bufferPool.pin(2).getPageNumber());
+        Assertions.assertEquals(1, bufferPool.getEvictions());
+    }
+}
@@ -0,0 +1,53 @@
+package dev.terna.janelle.database.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+public class MappedDiskTest {
+    private static final String TABLE_NAME = "jn_test_mapped_disk";
+
+    @Test
+    public void readWriteAcrossSegments() {
+        final var mappedDisk = new MappedDisk(TABLE_NAME);
+        final var seekPosition = mappedDisk.getEOFPointerForData() + MappedDisk.SEGMENT_SIZE_IN_BYTES - 3;
+        final var data = new byte[] { 1, 2, 3, 4, 5, 6 };
+        mappedDisk.writeData(seekPosition, data);
+
+        Assertions.assertArrayEquals(data, mappedDisk.readData(seekPosition, data.length));
+        Assertions.assertEquals(seekPosition + data.length, mappedDisk.getEOFPointerForData());
+        mappedDisk.close();
+    }
+
+    @Test
+    public void dataEndSurvivesReopen() {
+        var mappedDisk = new MappedDisk(TABLE_NAME);
+        final var seekPosition = mappedDisk.getEOFPointerForData();
+        mappedDisk.writeData(seekPosition, new byte[] { 42 });
+        final var dataEndPointer = mappedDisk.getEOFPointerForData();
+        mappedDisk.close();
+
+        final var dataFile = new File(Disk.getFilePath(TABLE_NAME, Disk.DataFile.data));
+        Assertions.assertEquals(dataEndPointer, dataFile.length());
+
+        mappedDisk = new MappedDisk(TABLE_NAME);
+        Assertions.assertEquals(dataEndPointer, mappedDisk.getEOFPointerForData());
+        Assertions.assertEquals(42, mappedDisk.readData(seekPosition, 1)[0]);
+        mappedDisk.close();
+    }
+
+    @Test
+    public void diskTrimsUncleanlyClosedMappedFile() {
+        final var mappedDisk = new MappedDisk(TABLE_NAME);
+        final var seekPosition = mappedDisk.getEOFPointerForData() + 16;
+        mappedDisk.writeData(seekPosition, new byte[] { 7 });
+        final var dataEndPointer = mappedDisk.getEOFPointerForData();
+        // Not closed, so the file is still padded to a whole segment.
+
+        final var disk = new Disk(TABLE_NAME);
+        Assertions.assertEquals(dataEndPointer, disk.getEOFPointerForData());
+        Assertions.assertEquals(7, disk.readData(seekPosition, 1)[0]);
+        disk.close();
+    }
+}
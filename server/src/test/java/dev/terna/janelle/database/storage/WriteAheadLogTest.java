@@ -0,0 +1,79 @@
+package dev.terna.janelle.database.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class WriteAheadLogTest {
+    private static final String TABLE_NAME = "jn_test_write_ahead_log";
+
+    private WriteAheadLog newEmptyLog() {
+        new Disk(TABLE_NAME).close(); // Sets up the table directory.
+        final var writeAheadLog = new WriteAheadLog(TABLE_NAME);
+        writeAheadLog.truncate();
+        return writeAheadLog;
+    }
+
+    @Test
+    public void readCommittedRecords() {
+        var writeAheadLog = newEmptyLog();
+        writeAheadLog.append(new byte[] { 1 });
+        final var sequenceNumber = writeAheadLog.append(new byte[] { 2, 3 });
+        writeAheadLog.commit(sequenceNumber);
+        writeAheadLog.close();
+
+        writeAheadLog = new WriteAheadLog(TABLE_NAME);
+        final var records = writeAheadLog.readRecords();
+        Assertions.assertEquals(2, records.size());
+        Assertions.assertArrayEquals(new byte[] { 1 }, records.get(0));
+        Assertions.assertArrayEquals(new byte[] { 2, 3 }, records.get(1));
+        writeAheadLog.close();
+    }
+
+    @Test
+    public void stopReadingAtTornRecord() throws Exception {
+        var writeAheadLog = newEmptyLog();
+        writeAheadLog.append(new byte[] { 1 });
+        writeAheadLog.commit(writeAheadLog.append(new byte[] { 2, 3, 4, 5 }));
+        final var logSize = writeAheadLog.size();
+        writeAheadLog.close();
+
+        try (var logFile = new RandomAccessFile(Disk.getFilePath(TABLE_NAME, Disk.DataFile.wal), "rw")) {
+            logFile.setLength(logSize - 2);
+        }
+
+        writeAheadLog = new WriteAheadLog(TABLE_NAME);
+        Assertions.assertEquals(1, writeAheadLog.readRecords().size());
+        writeAheadLog.close();
+    }
+
+    @Test
+    public void commitConcurrentWriters() throws Exception {
+        final var writeAheadLog = newEmptyLog();
+        final var executor = Executors.newFixedThreadPool(8);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (var i = 0; i < 200; i++) {
+            final var value = (byte) i;
+            futures.add(executor.submit(() -> writeAheadLog.commit(writeAheadLog.append(new byte[] { value }))));
+        }
+        for (var future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        final var values = new HashSet<Byte>();
+        for (var record : writeAheadLog.readRecords()) {
+            values.add(record[0]);
+        }
+        Assertions.assertEquals(200, values.size());
+        writeAheadLog.close();
+    }
+}
@@ -0,0 +1,156 @@
+package dev.terna.janelle.server;
+
+import dev.terna.janelle.database.Database;
+import dev.terna.janelle.protocol.Request;
+import dev.terna.janelle.protocol.RequestType;
+import dev.terna.janelle.protocol.ResponseCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class NioServerTest {
+    private static String readResponse(Socket socket, ResponseCode expectedCode) throws Exception {
+        final var input = new DataInputStream(socket.getInputStream());
+        Assertions.assertEquals(expectedCode, ResponseCode.fromId(input.readShort()));
+        final var content = new byte[input.readShort()];
+        input.readFully(content);
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    private static NioServer startServer(ExecutorService background) throws Exception {
+        final var server = new NioServer(0, 2, 64);
+        final var requestProcessor = new RequestProcessor(new Database());
+        background.submit(() -> {
+            server.start(requestProcessor);
+            return null;
+        });
+        return server;
+    }
+
+    @Test
+    public void readRequestSentInPieces() throws Exception {
+        final var background = Executors.newSingleThreadExecutor();
+        final var server = startServer(background);
+        try (var socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            final var bytes = new Request(RequestType.PING, "hello").toByteArray();
+            final var output = socket.getOutputStream();
+            for (var b : bytes) {
+                output.write(b);
+                output.flush();
+                Thread.sleep(5);
+            }
+            Assertions.assertEquals("PONG", readResponse(socket, ResponseCode.SUCCESS));
+        } finally {
+            server.stop();
+            background.shutdown();
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void serveManyConnectionsAtOnce() throws Exception {
+        final var background = Executors.newSingleThreadExecutor();
+        final var server = startServer(background);
+        final var port = server.getLocalPort();
+        final var sockets = new ArrayList<Socket>();
+        try {
+            // Open every connection before any request is complete, which a thread per connection couldn't serve.
+            for (var i = 0; i < 50; i++) {
+                final var socket = new Socket("127.0.0.1", port);
+                socket.getOutputStream().write(new byte[]{0, 1});
+                sockets.add(socket);
+            }
+            for (var socket : sockets) {
+                socket.getOutputStream().write(new byte[]{0, 0});
+            }
+            for (var socket : sockets) {
+                Assertions.assertEquals("PONG", readResponse(socket, ResponseCode.SUCCESS));
+            }
+        } finally {
+            for (var socket : sockets) {
+                socket.close();
+            }
+            server.stop();
+            background.shutdown();
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void answerPipelinedRequestsInOrder() throws Exception {
+        final var background = Executors.newSingleThreadExecutor();
+        final var server = startServer(background);
+        try (var socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            final var output = new ByteArrayOutputStream();
+            output.write(new Request(RequestType.PING, null).toByteArray());
+            output.write(new Request(RequestType.QUERY, "select value from jn_configs where key = \"tables\";").toByteArray());
+            output.write(new Request(RequestType.QUERY, "not a query").toByteArray());
+            output.write(new Request(RequestType.PING, null).toByteArray());
+            socket.getOutputStream().write(output.toByteArray());
+
+            Assertions.assertEquals("PONG", readResponse(socket, ResponseCode.SUCCESS));
+            Assertions.assertTrue(readResponse(socket, ResponseCode.SUCCESS).contains("value"));
+            readResponse(socket, ResponseCode.QUERY_ERROR);
+            Assertions.assertEquals("PONG", readResponse(socket, ResponseCode.SUCCESS));
+
+            // The connection is still open for more requests.
+            socket.getOutputStream().write(new Request(RequestType.PING, null).toByteArray());
+            Assertions.assertEquals("PONG", readResponse(socket, ResponseCode.SUCCESS));
+        } finally {
+            server.stop();
+            background.shutdown();
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void closeConnectionWhenProcessingFails() throws Exception {
+        final var background = Executors.newSingleThreadExecutor();
+        final var server = new NioServer(0, 2, 64);
+        final var requestProcessor = new RequestProcessor(new Database()) {
+            @Override
+            public void process(Request request, OutputStream output) {
+                throw new OutOfMemoryError("Simulated failure.");
+            }
+        };
+        background.submit(() -> {
+            server.start(requestProcessor);
+            return null;
+        });
+        try (var socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            socket.setSoTimeout(10_000);
+            socket.getOutputStream().write(new Request(RequestType.PING, null).toByteArray());
+            Assertions.assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            server.stop();
+            background.shutdown();
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void rejectInvalidRequestType() throws Exception {
+        final var background = Executors.newSingleThreadExecutor();
+        final var server = startServer(background);
+        try (var socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            socket.getOutputStream().write(new byte[]{0, 42, 0, 0});
+            Assertions.assertEquals("Invalid request type.", readResponse(socket, ResponseCode.INVALID_REQUEST));
+            // Nothing after an invalid request can be read, so the connection is closed.
+            Assertions.assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            server.stop();
+            background.shutdown();
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
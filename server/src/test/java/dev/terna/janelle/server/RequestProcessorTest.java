@@ -0,0 +1,120 @@
+package dev.terna.janelle.server;
+
+import dev.terna.janelle.database.Database;
+import dev.terna.janelle.protocol.ColumnType;
+import dev.terna.janelle.protocol.Request;
+import dev.terna.janelle.protocol.RequestType;
+import dev.terna.janelle.protocol.Response;
+import dev.terna.janelle.protocol.ResponseCode;
+import dev.terna.janelle.protocol.ResponseException;
+import dev.terna.janelle.protocol.ResponseInputStream;
+import dev.terna.janelle.protocol.ResponseOutputStream;
+import dev.terna.janelle.protocol.ResultReader;
+import dev.terna.janelle.protocol.ResultWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+public class RequestProcessorTest {
+    @Test
+    public void sendBinaryQueryResults() throws Exception {
+        final var requestProcessor = new RequestProcessor(new Database());
+        final var response = requestProcessor.process(new Request(RequestType.QUERY_BINARY,
+                "select * from jn_configs where key = \"tables\"; describe jn_configs;"));
+        Assertions.assertEquals(ResponseCode.SUCCESS, response.getResponseCode());
+
+        final var input = new DataInputStream(new ByteArrayInputStream(response.getContentBytes()));
+        Assertions.assertEquals(2, input.readUnsignedShort());
+
+        final var select = new ResultReader(input);
+        Assertions.assertArrayEquals(new String[]{"row_id", "key", "value"}, select.getColumnNames());
+        Assertions.assertArrayEquals(new ColumnType[]{ColumnType.INT, ColumnType.STRING, ColumnType.STRING}, select.getColumnTypes());
+        final var rows = select.readBatch();
+        Assertions.assertEquals(1, rows.length);
+        Assertions.assertEquals("tables", rows[0][1]);
+        Assertions.assertNull(select.readBatch());
+
+        final var describe = new ResultReader(input);
+        Assertions.assertEquals(ColumnType.BOOL, describe.getColumnTypes()[2]);
+        Assertions.assertEquals(ColumnType.INT, describe.getColumnTypes()[4]);
+        final var columns = describe.readBatch();
+        Assertions.assertEquals("row_id", columns[0][0]);
+        Assertions.assertNull(describe.readBatch());
+        Assertions.assertEquals(0, input.available());
+    }
+
+    @Test
+    public void writeAndReadRowsInBatches() throws Exception {
+        final var rows = new Object[ResultWriter.BATCH_SIZE + 10][];
+        for (var i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{i, i / 2f, i % 3 == 0 ? null : "row " + i, i % 2 == 0};
+        }
+
+        final var bytes = new ByteArrayOutputStream();
+        final var writer = new ResultWriter(new DataOutputStream(bytes), new String[]{"a", "b", "c", "d"},
+                new ColumnType[]{ColumnType.INT, ColumnType.FLOAT, ColumnType.STRING, ColumnType.BOOL});
+        writer.writeRows(rows);
+        writer.finish();
+
+        final var reader = new ResultReader(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        final var firstBatch = reader.readBatch();
+        final var secondBatch = reader.readBatch();
+        Assertions.assertEquals(ResultWriter.BATCH_SIZE, firstBatch.length);
+        Assertions.assertEquals(10, secondBatch.length);
+        Assertions.assertNull(reader.readBatch());
+        for (var i = 0; i < rows.length; i++) {
+            final var row = i < firstBatch.length ? firstBatch[i] : secondBatch[i - firstBatch.length];
+            Assertions.assertArrayEquals(rows[i], row);
+        }
+    }
+
+    @Test
+    public void splitLargeResponsesIntoFrames() throws Exception {
+        final var content = "x".repeat(3 * Response.MAX_FRAME_CONTENT_LENGTH + 100);
+        final var bytes = new Response(ResponseCode.SUCCESS, content).toByteArray();
+        Assertions.assertEquals(content.length() + 4 * 4, bytes.length);
+
+        final var input = new ByteArrayInputStream(bytes);
+        Assertions.assertEquals(content, Response.read(input).getContent());
+        Assertions.assertEquals(0, input.available());
+    }
+
+    @Test
+    public void streamResponseAndFailHalfway() throws Exception {
+        final var frames = new ByteArrayOutputStream();
+        final var output = new ResponseOutputStream(frames);
+        output.write(new byte[Response.MAX_FRAME_CONTENT_LENGTH + 10]);
+        output.fail(ResponseCode.INTERNAL_ERROR, "Disk on fire.");
+        frames.write(new Response(ResponseCode.SUCCESS, "PONG").toByteArray());
+
+        final var input = new ByteArrayInputStream(frames.toByteArray());
+        final var response = new ResponseInputStream(input);
+        final var exception = Assertions.assertThrows(ResponseException.class, response::skipRemaining);
+        Assertions.assertEquals(ResponseCode.INTERNAL_ERROR, exception.getResponseCode());
+        Assertions.assertEquals("Disk on fire.", exception.getMessage());
+        // The next response on the same stream can still be read.
+        Assertions.assertEquals("PONG", Response.read(input).getContent());
+    }
+
+    @Test
+    public void streamBinaryResults() throws Exception {
+        final var requestProcessor = new RequestProcessor(new Database());
+        final var frames = new ByteArrayOutputStream();
+        requestProcessor.process(new Request(RequestType.QUERY_BINARY, "describe jn_configs;"), frames);
+        requestProcessor.process(new Request(RequestType.QUERY_BINARY, "not a query"), frames);
+
+        final var input = new ByteArrayInputStream(frames.toByteArray());
+        final var results = new DataInputStream(new ResponseInputStream(input));
+        Assertions.assertEquals(1, results.readUnsignedShort());
+        final var reader = new ResultReader(results);
+        Assertions.assertEquals("row_id", reader.readBatch()[0][0]);
+        Assertions.assertNull(reader.readBatch());
+        Assertions.assertEquals(-1, results.read());
+
+        Assertions.assertEquals(ResponseCode.QUERY_ERROR, Response.read(input).getResponseCode());
+    }
+}
@@ -0,0 +1,79 @@
+package dev.terna.janelle.server;
+
+import dev.terna.janelle.database.Database;
+import dev.terna.janelle.protocol.Request;
+import dev.terna.janelle.protocol.RequestType;
+import dev.terna.janelle.protocol.ResponseCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ServerTest {
+    private static String readResponse(Socket socket, ResponseCode expectedCode) throws Exception {
+        final var input = new DataInputStream(socket.getInputStream());
+        Assertions.assertEquals(expectedCode, ResponseCode.fromId(input.readShort()));
+        final var content = new byte[input.readShort()];
+        input.readFully(content);
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    private static Server startServer(ExecutorService background) throws Exception {
+        // A single worker, which an idle connection mustn't keep from the others.
+        final var server = new Server(0, 1, 4);
+        final var requestProcessor = new RequestProcessor(new Database());
+        background.submit(() -> {
+            server.start(requestProcessor);
+            return null;
+        });
+        return server;
+    }
+
+    @Test
+    public void parkIdleConnections() throws Exception {
+        final var background = Executors.newSingleThreadExecutor();
+        final var server = startServer(background);
+        final var port = server.getLocalPort();
+        try (var idleSocket = new Socket("127.0.0.1", port); var socket = new Socket("127.0.0.1", port)) {
+            idleSocket.setSoTimeout(10_000);
+            socket.setSoTimeout(10_000);
+            idleSocket.getOutputStream().write(new Request(RequestType.PING, null).toByteArray());
+            Assertions.assertEquals("PONG", readResponse(idleSocket, ResponseCode.SUCCESS));
+
+            socket.getOutputStream().write(new Request(RequestType.PING, null).toByteArray());
+            Assertions.assertEquals("PONG", readResponse(socket, ResponseCode.SUCCESS));
+
+            // A client that pauses between requests keeps its connection.
+            Thread.sleep(500);
+            idleSocket.getOutputStream().write(new Request(RequestType.PING, null).toByteArray());
+            Assertions.assertEquals("PONG", readResponse(idleSocket, ResponseCode.SUCCESS));
+        } finally {
+            server.stop();
+            background.shutdown();
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void rejectRequestCutOff() throws Exception {
+        final var background = Executors.newSingleThreadExecutor();
+        final var server = startServer(background);
+        try (var socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            socket.setSoTimeout(10_000);
+            final var bytes = new Request(RequestType.PING, "hello").toByteArray();
+            socket.getOutputStream().write(bytes, 0, bytes.length - 2);
+            socket.shutdownOutput();
+            Assertions.assertEquals("Incomplete request.", readResponse(socket, ResponseCode.INVALID_REQUEST));
+            Assertions.assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            server.stop();
+            background.shutdown();
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
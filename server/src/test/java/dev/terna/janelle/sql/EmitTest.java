@@ -3,6 +3,8 @@ package dev.terna.janelle.sql;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 public class EmitTest {
     private Node getAst(String query) throws Exception {
         final var tokenizer = new Tokenizer(query);
@@ -22,4 +24,34 @@ public class EmitTest {
         Assertions.assertEquals("jn_configs", queries.get(0).getTable());
         Assertions.assertEquals(0, queries.get(0).getColumns().size());
     }
+
+    @Test
+    public void emitSelectedColumns() throws Exception {
+        final var ast = getAst("select key, value from jn_configs;");
+        final var emitter = new Emitter();
+        final var queries = emitter.emit(ast);
+
+        Assertions.assertEquals(List.of("key", "value"), queries.get(0).getColumns());
+    }
+
+    @Test
+    public void emitCreateIndexQuery() throws Exception {
+        final var ast = getAst("create index on jn_configs (value);");
+        final var emitter = new Emitter();
+        final var queries = emitter.emit(ast);
+
+        Assertions.assertEquals(Statement.CREATE_INDEX, queries.get(0).getStatement());
+        Assertions.assertEquals("jn_configs", queries.get(0).getTable());
+        Assertions.assertEquals(List.of("value"), queries.get(0).getColumns());
+    }
+
+    @Test
+    public void emitCreateCoveringIndexQuery() throws Exception {
+        final var ast = getAst("create index on jn_configs (key, value) include (description);");
+        final var emitter = new Emitter();
+        final var queries = emitter.emit(ast);
+
+        Assertions.assertEquals(List.of("key", "value"), queries.get(0).getColumns());
+        Assertions.assertEquals(List.of("description"), queries.get(0).getIncludedColumns());
+    }
 }
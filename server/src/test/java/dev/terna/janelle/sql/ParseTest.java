@@ -37,4 +37,13 @@ public class ParseTest {
 
         Assertions.assertEquals(NodeType.STATEMENTS, ast.getNodeType());
     }
+
+    @Test
+    public void rejectLimitThatIsNotANumberOfRows() {
+        for (var limit : List.of("-1", "99999999999")) {
+            final var tokens = getTokens("select * from customers limit " + limit + ";");
+            final var exception = Assertions.assertThrows(Exception.class, () -> new Parser().parse(tokens));
+            Assertions.assertEquals("Syntax error: Limit must be a number of rows.", exception.getMessage());
+        }
+    }
 }
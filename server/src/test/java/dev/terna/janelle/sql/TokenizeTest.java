@@ -37,4 +37,28 @@ public class TokenizeTest {
         };
         Assertions.assertArrayEquals(expected, tokenTypes);
     }
+
+    @Test
+    public void tokenizeOrderByAndLimit() {
+        final var query = "select * from my_table order by score desc, order_id limit 10;";
+        final var tokenizer = new Tokenizer(query);
+        final var tokens = tokenizer.tokenize();
+        final var tokenTypes = tokens.stream().map(Token::getTokenType).toArray();
+
+        final var expected = new TokenType[] {
+                TokenType.SELECT,
+                TokenType.ALL,
+                TokenType.FROM,
+                TokenType.IDENTIFIER,
+                TokenType.ORDER_BY,
+                TokenType.IDENTIFIER,
+                TokenType.DESCENDING,
+                TokenType.COMMA,
+                TokenType.IDENTIFIER,
+                TokenType.LIMIT,
+                TokenType.INT_LITERAL,
+                TokenType.SEMICOLON
+        };
+        Assertions.assertArrayEquals(expected, tokenTypes);
+    }
 }
@@ -0,0 +1,107 @@
+package dev.terna.janelle.sql.postfixexpression;
+
+import dev.terna.janelle.sql.Token;
+import dev.terna.janelle.sql.Tokenizer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+public class CompilerTest {
+    private static final String[] VARIABLE_NAMES = {"num_orders", "voucher_balance", "email", "name", "has_premium_plan"};
+
+    private List<Token> getPostfixExpression(String expression) throws Exception {
+        final var tokenizer = new Tokenizer(expression);
+        final var generator = new Generator();
+        return generator.generate(tokenizer.tokenize());
+    }
+
+    private Object evaluate(List<Token> expression, Object[] row) {
+        final var variables = new HashMap<String, Object>();
+        for (var index = 0; index < VARIABLE_NAMES.length; index++) {
+            variables.put(VARIABLE_NAMES[index], row[index]);
+        }
+        return new Evaluator(variables).evaluate(expression);
+    }
+
+    @Test
+    public void compileToSameResultsAsEvaluator() throws Exception {
+        final var expressions = List.of(
+                "(num_orders > 0 and num_orders <= 5) or voucher_balance = 50.00 or (email = \"ja@nel.le\" and name != null and has_premium_plan = true)",
+                "(num_orders * 4 + 3 * 2) / voucher_balance",
+                "NAME = \"Milan\" and unknown = null",
+                "voucher_balance >= 4.19 or num_orders < 2",
+                "email < \"test\" and name >= \"Milan\"",
+                "name = 5"
+        );
+        final var rows = List.of(
+                new Object[]{4, 50, "ja@nel.le", "Milan", true},
+                new Object[]{20, 4.19f, "test@example.com", "Milan", false},
+                new Object[]{0, 0, null, null, false}
+        );
+
+        for (var expression : expressions) {
+            final var postfixExpression = getPostfixExpression(expression);
+            final var compiledExpression = Compiler.compile(postfixExpression, VARIABLE_NAMES);
+            for (var row : rows) {
+                Assertions.assertEquals(evaluate(postfixExpression, row), compiledExpression.evaluate(row), expression);
+            }
+        }
+    }
+
+    @Test
+    public void compileTypedVariablesToSameResultsAsEvaluator() throws Exception {
+        final var expressions = List.of(
+                "(num_orders > 0 and num_orders <= 5) or voucher_balance = 50.00 or (email = \"ja@nel.le\" and name != null)",
+                "(num_orders * 4 + 3 * 2) / voucher_balance",
+                "num_orders = voucher_balance",
+                "email > 3"
+        );
+        final var rows = List.of(
+                new Object[]{4, 50.0f, "ja@nel.le", "Milan", true},
+                new Object[]{20, 4.19f, "test@example.com", "Milan", false},
+                new Object[]{0, 0.0f, null, null, false}
+        );
+
+        for (var expression : expressions) {
+            final var postfixExpression = getPostfixExpression(expression);
+            // The number variables are typed, like number columns are.
+            final Compiler.CompiledExpression<Object[]> compiledExpression = Compiler.compile(postfixExpression, name -> switch (name) {
+                case "num_orders" -> Compiler.number(row -> (Integer) row[0], row -> row[0]);
+                case "voucher_balance" -> Compiler.number(row -> (Float) row[1], row -> row[1]);
+                case "email" -> row -> row[2];
+                case "name" -> row -> row[3];
+                default -> row -> null;
+            });
+            for (var row : rows) {
+                Object expected;
+                try {
+                    expected = evaluate(postfixExpression, row);
+                } catch (IllegalStateException e) {
+                    final var actual = Assertions.assertThrows(IllegalStateException.class, () -> compiledExpression.evaluate(row));
+                    Assertions.assertEquals(e.getMessage(), actual.getMessage(), expression);
+                    continue;
+                }
+                Assertions.assertEquals(expected, compiledExpression.evaluate(row), expression);
+            }
+        }
+
+        final var condition = Compiler.<Object[]>compile(getPostfixExpression("num_orders > 1 and email = null"), name -> name.equals("num_orders") ? Compiler.number(row -> (Integer) row[0], row -> row[0]) : row -> row[2]);
+        Assertions.assertTrue(condition instanceof Compiler.BoolExpression<Object[]>);
+        Assertions.assertFalse(((Compiler.BoolExpression<Object[]>) condition).evaluateBool(new Object[]{4, 50.0f, "ja@nel.le"}));
+        final var arithmetic = Compiler.<Object[]>compile(getPostfixExpression("num_orders * 2"), name -> Compiler.number(row -> (Integer) row[0], row -> row[0]));
+        Assertions.assertEquals(8.0, ((Compiler.NumberExpression<Object[]>) arithmetic).evaluateNumber(new Object[]{4}));
+    }
+
+    @Test
+    public void failLikeEvaluator() throws Exception {
+        final var postfixExpression = getPostfixExpression("num_orders > 1 and email > 1");
+        final var row = new Object[]{4, 50, "ja@nel.le", "Milan", true};
+        final var compiledExpression = Compiler.compile(postfixExpression, VARIABLE_NAMES);
+
+        final var expected = Assertions.assertThrows(IllegalStateException.class, () -> evaluate(postfixExpression, row));
+        final var actual = Assertions.assertThrows(IllegalStateException.class, () -> compiledExpression.evaluate(row));
+        Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+    }
+}